@@ -1,33 +1,73 @@
 package com.example.bugtracker;
 
+import com.example.bugtracker.api.ApiServer;
+import com.example.bugtracker.model.enums.Status;
+import com.example.bugtracker.repository.BugQuery;
+import com.example.bugtracker.repository.CacheStats;
 import com.example.bugtracker.repository.DataRepository;
+import com.example.bugtracker.repository.RepositoryConfig;
 import com.example.bugtracker.service.*;
+import com.example.bugtracker.ui.ConsoleServer;
 import com.example.bugtracker.ui.ConsoleUI;
+import java.io.File;
+import java.time.LocalDate;
+import java.util.Locale;
 
 /**
  * Main entry point for the Bug Tracking Application.
- * Initializes all components and starts the user interface.
+ * Initializes all components and starts the console user interface, or with
+ * {@code --server [port]} the HTTP/JSON API and with {@code --console-server [port]}
+ * the console over TCP instead. With {@code --export} it writes an export file and exits.
  */
 public class Main {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_CONSOLE_PORT = 2323;
     
     /**
      * Main method that starts the application
      * 
-     * @param args Command line arguments (not used)
+     * @param args Command line arguments: {@code --server [port]} to serve the HTTP API,
+     *             {@code --console-server [port]} to serve console sessions over TCP,
+     *             {@code --export <file> [--project <id>] [--status <status>] [--updated-since <yyyy-MM-dd>]}
+     *             to export bugs
      */
     public static void main(String[] args) {
         try {
-            // Initialize the data repository
-            DataRepository repository = new DataRepository();
+            // Initialize the data repository, reporting progress for large data files
+            RepositoryConfig config = RepositoryConfig.fromSystemProperties();
+            config.setLoadProgressListener((bytesRead, totalBytes, users, projects, bugs) ->
+                    System.out.printf("Loading data... %d%% (%d bugs)%n", bytesRead * 100 / totalBytes, bugs));
+            DataRepository repository = new DataRepository(config);
             
             // Initialize the service layer
             UserService userService = new UserService(repository);
             ProjectService projectService = new ProjectService(repository);
             BugService bugService = new BugService(repository);
             
+            if (args.length > 0 && args[0].equals("--server")) {
+                int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+                startServer(port, repository, userService, projectService, bugService);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--console-server")) {
+                int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CONSOLE_PORT;
+                startConsoleServer(port, repository, userService, projectService, bugService);
+                return;
+            }
+            if (args.length > 1 && args[0].equals("--export")) {
+                export(args, bugService);
+                printCacheStats(repository);
+                repository.close();
+                return;
+            }
+            
             // Initialize and start the console UI
             ConsoleUI consoleUI = new ConsoleUI(userService, projectService, bugService);
             consoleUI.start();
+
+            printCacheStats(repository);
+            // Fold any journaled changes into the data file before exiting
+            repository.close();
             
         } catch (Exception e) {
             System.err.println("An error occurred while starting the application:");
@@ -36,4 +76,77 @@ public class Main {
             System.exit(1);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reports how well the cache of recently used bugs worked, if bugs were kept on disk
+     */
+    private static void printCacheStats(DataRepository repository) {
+        CacheStats stats = repository.getBugCacheStats();
+        if (stats != null) {
+            System.out.println("Bug cache: " + stats);
+        }
+    }
+
+    /**
+     * Serves the HTTP API until the process is terminated, then folds any journaled
+     * changes into the data file
+     */
+    private static void startServer(int port, DataRepository repository, UserService userService,
+                                    ProjectService projectService, BugService bugService) throws Exception {
+        ApiServer server = new ApiServer(port, userService, projectService, bugService);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Shutting down...");
+            server.stop(5);
+            printCacheStats(repository);
+            repository.close();
+        }));
+        server.start();
+        System.out.println("Bug Tracker API listening on http://localhost:" + server.getPort() + "/api");
+    }
+
+    /**
+     * Serves console sessions over TCP until the process is terminated, then folds any
+     * journaled changes into the data file
+     */
+    private static void startConsoleServer(int port, DataRepository repository, UserService userService,
+                                           ProjectService projectService, BugService bugService) throws Exception {
+        ConsoleServer server = new ConsoleServer(port, userService, projectService, bugService);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Shutting down...");
+            server.stop();
+            printCacheStats(repository);
+            repository.close();
+        }));
+        server.start();
+        System.out.println("Bug Tracker console listening on port " + server.getPort()
+                + " (connect with telnet or nc)");
+    }
+
+    /**
+     * Exports the bugs selected by the command line options to a file
+     */
+    private static void export(String[] args, BugService bugService) throws Exception {
+        BugQuery query = new BugQuery();
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for export option " + args[i]);
+            }
+            switch (args[i]) {
+                case "--project":
+                    query.inProject(args[i + 1]);
+                    break;
+                case "--status":
+                    query.withStatus(Status.valueOf(args[i + 1].toUpperCase(Locale.ROOT)));
+                    break;
+                case "--updated-since":
+                    query.updatedSince(LocalDate.parse(args[i + 1]).atStartOfDay());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown export option " + args[i]);
+            }
+        }
+        long start = System.nanoTime();
+        long count = bugService.exportBugs(query, new File(args[1]));
+        System.out.printf("Exported %d bugs to %s in %.1f s%n", count, args[1], (System.nanoTime() - start) / 1e9);
+    }
+}
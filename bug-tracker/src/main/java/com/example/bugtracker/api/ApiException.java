@@ -0,0 +1,19 @@
+package com.example.bugtracker.api;
+
+/**
+ * Signals that a request cannot be served, carrying the HTTP status to answer with
+ */
+class ApiException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.bugtracker.api;
+
+import com.example.bugtracker.model.User;
+import com.example.bugtracker.model.enums.Role;
+import com.example.bugtracker.repository.VersionConflictException;
+import com.example.bugtracker.service.UserService;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.*;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.util.*;
+
+/**
+ * Common plumbing of the API resources: routing on path segments, session lookup,
+ * JSON request and response bodies, and mapping failures to HTTP status codes.
+ * Subclasses implement {@link #handle(Request)} and throw {@link ApiException}
+ * to reject a request.
+ */
+abstract class ApiHandler implements HttpHandler {
+    private static final String JSON = "application/json; charset=utf-8";
+
+    protected final Gson gson;
+    protected final SessionStore sessions;
+    protected final UserService userService;
+
+    ApiHandler(Gson gson, SessionStore sessions, UserService userService) {
+        this.gson = gson;
+        this.sessions = sessions;
+        this.userService = userService;
+    }
+
+    /**
+     * Serves one request
+     */
+    protected abstract void handle(Request request) throws IOException;
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                handle(new Request(exchange));
+            } catch (ApiException e) {
+                sendError(exchange, e.getStatus(), e.getMessage());
+            } catch (VersionConflictException e) {
+                sendError(exchange, 409, e.getMessage());
+            } catch (JsonParseException | IllegalArgumentException | IllegalStateException
+                     | UnsupportedOperationException | DateTimeException e) {
+                sendError(exchange, 400, "Malformed request: " + e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("Error handling " + exchange.getRequestMethod() + " "
+                        + exchange.getRequestURI() + ": " + e);
+                sendError(exchange, 500, "Internal error");
+            }
+        }
+    }
+
+    /**
+     * Sends a value as a JSON response body
+     */
+    protected void send(Request request, int status, Object body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        HttpExchange exchange = request.exchange;
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    /**
+     * Sends a response without a body
+     */
+    protected void sendEmpty(Request request, int status) throws IOException {
+        request.exchange.sendResponseHeaders(status, -1);
+    }
+
+    /**
+     * Streams a JSON array with chunked transfer encoding, serialising each element
+     * as the client consumes the response, so large listings are never held in memory
+     */
+    protected void stream(Request request, Iterator<?> items) throws IOException {
+        HttpExchange exchange = request.exchange;
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        Writer body = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        try (JsonWriter writer = new JsonWriter(body)) {
+            writer.beginArray();
+            while (items.hasNext()) {
+                Object item = items.next();
+                gson.toJson(item, item.getClass(), writer);
+            }
+            writer.endArray();
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("error", message);
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (IOException e) {
+            // The response was already under way, or the client has gone away
+            System.err.println("Could not send error response: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A request being served, with its path below the handler's context split into segments
+     */
+    protected class Request {
+        final HttpExchange exchange;
+        final String method;
+        final List<String> path;
+        private final Map<String, String> parameters;
+
+        Request(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            String context = exchange.getHttpContext().getPath();
+            String rest = exchange.getRequestURI().getPath().substring(context.length());
+            this.path = new ArrayList<>();
+            for (String segment : rest.split("/")) {
+                if (!segment.isEmpty()) {
+                    path.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+                }
+            }
+            this.parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+
+        /**
+         * Gets the user who owns the session token presented with the request
+         *
+         * @throws ApiException if there is no valid session
+         */
+        User user() {
+            String userId = sessions.resolve(token());
+            User user = userId != null ? userService.getUserById(userId) : null;
+            if (user == null) {
+                throw new ApiException(401, "Log in first by creating a session");
+            }
+            return user;
+        }
+
+        /**
+         * Gets the session user, requiring one of the given roles
+         */
+        User user(Role... roles) {
+            return requireRole(user(), roles);
+        }
+
+        String token() {
+            String header = exchange.getRequestHeaders().getFirst("Authorization");
+            return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+        }
+
+        String parameter(String name) {
+            return parameters.get(name);
+        }
+
+        int intParameter(String name, int defaultValue) {
+            String value = parameters.get(name);
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        }
+
+        /**
+         * Parses the request body as a JSON object
+         */
+        JsonObject body() throws IOException {
+            try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                JsonElement body = gson.fromJson(reader, JsonElement.class);
+                if (body == null || !body.isJsonObject()) {
+                    throw new ApiException(400, "Expected a JSON object");
+                }
+                return body.getAsJsonObject();
+            }
+        }
+
+        /**
+         * Fails with 405 unless the request uses the given method
+         */
+        void require(String expectedMethod) {
+            if (!method.equals(expectedMethod)) {
+                throw new ApiException(405, method + " is not supported here");
+            }
+        }
+    }
+
+    /**
+     * Gets a string member of a JSON object
+     *
+     * @throws ApiException if the member is required but missing or blank
+     */
+    protected static String string(JsonObject object, String name, boolean required) {
+        JsonElement value = object.get(name);
+        String text = value != null && !value.isJsonNull() ? value.getAsString().trim() : null;
+        if (required && (text == null || text.isEmpty())) {
+            throw new ApiException(400, "Missing field '" + name + "'");
+        }
+        return text;
+    }
+
+    /**
+     * Checks that a user has one of the given roles
+     *
+     * @throws ApiException if the user has none of them
+     */
+    protected static User requireRole(User user, Role... roles) {
+        for (Role role : roles) {
+            if (user.getRole() == role) {
+                return user;
+            }
+        }
+        throw new ApiException(403, "Access denied for role " + user.getRole());
+    }
+
+    /**
+     * Parses the name of an enum constant, ignoring case
+     *
+     * @throws ApiException if there is no such constant
+     */
+    protected static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Unknown " + type.getSimpleName() + " '" + name + "', expected one of "
+                    + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+
+    protected static ApiException notFound(String what) {
+        return new ApiException(404, what + " not found");
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals >= 0 ? pair.substring(0, equals) : pair;
+            String value = equals >= 0 ? pair.substring(equals + 1) : "";
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.bugtracker.api;
+
+import com.example.bugtracker.model.ModelTypeAdapters;
+import com.example.bugtracker.service.BugService;
+import com.example.bugtracker.service.ProjectService;
+import com.example.bugtracker.service.UserService;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP/JSON interface to the bug tracker, built on the JDK's embedded HTTP server.
+ * Every request runs on its own virtual thread, so a slow client or a large streamed
+ * listing ties up no platform thread, and clients authenticate with a bearer token
+ * obtained from /api/sessions rather than sharing the console's logged-in user.
+ * <p>
+ * Resources:
+ * <pre>
+ * POST   /api/sessions                 {"username"}                       log in
+ * DELETE /api/sessions                                                    log out
+ * GET    /api/users[?role=]                                              list users
+ * GET    /api/users/{id|me}
+ * GET    /api/projects                                                   list projects
+ * POST   /api/projects                 {"name", "description"}            managers only
+ * GET    /api/projects/{id}
+ * GET    /api/projects/{id}/counts                                       bugs per status and priority
+ * GET    /api/bugs?project=&amp;assignee=&amp;reporter=&amp;status=&amp;priority=&amp;updatedSince=&amp;sort=&amp;desc=&amp;offset=&amp;limit=
+ * GET    /api/bugs/search?q=&amp;project=&amp;limit=
+ * POST   /api/bugs                     {"projectId", "title", "description", "priority", "force"}
+ * GET    /api/bugs/{id}
+ * POST   /api/bugs/{id}/comments       {"text"}
+ * PUT    /api/bugs/{id}/assignee       {"developerId", "version"}
+ * PUT    /api/bugs/{id}/status         {"status", "version"}
+ * </pre>
+ */
+public class ApiServer {
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server bound to the given port; it does not accept requests until started
+     *
+     * @param port           The TCP port to listen on, or 0 for any free port
+     * @param userService    Service for user lookups
+     * @param projectService Service for project operations
+     * @param bugService     Service for bug operations
+     * @throws IOException if the port cannot be bound
+     */
+    public ApiServer(int port, UserService userService, ProjectService projectService,
+                     BugService bugService) throws IOException {
+        // Bugs and timestamps are written in the same form as in the data file
+        Gson gson = ModelTypeAdapters.builder()
+                .disableHtmlEscaping()
+                .create();
+        SessionStore sessions = new SessionStore();
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/api/sessions", new SessionHandler(gson, sessions, userService));
+        server.createContext("/api/users", new UserHandler(gson, sessions, userService));
+        server.createContext("/api/projects",
+                new ProjectHandler(gson, sessions, userService, projectService, bugService));
+        server.createContext("/api/bugs",
+                new BugHandler(gson, sessions, userService, projectService, bugService));
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits for those in progress to finish
+     *
+     * @param graceSeconds How long to wait for requests in progress
+     */
+    public void stop(int graceSeconds) {
+        server.stop(graceSeconds);
+        executor.close();
+    }
+
+    /**
+     * Gets the port the server is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.bugtracker.api;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.User;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Role;
+import com.example.bugtracker.model.enums.Status;
+import com.example.bugtracker.repository.BugQuery;
+import com.example.bugtracker.service.BugService;
+import com.example.bugtracker.service.ProjectService;
+import com.example.bugtracker.service.UserService;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * /api/bugs: querying, searching and reporting bugs, and commenting on, assigning and
+ * changing the status of a bug. The same role rules apply as in the console:
+ * testers report and close bugs, project managers assign them, and developers move
+ * the bugs assigned to them through the workflow.
+ * <p>
+ * Changes to a bug are based on the version the client last saw, passed as "version"
+ * in the request body, or else on the version read when the request arrives. A change
+ * made by someone else in the meantime is answered with 409 Conflict.
+ */
+class BugHandler extends ApiHandler {
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
+    private final ProjectService projectService;
+    private final BugService bugService;
+
+    BugHandler(Gson gson, SessionStore sessions, UserService userService,
+               ProjectService projectService, BugService bugService) {
+        super(gson, sessions, userService);
+        this.projectService = projectService;
+        this.bugService = bugService;
+    }
+
+    @Override
+    protected void handle(Request request) throws IOException {
+        User user = request.user();
+        List<String> path = request.path;
+
+        if (path.isEmpty()) {
+            if (request.method.equals("POST")) {
+                reportBug(request, user);
+            } else {
+                request.require("GET");
+                stream(request, bugService.withBodies(bugService.queryBugs(toQuery(request))));
+            }
+        } else if (path.size() == 1 && path.get(0).equals("search")) {
+            request.require("GET");
+            String query = request.parameter("q");
+            if (query == null || query.isBlank()) {
+                throw new ApiException(400, "Missing parameter 'q'");
+            }
+            stream(request, bugService.withBodies(bugService.searchBugs(query, request.parameter("project"),
+                    request.intParameter("limit", DEFAULT_SEARCH_LIMIT)).iterator()));
+        } else if (path.size() == 1) {
+            request.require("GET");
+            send(request, 200, findBug(path.get(0)));
+        } else if (path.size() == 2) {
+            Bug bug = findBug(path.get(0));
+            switch (path.get(1)) {
+                case "comments":
+                    request.require("POST");
+                    addComment(request, user, bug);
+                    break;
+                case "assignee":
+                    request.require("PUT");
+                    assignBug(request, user, bug);
+                    break;
+                case "status":
+                    request.require("PUT");
+                    updateStatus(request, user, bug);
+                    break;
+                default:
+                    throw notFound("Resource");
+            }
+        } else {
+            throw notFound("Resource");
+        }
+    }
+
+    private BugQuery toQuery(Request request) {
+        BugQuery query = new BugQuery()
+                .inProject(request.parameter("project"))
+                .assignedTo(request.parameter("assignee"))
+                .reportedBy(request.parameter("reporter"))
+                .offset(request.intParameter("offset", 0))
+                .limit(request.intParameter("limit", Integer.MAX_VALUE));
+        if (request.parameter("status") != null) {
+            query.withStatus(enumValue(Status.class, request.parameter("status")));
+        }
+        if (request.parameter("priority") != null) {
+            query.withPriority(enumValue(Priority.class, request.parameter("priority")));
+        }
+        if (request.parameter("updatedSince") != null) {
+            query.updatedSince(LocalDateTime.parse(request.parameter("updatedSince")));
+        }
+        if (request.parameter("sort") != null) {
+            query.sortBy(enumValue(BugQuery.SortField.class, request.parameter("sort")),
+                    Boolean.parseBoolean(request.parameter("desc")));
+        }
+        return query;
+    }
+
+    /**
+     * Reports a bug. When the report resembles existing bugs in the project it is only
+     * created if the client confirms with "force": true; otherwise the likely duplicates
+     * are returned with 409 Conflict.
+     */
+    private void reportBug(Request request, User user) throws IOException {
+        requireRole(user, Role.TESTER);
+        JsonObject body = request.body();
+        String projectId = string(body, "projectId", true);
+        String title = string(body, "title", true);
+        String description = string(body, "description", true);
+        String priority = string(body, "priority", false);
+        if (projectService.getProjectById(projectId) == null) {
+            throw notFound("Project");
+        }
+
+        JsonElement force = body.get("force");
+        if (force == null || !force.getAsBoolean()) {
+            List<Bug> duplicates = bugService.findPossibleDuplicates(title, description, projectId);
+            if (!duplicates.isEmpty()) {
+                JsonObject conflict = new JsonObject();
+                conflict.addProperty("error", "This report looks similar to existing bugs; "
+                        + "resend with \"force\": true to report it anyway");
+                List<Bug> complete = new ArrayList<>();
+                bugService.withBodies(duplicates.iterator()).forEachRemaining(complete::add);
+                conflict.add("possibleDuplicates", gson.toJsonTree(complete));
+                send(request, 409, conflict);
+                return;
+            }
+        }
+
+        Bug bug = bugService.createBug(title, description, projectId, user.getId(),
+                priority != null ? enumValue(Priority.class, priority) : Priority.MEDIUM);
+        send(request, 201, bug);
+    }
+
+    private void addComment(Request request, User user, Bug bug) throws IOException {
+        String text = string(request.body(), "text", true);
+        if (!bugService.addComment(bug.getId(), user.getId(), text)) {
+            throw notFound("Bug");
+        }
+        send(request, 201, bugService.getBugById(bug.getId()));
+    }
+
+    private void assignBug(Request request, User user, Bug bug) throws IOException {
+        requireRole(user, Role.PROJECT_MANAGER);
+        JsonObject body = request.body();
+        long version = version(body, bug);
+        User developer = userService.getUserById(string(body, "developerId", true));
+        if (developer == null || developer.getRole() != Role.DEVELOPER) {
+            throw new ApiException(400, "Bugs can only be assigned to developers");
+        }
+        if (!bugService.canAssignBug(bug.getId())) {
+            throw new ApiException(409, "This bug cannot be assigned (status: " + bug.getStatus() + ")");
+        }
+
+        if (!bugService.assignBug(bug.getId(), developer.getId(), version)) {
+            throw notFound("Bug");
+        }
+        send(request, 200, bugService.getBugById(bug.getId()));
+    }
+
+    private void updateStatus(Request request, User user, Bug bug) throws IOException {
+        JsonObject body = request.body();
+        long version = version(body, bug);
+        Status newStatus = enumValue(Status.class, string(body, "status", true));
+
+        if (user.getRole() == Role.DEVELOPER) {
+            if (!bugService.canDeveloperUpdateStatus(bug.getId(), user.getId())) {
+                throw new ApiException(403, "Bug must be assigned to you and in NEW or IN_PROGRESS state");
+            }
+            if (!Arrays.asList(bugService.getValidDeveloperStatusTransitions(bug.getStatus())).contains(newStatus)) {
+                throw new ApiException(409, "Cannot move a bug from " + bug.getStatus() + " to " + newStatus);
+            }
+        } else if (user.getRole() == Role.TESTER) {
+            if (newStatus != Status.CLOSED) {
+                throw new ApiException(403, "Testers can only close bugs");
+            }
+            if (!bugService.canCloseBug(bug.getId())) {
+                throw new ApiException(409, "This bug cannot be closed. It must be in RESOLVED status first.");
+            }
+        } else {
+            throw new ApiException(403, "Access denied for role " + user.getRole());
+        }
+
+        if (!bugService.updateBugStatus(bug.getId(), newStatus, version)) {
+            throw notFound("Bug");
+        }
+        send(request, 200, bugService.getBugById(bug.getId()));
+    }
+
+    private Bug findBug(String id) {
+        Bug bug = bugService.getBugById(id);
+        if (bug == null) {
+            throw notFound("Bug");
+        }
+        return bug;
+    }
+
+    /**
+     * Gets the version of the bug the client based its change on
+     */
+    private static long version(JsonObject body, Bug bug) {
+        JsonElement version = body.get("version");
+        return version != null && !version.isJsonNull() ? version.getAsLong() : bug.getVersion();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bugtracker.api;
+
+import com.example.bugtracker.model.Project;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Role;
+import com.example.bugtracker.model.enums.Status;
+import com.example.bugtracker.repository.AgingReport;
+import com.example.bugtracker.repository.FacetCounts;
+import com.example.bugtracker.service.BugService;
+import com.example.bugtracker.service.ProjectService;
+import com.example.bugtracker.service.UserService;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * /api/projects: listing and creating projects, looking one up, and its bug counts
+ * per status and priority, by age and per developer
+ */
+class ProjectHandler extends ApiHandler {
+    private final ProjectService projectService;
+    private final BugService bugService;
+
+    ProjectHandler(Gson gson, SessionStore sessions, UserService userService,
+                   ProjectService projectService, BugService bugService) {
+        super(gson, sessions, userService);
+        this.projectService = projectService;
+        this.bugService = bugService;
+    }
+
+    @Override
+    protected void handle(Request request) throws IOException {
+        if (request.path.isEmpty()) {
+            if (request.method.equals("POST")) {
+                createProject(request);
+            } else {
+                request.require("GET");
+                request.user();
+                stream(request, projectService.getAllProjects().iterator());
+            }
+            return;
+        }
+
+        request.require("GET");
+        request.user();
+        Project project = projectService.getProjectById(request.path.get(0));
+        if (project == null) {
+            throw notFound("Project");
+        }
+        if (request.path.size() == 1) {
+            send(request, 200, project);
+        } else if (request.path.size() == 2 && request.path.get(1).equals("counts")) {
+            send(request, 200, countsToJson(bugService.getBugCounts(project.getId())));
+        } else if (request.path.size() == 2 && request.path.get(1).equals("aging")) {
+            send(request, 200, agingToJson(bugService.getAgingReport(project.getId())));
+        } else if (request.path.size() == 2 && request.path.get(1).equals("workload")) {
+            JsonObject json = new JsonObject();
+            for (Map.Entry<String, FacetCounts> entry : bugService.getWorkload(project.getId()).entrySet()) {
+                json.add(entry.getKey(), countsToJson(entry.getValue()));
+            }
+            send(request, 200, json);
+        } else {
+            throw notFound("Resource");
+        }
+    }
+
+    private void createProject(Request request) throws IOException {
+        request.user(Role.PROJECT_MANAGER);
+        JsonObject body = request.body();
+        String name = string(body, "name", true);
+        String description = string(body, "description", false);
+        if (!projectService.isValidProjectName(name)) {
+            throw new ApiException(409, "A project named '" + name + "' already exists");
+        }
+        send(request, 201, projectService.createProject(name, description != null ? description : ""));
+    }
+
+    private static JsonObject countsToJson(FacetCounts counts) {
+        JsonObject json = new JsonObject();
+        json.addProperty("total", counts.getTotal());
+        for (Status status : Status.values()) {
+            JsonObject byPriority = new JsonObject();
+            for (Priority priority : Priority.values()) {
+                byPriority.addProperty(priority.name(), counts.getCount(status, priority));
+            }
+            json.add(status.name(), byPriority);
+        }
+        return json;
+    }
+
+    private static JsonObject agingToJson(AgingReport report) {
+        JsonObject json = new JsonObject();
+        for (Status status : Status.values()) {
+            JsonObject byAge = new JsonObject();
+            for (AgingReport.AgeBucket bucket : AgingReport.AgeBucket.values()) {
+                byAge.addProperty(bucket.name(), report.getCount(status, bucket));
+            }
+            byAge.addProperty("averageAgeDays", report.getAverageAgeDays(status));
+            byAge.addProperty("averageIdleDays", report.getAverageIdleDays(status));
+            json.add(status.name(), byAge);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bugtracker.api;
+
+import com.example.bugtracker.model.User;
+import com.example.bugtracker.service.UserService;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+
+/**
+ * /api/sessions: logging in (POST with a username) and out (DELETE)
+ */
+class SessionHandler extends ApiHandler {
+
+    SessionHandler(Gson gson, SessionStore sessions, UserService userService) {
+        super(gson, sessions, userService);
+    }
+
+    @Override
+    protected void handle(Request request) throws IOException {
+        if (!request.path.isEmpty()) {
+            throw notFound("Resource");
+        }
+        switch (request.method) {
+            case "POST":
+                login(request);
+                break;
+            case "DELETE":
+                request.user();
+                sessions.remove(request.token());
+                sendEmpty(request, 204);
+                break;
+            default:
+                throw new ApiException(405, request.method + " is not supported here");
+        }
+    }
+
+    private void login(Request request) throws IOException {
+        String username = string(request.body(), "username", true);
+        User user = userService.getUserByUsername(username);
+        if (user == null) {
+            throw new ApiException(401, "Unknown user '" + username + "'");
+        }
+
+        JsonObject session = new JsonObject();
+        session.addProperty("token", sessions.create(user));
+        session.add("user", gson.toJsonTree(user));
+        send(request, 201, session);
+    }
+}
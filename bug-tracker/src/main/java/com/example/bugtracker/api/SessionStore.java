@@ -0,0 +1,78 @@
+package com.example.bugtracker.api;
+
+import com.example.bugtracker.model.User;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Login sessions of API clients, keyed by an unguessable bearer token.
+ * Each request resolves its own user from the token it presents, so concurrent
+ * requests from different users never share any session state.
+ */
+class SessionStore {
+    private static final Duration IDLE_TIMEOUT = Duration.ofHours(8);
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a session for a user
+     *
+     * @return The token identifying the session
+     */
+    String create(User user) {
+        // Logins are rare, so this is a convenient point to drop abandoned sessions
+        long now = System.nanoTime();
+        sessions.values().removeIf(session -> isExpired(session, now));
+
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user.getId()));
+        return token;
+    }
+
+    /**
+     * Gets the ID of the user a token belongs to, extending the session
+     *
+     * @return The user ID, or null if the token is unknown or has expired
+     */
+    String resolve(String token) {
+        Session session = token != null ? sessions.get(token) : null;
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (isExpired(session, now)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastAccess = now;
+        return session.userId;
+    }
+
+    /**
+     * Ends a session
+     */
+    void remove(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    private static boolean isExpired(Session session, long now) {
+        return now - session.lastAccess > IDLE_TIMEOUT.toNanos();
+    }
+
+    private static class Session {
+        final String userId;
+        volatile long lastAccess = System.nanoTime();
+
+        Session(String userId) {
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bugtracker.api;
+
+import com.example.bugtracker.model.User;
+import com.example.bugtracker.model.enums.Role;
+import com.example.bugtracker.service.UserService;
+import com.google.gson.Gson;
+import java.io.IOException;
+
+/**
+ * /api/users: listing users, optionally by role, and looking one up by ID or as "me"
+ */
+class UserHandler extends ApiHandler {
+
+    UserHandler(Gson gson, SessionStore sessions, UserService userService) {
+        super(gson, sessions, userService);
+    }
+
+    @Override
+    protected void handle(Request request) throws IOException {
+        request.require("GET");
+        User currentUser = request.user();
+
+        if (request.path.isEmpty()) {
+            String role = request.parameter("role");
+            stream(request, role != null
+                    ? userService.getUsersByRole(enumValue(Role.class, role)).iterator()
+                    : userService.getAllUsers().iterator());
+        } else if (request.path.size() == 1) {
+            String id = request.path.get(0);
+            User user = id.equals("me") ? currentUser : userService.getUserById(id);
+            if (user == null) {
+                throw notFound("User");
+            }
+            send(request, 200, user);
+        } else {
+            throw notFound("Resource");
+        }
+    }
+}
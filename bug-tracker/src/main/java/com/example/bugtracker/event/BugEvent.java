@@ -0,0 +1,93 @@
+package com.example.bugtracker.event;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import java.util.List;
+
+/**
+ * Records a change to a bug that has been stored.
+ * Carries the bug as stored by the change and, except for newly reported bugs,
+ * the bug as it was before, so subscribers can see exactly what changed without
+ * looking anything up. Neither bug is changed again after the event is published.
+ * Only the bugs of {@link Type#CREATED} and {@link Type#COMMENTED} events are sure to
+ * carry their descriptions and comments; the others may be headers without them.
+ */
+public final class BugEvent {
+    /**
+     * The kinds of change to a bug
+     */
+    public enum Type {
+        CREATED,
+        ASSIGNED,
+        STATUS_CHANGED,
+        COMMENTED
+    }
+
+    private final Type type;
+    private final Bug bug;
+    private final Bug previous;
+
+    /**
+     * Creates an event
+     *
+     * @param type     The kind of change
+     * @param bug      The bug as stored by the change
+     * @param previous The bug as it was before the change, or null if it was just reported
+     */
+    public BugEvent(Type type, Bug bug, Bug previous) {
+        this.type = type;
+        this.bug = bug;
+        this.previous = previous;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Bug getBug() {
+        return bug;
+    }
+
+    public Bug getPrevious() {
+        return previous;
+    }
+
+    public String getBugId() {
+        return bug.getId();
+    }
+
+    public String getProjectId() {
+        return bug.getProjectId();
+    }
+
+    /**
+     * Gets the version of the bug the change produced. Events for the same bug
+     * published by concurrent writers can arrive out of order; the version tells
+     * which change came last.
+     */
+    public long getVersion() {
+        return bug.getVersion();
+    }
+
+    /**
+     * Gets the comment added by a {@link Type#COMMENTED} event
+     *
+     * @return The new comment, or null for other kinds of event
+     */
+    public Comment getComment() {
+        if (type != Type.COMMENTED) {
+            return null;
+        }
+        List<Comment> comments = bug.getComments();
+        return comments.get(comments.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "BugEvent{" +
+                "type=" + type +
+                ", bugId='" + bug.getId() + '\'' +
+                ", version=" + bug.getVersion() +
+                '}';
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.bugtracker.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process stream of bug events, passed from publishers to subscribers through a
+ * fixed-size ring buffer.
+ * <p>
+ * Publishing claims the next sequence number with a single atomic increment and stores
+ * the event in its slot; it takes no lock and allocates nothing. Every subscriber has
+ * its own thread that follows the ring at its own pace and receives all events that
+ * have arrived since its last batch in one call. The ring never grows: once the slowest
+ * subscriber is a whole ring behind, publishers wait for it to catch up, so a slow
+ * subscriber slows the writers down rather than letting a queue grow without bound.
+ * A subscriber must therefore not wait for a change to a bug to complete from within
+ * {@link EventSubscriber#onEvents}.
+ * <p>
+ * Publishing with no subscribers does nothing, and a subscriber receives only events
+ * published after it subscribed.
+ */
+public class EventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final int MAX_BATCH_SIZE = 512;
+    // How long a publisher waits before checking again whether a slow subscriber has caught up
+    private static final long BACKPRESSURE_PAUSE_NANOS = 50_000;
+
+    private final BugEvent[] ring;
+    // The sequence number of the event each slot holds, set once the event is visible
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    // Lower bound of every subscriber's position, refreshed only when a publisher reaches it
+    private volatile long gate = -1;
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private final LongAdder stalls = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a bus with the default capacity
+     */
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a bus
+     *
+     * @param capacity How many events subscribers can fall behind by, rounded up to a power of two
+     */
+    public EventBus(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.ring = new BugEvent[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publishes an event to every subscriber. Returns as soon as the event is in the ring,
+     * unless a subscriber is a whole ring behind, in which case it waits for room.
+     *
+     * @param event The event to publish
+     */
+    public void publish(BugEvent event) {
+        if (subscriptions.length == 0 || closed) {
+            return;
+        }
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - ring.length;
+        if (wrapPoint > gate) {
+            awaitCapacity(wrapPoint);
+        }
+        int index = (int) sequence & mask;
+        ring[index] = event;
+        published.set(index, sequence);
+        wakeSubscribers();
+    }
+
+    /**
+     * Starts delivering events to a subscriber on a thread of its own
+     *
+     * @param name       Name of the subscriber, used for its thread and in error messages
+     * @param subscriber Receives the events
+     * @return The subscription, which stops delivery when closed
+     */
+    public synchronized Subscription subscribe(String name, EventSubscriber subscriber) {
+        if (closed) {
+            throw new IllegalStateException("The event bus is closed");
+        }
+        Subscription subscription = new Subscription(name, subscriber, claimed.get());
+        Subscription[] current = subscriptions;
+        Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Gets the number of events published since the bus was created
+     */
+    public long getPublishedCount() {
+        return claimed.get() + 1;
+    }
+
+    /**
+     * Gets the number of times a publisher had to wait for a slow subscriber
+     */
+    public long getStallCount() {
+        return stalls.sum();
+    }
+
+    /**
+     * Stops accepting events, and closes every subscription once it has received
+     * the events already published
+     */
+    @Override
+    public void close() {
+        Subscription[] current;
+        synchronized (this) {
+            closed = true;
+            current = subscriptions;
+        }
+        for (Subscription subscription : current) {
+            subscription.close();
+        }
+    }
+
+    private void awaitCapacity(long wrapPoint) {
+        boolean stalled = false;
+        while (true) {
+            long minimum = claimed.get();
+            for (Subscription subscription : subscriptions) {
+                minimum = Math.min(minimum, subscription.cursor.get());
+            }
+            gate = minimum;
+            if (wrapPoint <= minimum) {
+                return;
+            }
+            if (!stalled) {
+                stalled = true;
+                stalls.increment();
+            }
+            wakeSubscribers();
+            LockSupport.parkNanos(this, BACKPRESSURE_PAUSE_NANOS);
+        }
+    }
+
+    private void wakeSubscribers() {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.idle) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        int index = Arrays.asList(current).indexOf(subscription);
+        if (index < 0) {
+            return;
+        }
+        Subscription[] updated = new Subscription[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, updated.length - index);
+        subscriptions = updated;
+    }
+
+    /**
+     * A subscriber's position in the ring and the thread that delivers events to it
+     */
+    public final class Subscription implements AutoCloseable {
+        private final String name;
+        private final EventSubscriber subscriber;
+        private final Thread thread;
+        // The sequence number of the last event delivered
+        private final AtomicLong cursor;
+        private volatile boolean idle;
+        private volatile boolean cancelled;
+
+        private Subscription(String name, EventSubscriber subscriber, long start) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.cursor = new AtomicLong(start);
+            this.thread = new Thread(this::run, "bugtracker-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Gets the number of published events not yet delivered to the subscriber
+         */
+        public long getBacklog() {
+            return Math.max(0, claimed.get() - cursor.get());
+        }
+
+        /**
+         * Delivers the events already published, then stops delivery
+         */
+        @Override
+        public void close() {
+            cancelled = true;
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void run() {
+            List<BugEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+            long next = cursor.get() + 1;
+            try {
+                while (true) {
+                    while (batch.size() < MAX_BATCH_SIZE && published.get((int) next & mask) == next) {
+                        batch.add(ring[(int) next & mask]);
+                        next++;
+                    }
+                    if (!batch.isEmpty()) {
+                        deliver(batch);
+                        batch.clear();
+                        // Releases the slots to publishers
+                        cursor.set(next - 1);
+                        continue;
+                    }
+                    if (cancelled) {
+                        return;
+                    }
+                    idle = true;
+                    if (published.get((int) next & mask) != next && !cancelled) {
+                        LockSupport.park(this);
+                    }
+                    idle = false;
+                }
+            } finally {
+                // Only now may publishers reuse the slots this subscriber was reading
+                remove(this);
+            }
+        }
+
+        private void deliver(List<BugEvent> batch) {
+            try {
+                subscriber.onEvents(batch);
+            } catch (RuntimeException e) {
+                System.err.println("Event subscriber " + name + " failed on " + batch.size()
+                        + " events: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.bugtracker.event;
+
+import java.util.List;
+
+/**
+ * Receives bug events from an {@link EventBus}, in batches
+ */
+@FunctionalInterface
+public interface EventSubscriber {
+    /**
+     * Handles the events published since the previous batch, in publication order.
+     * Called on the subscriber's own thread, one batch at a time. The list is reused
+     * for the next batch, so copy any events that must be kept.
+     *
+     * @param events One or more events
+     */
+    void onEvents(List<BugEvent> events);
+}
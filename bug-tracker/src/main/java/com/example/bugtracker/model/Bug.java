@@ -2,13 +2,21 @@ package com.example.bugtracker.model;
 
 import com.example.bugtracker.model.enums.Priority;
 import com.example.bugtracker.model.enums.Status;
+import com.google.gson.annotations.JsonAdapter;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents a bug in the tracking system.
  * Bugs are reported by testers, assigned to developers, and tracked through various states.
+ * <p>
+ * A repository holds every bug in memory, so a bug is kept small: its dates are stored
+ * as primitive {@link Timestamps}, and a bug without comments shares one empty list
+ * until its first comment is added. A repository may also keep only a bug's header
+ * in memory, that is every field but the description and comments (the body), and
+ * load the body when it is needed; see {@link #isBodyLoaded()}.
  */
 public class Bug {
     private String id;
@@ -19,15 +27,19 @@ public class Bug {
     private String assigneeId;
     private Status status;
     private Priority priority;
-    private LocalDateTime createdDate;
-    private LocalDateTime updatedDate;
-    private List<Comment> comments;
+    @JsonAdapter(value = Timestamps.JsonAdapter.class, nullSafe = false)
+    private long createdDate = Timestamps.NONE;
+    @JsonAdapter(value = Timestamps.JsonAdapter.class, nullSafe = false)
+    private long updatedDate = Timestamps.NONE;
+    private List<Comment> comments = Collections.emptyList();
+    private long version;
+    // False for a header, whose description and comments are kept elsewhere
+    private transient boolean bodyLoaded = true;
 
     /**
      * Default constructor for JSON deserialization
      */
     public Bug() {
-        this.comments = new ArrayList<>();
     }
 
     /**
@@ -49,17 +61,74 @@ public class Bug {
         this.reporterId = reporterId;
         this.priority = priority;
         this.status = Status.NEW;
-        this.createdDate = LocalDateTime.now();
-        this.updatedDate = LocalDateTime.now();
-        this.comments = new ArrayList<>();
+        this.createdDate = Timestamps.now();
+        this.updatedDate = createdDate;
+    }
+
+    /**
+     * Creates a copy of a bug that can be changed without affecting the original.
+     * The copy has its own comment list and the same version as the original.
+     * 
+     * @param other The bug to copy
+     */
+    public Bug(Bug other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.projectId = other.projectId;
+        this.reporterId = other.reporterId;
+        this.assigneeId = other.assigneeId;
+        this.status = other.status;
+        this.priority = other.priority;
+        this.createdDate = other.createdDate;
+        this.updatedDate = other.updatedDate;
+        this.comments = other.comments.isEmpty() ? Collections.emptyList() : new ArrayList<>(other.comments);
+        this.version = other.version;
+        this.bodyLoaded = other.bodyLoaded;
+    }
+
+    /**
+     * Creates a copy of this bug without its description and comments
+     */
+    public Bug header() {
+        Bug header = new Bug(this);
+        header.description = null;
+        header.comments = Collections.emptyList();
+        header.bodyLoaded = false;
+        return header;
+    }
+
+    /**
+     * Creates a copy of this bug with the given description and comments
+     */
+    public Bug withBody(String description, List<Comment> comments) {
+        Bug bug = new Bug(this);
+        bug.description = description;
+        bug.setComments(comments != null ? new ArrayList<>(comments) : null);
+        bug.bodyLoaded = true;
+        return bug;
+    }
+
+    /**
+     * Checks whether this bug holds its description and comments. A header, which
+     * does not, has a null description and no comments, and cannot be commented on.
+     */
+    public boolean isBodyLoaded() {
+        return bodyLoaded;
     }
 
     /**
      * Adds a comment to this bug and updates the modification time
      */
     public void addComment(Comment comment) {
+        if (!bodyLoaded) {
+            throw new IllegalStateException("The comments of bug " + id + " are not loaded");
+        }
+        if (comments.isEmpty()) {
+            comments = new ArrayList<>(1);
+        }
         this.comments.add(comment);
-        this.updatedDate = LocalDateTime.now();
+        this.updatedDate = Timestamps.now();
     }
 
     /**
@@ -67,7 +136,7 @@ public class Bug {
      */
     public void updateStatus(Status newStatus) {
         this.status = newStatus;
-        this.updatedDate = LocalDateTime.now();
+        this.updatedDate = Timestamps.now();
     }
 
     /**
@@ -75,7 +144,7 @@ public class Bug {
      */
     public void assignTo(String developerId) {
         this.assigneeId = developerId;
-        this.updatedDate = LocalDateTime.now();
+        this.updatedDate = Timestamps.now();
     }
 
     // Getters and setters
@@ -144,27 +213,78 @@ public class Bug {
     }
 
     public LocalDateTime getCreatedDate() {
-        return createdDate;
+        return Timestamps.toDateTime(createdDate);
     }
 
     public void setCreatedDate(LocalDateTime createdDate) {
-        this.createdDate = createdDate;
+        this.createdDate = Timestamps.of(createdDate);
+    }
+
+    /**
+     * Gets the creation date as a timestamp, which unlike {@link #getCreatedDate()}
+     * allocates nothing
+     */
+    public long getCreatedTime() {
+        return createdDate;
+    }
+
+    public void setCreatedTime(long createdTime) {
+        this.createdDate = createdTime;
     }
 
     public LocalDateTime getUpdatedDate() {
-        return updatedDate;
+        return Timestamps.toDateTime(updatedDate);
     }
 
     public void setUpdatedDate(LocalDateTime updatedDate) {
-        this.updatedDate = updatedDate;
+        this.updatedDate = Timestamps.of(updatedDate);
+    }
+
+    /**
+     * Gets the modification date as a timestamp, which unlike {@link #getUpdatedDate()}
+     * allocates nothing
+     */
+    public long getUpdatedTime() {
+        return updatedDate;
+    }
+
+    public void setUpdatedTime(long updatedTime) {
+        this.updatedDate = updatedTime;
     }
 
+    /**
+     * Gets the comments in the order they were made. The list must not be changed;
+     * use {@link #addComment(Comment)} instead.
+     */
     public List<Comment> getComments() {
         return comments;
     }
 
+    /**
+     * Replaces the comments. An empty list is replaced by the shared empty list,
+     * and the spare capacity of any other list is released.
+     */
     public void setComments(List<Comment> comments) {
-        this.comments = comments != null ? comments : new ArrayList<>();
+        if (comments == null || comments.isEmpty()) {
+            this.comments = Collections.emptyList();
+        } else {
+            if (comments instanceof ArrayList) {
+                ((ArrayList<Comment>) comments).trimToSize();
+            }
+            this.comments = comments;
+        }
+    }
+
+    /**
+     * Gets the number of times this bug has been changed since it was reported.
+     * Used to detect concurrent changes when storing an edited copy.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     @Override
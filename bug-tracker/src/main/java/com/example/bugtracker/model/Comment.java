@@ -1,5 +1,6 @@
 package com.example.bugtracker.model;
 
+import com.google.gson.annotations.JsonAdapter;
 import java.time.LocalDateTime;
 
 /**
@@ -9,7 +10,8 @@ import java.time.LocalDateTime;
 public class Comment {
     private String authorId;
     private String text;
-    private LocalDateTime timestamp;
+    @JsonAdapter(value = Timestamps.JsonAdapter.class, nullSafe = false)
+    private long timestamp = Timestamps.NONE;
 
     /**
      * Default constructor for JSON deserialization
@@ -27,7 +29,7 @@ public class Comment {
     public Comment(String authorId, String text, LocalDateTime timestamp) {
         this.authorId = authorId;
         this.text = text;
-        this.timestamp = timestamp;
+        this.timestamp = Timestamps.of(timestamp);
     }
 
     // Getters and setters
@@ -48,11 +50,23 @@ public class Comment {
     }
 
     public LocalDateTime getTimestamp() {
-        return timestamp;
+        return Timestamps.toDateTime(timestamp);
     }
 
     public void setTimestamp(LocalDateTime timestamp) {
-        this.timestamp = timestamp;
+        this.timestamp = Timestamps.of(timestamp);
+    }
+
+    /**
+     * Gets the time of the comment as a timestamp, which unlike {@link #getTimestamp()}
+     * allocates nothing
+     */
+    public long getTime() {
+        return timestamp;
+    }
+
+    public void setTime(long time) {
+        this.timestamp = time;
     }
 
     @Override
@@ -60,7 +74,7 @@ public class Comment {
         return "Comment{" +
                 "authorId='" + authorId + '\'' +
                 ", text='" + text + '\'' +
-                ", timestamp=" + timestamp +
+                ", timestamp=" + getTimestamp() +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,325 @@
+package com.example.bugtracker.model;
+
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Role;
+import com.example.bugtracker.model.enums.Status;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written streaming Gson adapters for the model classes and for {@link LocalDateTime}.
+ * <p>
+ * They read and write the same JSON as Gson's reflective adapters did, field by field
+ * through the getters and setters, so no reflection is involved and no intermediate
+ * {@code JsonElement} tree is built for a date-time. Unknown fields are skipped and
+ * enum constants that no longer exist are read as null, as before. A field added to
+ * a model class must also be added to its adapter here.
+ */
+public final class ModelTypeAdapters {
+    private static final TypeAdapter<Comment> COMMENT = new CommentAdapter().nullSafe();
+    private static final TypeAdapter<Bug> BUG = new BugAdapter().nullSafe();
+    private static final TypeAdapter<User> USER = new UserAdapter().nullSafe();
+    private static final TypeAdapter<Project> PROJECT = new ProjectAdapter().nullSafe();
+    private static final TypeAdapter<LocalDateTime> LOCAL_DATE_TIME = new LocalDateTimeAdapter().nullSafe();
+
+    /**
+     * Supplies the adapters to Gson for the types they handle
+     */
+    public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            Class<? super T> raw = type.getRawType();
+            if (raw == Bug.class) {
+                return (TypeAdapter<T>) BUG;
+            } else if (raw == Comment.class) {
+                return (TypeAdapter<T>) COMMENT;
+            } else if (raw == User.class) {
+                return (TypeAdapter<T>) USER;
+            } else if (raw == Project.class) {
+                return (TypeAdapter<T>) PROJECT;
+            } else if (raw == LocalDateTime.class) {
+                return (TypeAdapter<T>) LOCAL_DATE_TIME;
+            }
+            return null;
+        }
+    };
+
+    private ModelTypeAdapters() {
+    }
+
+    /**
+     * Creates a Gson builder with the adapters registered
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder().registerTypeAdapterFactory(FACTORY);
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static long nextTimestamp(JsonReader in) throws IOException {
+        String text = nextString(in);
+        return text != null ? Timestamps.parse(text) : Timestamps.NONE;
+    }
+
+    private static void writeTimestamp(JsonWriter out, String name, long timestamp) throws IOException {
+        out.name(name);
+        if (timestamp == Timestamps.NONE) {
+            out.nullValue();
+        } else {
+            out.value(Timestamps.format(timestamp));
+        }
+    }
+
+    private static <E extends Enum<E>> E nextEnum(JsonReader in, Class<E> type) throws IOException {
+        String name = nextString(in);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeEnum(JsonWriter out, String name, Enum<?> value) throws IOException {
+        out.name(name).value(value != null ? value.name() : null);
+    }
+
+    private static class BugAdapter extends TypeAdapter<Bug> {
+        @Override
+        public void write(JsonWriter out, Bug bug) throws IOException {
+            out.beginObject();
+            out.name("id").value(bug.getId());
+            out.name("title").value(bug.getTitle());
+            out.name("description").value(bug.getDescription());
+            out.name("projectId").value(bug.getProjectId());
+            out.name("reporterId").value(bug.getReporterId());
+            out.name("assigneeId").value(bug.getAssigneeId());
+            writeEnum(out, "status", bug.getStatus());
+            writeEnum(out, "priority", bug.getPriority());
+            writeTimestamp(out, "createdDate", bug.getCreatedTime());
+            writeTimestamp(out, "updatedDate", bug.getUpdatedTime());
+            out.name("comments").beginArray();
+            for (Comment comment : bug.getComments()) {
+                COMMENT.write(out, comment);
+            }
+            out.endArray();
+            out.name("version").value(bug.getVersion());
+            out.endObject();
+        }
+
+        @Override
+        public Bug read(JsonReader in) throws IOException {
+            Bug bug = new Bug();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        bug.setId(nextString(in));
+                        break;
+                    case "title":
+                        bug.setTitle(nextString(in));
+                        break;
+                    case "description":
+                        bug.setDescription(nextString(in));
+                        break;
+                    case "projectId":
+                        bug.setProjectId(nextString(in));
+                        break;
+                    case "reporterId":
+                        bug.setReporterId(nextString(in));
+                        break;
+                    case "assigneeId":
+                        bug.setAssigneeId(nextString(in));
+                        break;
+                    case "status":
+                        bug.setStatus(nextEnum(in, Status.class));
+                        break;
+                    case "priority":
+                        bug.setPriority(nextEnum(in, Priority.class));
+                        break;
+                    case "createdDate":
+                        bug.setCreatedTime(nextTimestamp(in));
+                        break;
+                    case "updatedDate":
+                        bug.setUpdatedTime(nextTimestamp(in));
+                        break;
+                    case "comments":
+                        bug.setComments(readComments(in));
+                        break;
+                    case "version":
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            bug.setVersion(in.nextLong());
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return bug;
+        }
+
+        private static List<Comment> readComments(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<Comment> comments = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                Comment comment = COMMENT.read(in);
+                if (comment != null) {
+                    comments.add(comment);
+                }
+            }
+            in.endArray();
+            return comments;
+        }
+    }
+
+    private static class CommentAdapter extends TypeAdapter<Comment> {
+        @Override
+        public void write(JsonWriter out, Comment comment) throws IOException {
+            out.beginObject();
+            out.name("authorId").value(comment.getAuthorId());
+            out.name("text").value(comment.getText());
+            writeTimestamp(out, "timestamp", comment.getTime());
+            out.endObject();
+        }
+
+        @Override
+        public Comment read(JsonReader in) throws IOException {
+            Comment comment = new Comment();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "authorId":
+                        comment.setAuthorId(nextString(in));
+                        break;
+                    case "text":
+                        comment.setText(nextString(in));
+                        break;
+                    case "timestamp":
+                        comment.setTime(nextTimestamp(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return comment;
+        }
+    }
+
+    private static class UserAdapter extends TypeAdapter<User> {
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            out.beginObject();
+            out.name("id").value(user.getId());
+            out.name("username").value(user.getUsername());
+            writeEnum(out, "role", user.getRole());
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        user.setId(nextString(in));
+                        break;
+                    case "username":
+                        user.setUsername(nextString(in));
+                        break;
+                    case "role":
+                        user.setRole(nextEnum(in, Role.class));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    }
+
+    private static class ProjectAdapter extends TypeAdapter<Project> {
+        @Override
+        public void write(JsonWriter out, Project project) throws IOException {
+            out.beginObject();
+            out.name("id").value(project.getId());
+            out.name("name").value(project.getName());
+            out.name("description").value(project.getDescription());
+            out.endObject();
+        }
+
+        @Override
+        public Project read(JsonReader in) throws IOException {
+            Project project = new Project();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        project.setId(nextString(in));
+                        break;
+                    case "name":
+                        project.setName(nextString(in));
+                        break;
+                    case "description":
+                        project.setDescription(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return project;
+        }
+    }
+
+    /**
+     * Writes date-times in ISO-8601 form. Those of whole milliseconds, which is all
+     * the model stores, take the fast paths of {@link Timestamps}.
+     */
+    private static class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+        @Override
+        public void write(JsonWriter out, LocalDateTime value) throws IOException {
+            out.value(value.getNano() % 1_000_000 == 0
+                    ? Timestamps.format(Timestamps.of(value))
+                    : value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        }
+
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            String text = in.nextString();
+            // Longer text has a fraction finer than milliseconds, or a year beyond 9999
+            return text.length() <= 23
+                    ? Timestamps.toDateTime(Timestamps.parse(text))
+                    : LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.bugtracker.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Converts between date-times and the primitive timestamps bugs and comments store
+ * them as. A timestamp is the number of milliseconds from 1970-01-01T00:00 to the
+ * date-time on the same wall clock, so converting does not depend on the time zone.
+ */
+public final class Timestamps {
+    /**
+     * Timestamp standing for a missing date-time
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private Timestamps() {
+    }
+
+    /**
+     * Gets the timestamp of a date-time, truncated to the millisecond
+     *
+     * @param dateTime The date-time, or null
+     * @return The timestamp, or {@link #NONE} for null
+     */
+    public static long of(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toInstant(ZoneOffset.UTC).toEpochMilli() : NONE;
+    }
+
+    /**
+     * Gets the date-time of a timestamp
+     *
+     * @param timestamp The timestamp, or {@link #NONE}
+     * @return The date-time, or null for {@link #NONE}
+     */
+    public static LocalDateTime toDateTime(long timestamp) {
+        return timestamp != NONE ? LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC) : null;
+    }
+
+    /**
+     * Gets the timestamp of the current date-time in the default time zone
+     */
+    public static long now() {
+        return of(LocalDateTime.now());
+    }
+
+    /**
+     * Formats a timestamp as an ISO-8601 date-time, exactly as
+     * {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} formats its date-time. Years of
+     * four digits, which every real timestamp has, are formatted without creating
+     * a date-time or going through the formatter.
+     *
+     * @param timestamp The timestamp, other than {@link #NONE}
+     * @return The date-time, such as 2024-01-05T10:00:00 or 2024-01-05T10:00:00.25
+     */
+    public static String format(long timestamp) {
+        long seconds = Math.floorDiv(timestamp, 1000);
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(seconds, 86_400));
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            return toDateTime(timestamp).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        int secondOfDay = Math.floorMod(seconds, 86_400);
+        int millis = Math.floorMod(timestamp, 1000);
+
+        char[] chars = new char[23];
+        writeDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        writeDigits(chars, 5, date.getMonthValue(), 2);
+        chars[7] = '-';
+        writeDigits(chars, 8, date.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        writeDigits(chars, 11, secondOfDay / 3600, 2);
+        chars[13] = ':';
+        writeDigits(chars, 14, secondOfDay / 60 % 60, 2);
+        chars[16] = ':';
+        writeDigits(chars, 17, secondOfDay % 60, 2);
+        if (millis == 0) {
+            return new String(chars, 0, 19);
+        }
+        // The fraction is written without trailing zeros
+        chars[19] = '.';
+        writeDigits(chars, 20, millis, 3);
+        int length = 23;
+        while (chars[length - 1] == '0') {
+            length--;
+        }
+        return new String(chars, 0, length);
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Parses an ISO-8601 date-time as {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} does,
+     * truncated to the millisecond. The usual form, yyyy-MM-ddTHH:mm with optional
+     * seconds and up to three fraction digits, is parsed without creating a date-time
+     * or going through the formatter.
+     *
+     * @param text The date-time
+     * @return The timestamp
+     * @throws java.time.format.DateTimeParseException if the text is not a valid date-time
+     */
+    public static long parse(String text) {
+        int length = text.length();
+        if ((length == 16 || length == 19 || (length >= 21 && length <= 23))
+                && text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == 'T'
+                && text.charAt(13) == ':' && (length == 16 || text.charAt(16) == ':')
+                && (length <= 19 || text.charAt(19) == '.')) {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            int second = length > 16 ? digits(text, 17, 2) : 0;
+            int millis = 0;
+            if (length > 19) {
+                millis = digits(text, 20, length - 20);
+                for (int i = length; i < 23; i++) {
+                    millis *= 10;
+                }
+            }
+            if (year >= 0 && month >= 1 && month <= 12
+                    && day >= 1 && day <= Month.of(month).length(Year.isLeap(year))
+                    && hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60
+                    && millis >= 0) {
+                long days = LocalDate.of(year, month, day).toEpochDay();
+                return ((days * 86_400 + hour * 3600 + minute * 60 + second) * 1000) + millis;
+            }
+        }
+        // Other forms, and invalid date-times, are left to the formatter to parse or reject
+        return of(LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    }
+
+    /**
+     * Reads a number of decimal digits
+     *
+     * @return The value, or -1 if any of the characters is not a digit
+     */
+    private static int digits(String text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Reads and writes timestamp fields as ISO-8601 date-time strings, the format
+     * they had in the data files when they were stored as date-times
+     */
+    public static class JsonAdapter extends TypeAdapter<Long> {
+        @Override
+        public void write(JsonWriter out, Long value) throws IOException {
+            if (value == null || value == NONE) {
+                out.nullValue();
+            } else {
+                out.value(format(value));
+            }
+        }
+
+        @Override
+        public Long read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return NONE;
+            }
+            return parse(in.nextString());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.enums.Status;
+
+/**
+ * Number of bugs of every status by how long ago they were reported, and how long
+ * bugs of every status have gone without a change.
+ */
+public class AgingReport {
+    /**
+     * Age ranges bugs are counted in
+     */
+    public enum AgeBucket {
+        UNDER_A_DAY("< 1 day", 1),
+        UNDER_A_WEEK("1-7 days", 7),
+        UNDER_A_MONTH("7-30 days", 30),
+        UNDER_A_QUARTER("30-90 days", 90),
+        OLDER("> 90 days", -1);
+
+        private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+        private final String label;
+        private final long limitMillis;
+
+        AgeBucket(String label, int limitDays) {
+            this.label = label;
+            this.limitMillis = limitDays > 0 ? limitDays * DAY_MILLIS : Long.MAX_VALUE;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Gets the exclusive upper limit of the ages in this bucket, in milliseconds
+         */
+        long getLimitMillis() {
+            return limitMillis;
+        }
+    }
+
+    private static final int BUCKETS = AgeBucket.values().length;
+
+    private final int[][] counts = new int[Status.values().length][BUCKETS];
+    private final long[] ageSums = new long[Status.values().length];
+    private final long[] idleSums = new long[Status.values().length];
+
+    /**
+     * Creates a report from scan totals laid out as a count per status and bucket,
+     * status-major, followed by the sum of the ages and then the sum of the times since
+     * the last update per status, both in milliseconds
+     */
+    AgingReport(long[] totals) {
+        for (int status = 0; status < counts.length; status++) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[status][bucket] = (int) totals[status * BUCKETS + bucket];
+            }
+            ageSums[status] = totals[counts.length * BUCKETS + status];
+            idleSums[status] = totals[counts.length * (BUCKETS + 1) + status];
+        }
+    }
+
+    /**
+     * Gets the number of scan totals a report is created from
+     */
+    static int width() {
+        return Status.values().length * (BUCKETS + 2);
+    }
+
+    /**
+     * Gets the number of bugs with the given status and age
+     */
+    public int getCount(Status status, AgeBucket bucket) {
+        return counts[status.ordinal()][bucket.ordinal()];
+    }
+
+    /**
+     * Gets the number of bugs with the given status, of any age
+     */
+    public int getTotal(Status status) {
+        int total = 0;
+        for (int count : counts[status.ordinal()]) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the average age of the bugs with the given status, in days
+     */
+    public double getAverageAgeDays(Status status) {
+        int total = getTotal(status);
+        return total > 0 ? ageSums[status.ordinal()] / (double) total / AgeBucket.DAY_MILLIS : 0;
+    }
+
+    /**
+     * Gets the average time since the bugs with the given status were last updated, in days
+     */
+    public double getAverageIdleDays(Status status) {
+        int total = getTotal(status);
+        return total > 0 ? idleSums[status.ordinal()] / (double) total / AgeBucket.DAY_MILLIS : 0;
+    }
+}
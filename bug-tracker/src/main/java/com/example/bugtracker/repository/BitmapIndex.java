@@ -0,0 +1,93 @@
+package com.example.bugtracker.repository;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Index that keeps one bitset of entity ordinals per key value.
+ * Intended for low-cardinality attributes, where every ordinal is set in exactly one
+ * bitset, so the bitsets stay dense and counts and intersections reduce to word-wise
+ * AND and popcount operations. The index is safe for concurrent use; readers receive
+ * copies of the bitmaps.
+ *
+ * @param <T> Entity type
+ * @param <K> Key type; null keys are not indexed
+ */
+class BitmapIndex<T, K> {
+    private final Function<T, K> keyOf;
+    private final Map<K, BitSet> bitmaps = new HashMap<>();
+    private final List<K> keysByOrdinal = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an empty index
+     *
+     * @param keyOf Extracts the indexed attribute from an entity
+     */
+    BitmapIndex(Function<T, K> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Records the current key of the entity at the given ordinal,
+     * clearing its bit in the bitmap of its previous key if that changed
+     */
+    void update(int ordinal, T entity) {
+        K key = keyOf.apply(entity);
+        lock.writeLock().lock();
+        try {
+            updateLocked(ordinal, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void updateLocked(int ordinal, K key) {
+        while (keysByOrdinal.size() <= ordinal) {
+            keysByOrdinal.add(null);
+        }
+
+        K previous = keysByOrdinal.set(ordinal, key);
+        if (previous != null && previous.equals(key)) {
+            return;
+        }
+        if (previous != null) {
+            bitmaps.get(previous).clear(ordinal);
+        }
+        if (key != null) {
+            bitmaps.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+        }
+    }
+
+    /**
+     * Gets a copy of the bitmap of ordinals with the given key
+     */
+    BitSet lookup(K key) {
+        lock.readLock().lock();
+        try {
+            BitSet bitmap = key != null ? bitmaps.get(key) : null;
+            return bitmap != null ? (BitSet) bitmap.clone() : new BitSet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all entries from the index
+     */
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            bitmaps.clear();
+            keysByOrdinal.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
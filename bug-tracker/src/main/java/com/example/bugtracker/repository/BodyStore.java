@@ -0,0 +1,207 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.ModelTypeAdapters;
+import com.google.gson.Gson;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the bodies of bugs, their descriptions and comments, in a file instead of
+ * in memory, with a bounded cache of the most recently read ones.
+ * <p>
+ * Bodies are appended to a {@link RecordFile} as JSON records, and a changed body is
+ * appended again rather than overwritten. Once superseded bodies take up more than
+ * half of a file of at least {@value #MIN_COMPACTION_BYTES} bytes, the file is
+ * rewritten with only the latest ones, so it stays within twice their size. The file
+ * only holds the bodies of the running repository, which persists whole bugs
+ * elsewhere. The store is safe for concurrent use; bodies are read from the file
+ * without holding its lock, and only compaction keeps readers waiting.
+ */
+class BodyStore implements Closeable {
+    /**
+     * The description and comments of a bug
+     */
+    static class Body {
+        final String description;
+        final List<Comment> comments;
+
+        Body(String description, List<Comment> comments) {
+            this.description = description;
+            this.comments = comments;
+        }
+    }
+
+    static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final RecordFile file;
+    // Held shared while reading the file, and exclusively while compacting it
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private final Gson gson = ModelTypeAdapters.builder().create();
+    private final Map<Integer, Body> cache;
+    // Positions of the latest body of every bug ordinal, or -1 where there is none
+    private long[] positions = new long[0];
+    // Sizes of those bodies in the file, and the sizes of the file and of the latest bodies in it
+    private int[] sizes = new int[0];
+    private long fileBytes;
+    private long liveBytes;
+
+    /**
+     * Creates an empty store
+     *
+     * @param file      The file to keep the bodies in; any existing content is discarded
+     * @param cacheSize The number of recently read bodies to keep in memory
+     */
+    BodyStore(File file, int cacheSize) throws IOException {
+        this.file = new RecordFile(file);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Body> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Stores the description and comments of the bug at the given ordinal,
+     * replacing any body stored for it before
+     */
+    void put(int ordinal, Bug bug) {
+        Body body = new Body(bug.getDescription(), bug.getComments());
+        byte[] record = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        boolean compactionDue;
+        synchronized (this) {
+            if (ordinal >= positions.length) {
+                int previous = positions.length;
+                positions = Arrays.copyOf(positions, Math.max(ordinal + 1, previous * 2));
+                sizes = Arrays.copyOf(sizes, positions.length);
+                Arrays.fill(positions, previous, positions.length, -1);
+            }
+            positions[ordinal] = file.append(record);
+            // Records are prefixed with their length
+            liveBytes += 4 + record.length - sizes[ordinal];
+            fileBytes += 4 + record.length;
+            sizes[ordinal] = 4 + record.length;
+            // A cached body is one that is being read; keep the newest one for the next reader
+            cache.replace(ordinal, body);
+            compactionDue = isCompactionDue();
+        }
+        if (compactionDue) {
+            compact();
+        }
+    }
+
+    private boolean isCompactionDue() {
+        return fileBytes >= MIN_COMPACTION_BYTES && fileBytes - liveBytes > liveBytes;
+    }
+
+    /**
+     * Rewrites the file with only the latest body of every bug
+     */
+    private void compact() {
+        compactionLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                // Another writer may have compacted the file first
+                if (isCompactionDue()) {
+                    fileBytes = file.compact(positions);
+                    liveBytes = fileBytes;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error compacting bug bodies", e);
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the size of the file, which includes superseded bodies that are not compacted yet
+     */
+    synchronized long getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     * Gets the body of the bug at the given ordinal, from the cache if it was read
+     * recently, and caches it
+     *
+     * @return The body, or null if none has been stored for the ordinal
+     */
+    Body get(int ordinal) {
+        return read(ordinal, true);
+    }
+
+    /**
+     * Gets the body of the bug at the given ordinal without adding it to the cache,
+     * for reading many bugs once
+     *
+     * @return The body, or null if none has been stored for the ordinal
+     */
+    Body read(int ordinal) {
+        return read(ordinal, false);
+    }
+
+    private Body read(int ordinal, boolean cacheResult) {
+        long position;
+        byte[] record;
+        compactionLock.readLock().lock();
+        try {
+            synchronized (this) {
+                Body cached = cacheResult ? cache.get(ordinal) : null;
+                if (cached != null) {
+                    return cached;
+                }
+                position = ordinal < positions.length ? positions[ordinal] : -1;
+                if (position < 0) {
+                    return null;
+                }
+            }
+            record = file.read(position);
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+
+        Body body = gson.fromJson(new String(record, StandardCharsets.UTF_8), Body.class);
+
+        if (cacheResult) {
+            synchronized (this) {
+                // Unless the body was replaced while it was being read
+                if (positions[ordinal] == position) {
+                    cache.put(ordinal, body);
+                }
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Removes all bodies
+     */
+    synchronized void clear() throws IOException {
+        file.clear();
+        positions = new long[0];
+        sizes = new int[0];
+        fileBytes = 0;
+        liveBytes = 0;
+        cache.clear();
+    }
+
+    /**
+     * Closes and deletes the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        file.close();
+    }
+}
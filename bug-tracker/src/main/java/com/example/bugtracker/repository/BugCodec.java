@@ -0,0 +1,137 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of bugs. A record starts with a header of fixed layout holding the
+ * numeric fields of the bug:
+ * <pre>
+ * byte  format
+ * byte  status ordinal, or -1
+ * byte  priority ordinal, or -1
+ * long  version
+ * long  created timestamp
+ * long  updated timestamp
+ * int   number of comments
+ * </pre>
+ * followed by the ID, title, project ID, reporter ID, assignee ID and description, and
+ * then the timestamp, author ID and text of every comment. Strings are written as their
+ * length in UTF-8 bytes, or -1 for null, followed by the bytes.
+ */
+final class BugCodec {
+    private static final byte FORMAT = 1;
+    private static final int HEADER_SIZE = 3 * Byte.BYTES + 3 * Long.BYTES + Integer.BYTES;
+    private static final Status[] STATUSES = Status.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private BugCodec() {
+    }
+
+    /**
+     * Encodes a bug, which must hold its description and comments
+     */
+    static byte[] encode(Bug bug) {
+        List<Comment> comments = bug.getComments();
+        byte[][] strings = new byte[6 + 2 * comments.size()][];
+        strings[0] = utf8(bug.getId());
+        strings[1] = utf8(bug.getTitle());
+        strings[2] = utf8(bug.getProjectId());
+        strings[3] = utf8(bug.getReporterId());
+        strings[4] = utf8(bug.getAssigneeId());
+        strings[5] = utf8(bug.getDescription());
+        int size = HEADER_SIZE + comments.size() * Long.BYTES;
+        for (int i = 0; i < comments.size(); i++) {
+            strings[6 + 2 * i] = utf8(comments.get(i).getAuthorId());
+            strings[7 + 2 * i] = utf8(comments.get(i).getText());
+        }
+        for (byte[] string : strings) {
+            size += Integer.BYTES + (string != null ? string.length : 0);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.put(FORMAT);
+        record.put((byte) (bug.getStatus() != null ? bug.getStatus().ordinal() : -1));
+        record.put((byte) (bug.getPriority() != null ? bug.getPriority().ordinal() : -1));
+        record.putLong(bug.getVersion());
+        record.putLong(bug.getCreatedTime());
+        record.putLong(bug.getUpdatedTime());
+        record.putInt(comments.size());
+        for (int i = 0; i < 6; i++) {
+            putString(record, strings[i]);
+        }
+        for (int i = 0; i < comments.size(); i++) {
+            record.putLong(comments.get(i).getTime());
+            putString(record, strings[6 + 2 * i]);
+            putString(record, strings[7 + 2 * i]);
+        }
+        return record.array();
+    }
+
+    /**
+     * Decodes a bug from the remaining bytes of a buffer
+     *
+     * @throws IllegalStateException if the record is not in a known format
+     */
+    static Bug decode(ByteBuffer record) {
+        byte format = record.get();
+        if (format != FORMAT) {
+            throw new IllegalStateException("Unknown bug record format " + format);
+        }
+        Bug bug = new Bug();
+        int status = record.get();
+        int priority = record.get();
+        bug.setStatus(status >= 0 ? STATUSES[status] : null);
+        bug.setPriority(priority >= 0 ? PRIORITIES[priority] : null);
+        bug.setVersion(record.getLong());
+        bug.setCreatedTime(record.getLong());
+        bug.setUpdatedTime(record.getLong());
+        int commentCount = record.getInt();
+        bug.setId(getString(record));
+        bug.setTitle(getString(record));
+        bug.setProjectId(getString(record));
+        bug.setReporterId(getString(record));
+        bug.setAssigneeId(getString(record));
+        bug.setDescription(getString(record));
+
+        List<Comment> comments = new ArrayList<>(commentCount);
+        for (int i = 0; i < commentCount; i++) {
+            Comment comment = new Comment();
+            comment.setTime(record.getLong());
+            comment.setAuthorId(getString(record));
+            comment.setText(getString(record));
+            comments.add(comment);
+        }
+        bug.setComments(comments);
+        return bug;
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putString(ByteBuffer record, byte[] bytes) {
+        if (bytes == null) {
+            record.putInt(-1);
+        } else {
+            record.putInt(bytes.length);
+            record.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Timestamps;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Columnar copy of the bug attributes that reports aggregate over: one primitive array
+ * per attribute, indexed by bug ordinal. Statuses and priorities are stored as enum
+ * ordinals and project and assignee IDs as dictionary codes, so a report reads a few
+ * contiguous arrays instead of following a reference to every bug, and is split into
+ * chunks that are scanned in parallel.
+ * <p>
+ * The columns are safe for concurrent use. Every chunk of 64k ordinals has arrays and
+ * a read-write lock of its own, so bugs in different chunks are stored without
+ * contending, and a report holds the read lock of only the chunk it is scanning.
+ * A report therefore sees each chunk in a consistent state, though a bug stored
+ * while it runs may or may not be counted.
+ */
+class BugColumns {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int STATUSES = Status.values().length;
+    private static final int PRIORITIES = Priority.values().length;
+    // Code of a missing value, and of a filter that accepts any value
+    private static final int NONE = -1;
+
+    private final Dictionary projectIds = new Dictionary();
+    private final Dictionary assigneeIds = new Dictionary();
+    // Replaced, never changed in place, when another chunk is added
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    /**
+     * Builds columns for a snapshot of the bugs, each at its position in the list
+     */
+    static BugColumns of(List<Bug> bugs) {
+        BugColumns columns = new BugColumns();
+        for (int ordinal = 0; ordinal < bugs.size(); ordinal++) {
+            columns.update(ordinal, bugs.get(ordinal));
+        }
+        return columns;
+    }
+
+    /**
+     * Records the current attributes of the bug at the given ordinal
+     */
+    void update(int ordinal, Bug bug) {
+        int project = projectIds.encode(bug.getProjectId());
+        int assignee = assigneeIds.encode(bug.getAssigneeId());
+        Chunk chunk = chunkFor(ordinal >>> CHUNK_BITS);
+        int i = ordinal & (CHUNK_SIZE - 1);
+        chunk.lock.writeLock().lock();
+        try {
+            if (i >= chunk.statuses.length) {
+                chunk.grow(Math.min(CHUNK_SIZE, Math.max(i + 1, chunk.statuses.length * 2)));
+            }
+            chunk.statuses[i] = (byte) (bug.getStatus() != null ? bug.getStatus().ordinal() : NONE);
+            chunk.priorities[i] = (byte) (bug.getPriority() != null ? bug.getPriority().ordinal() : NONE);
+            chunk.projects[i] = project;
+            chunk.assignees[i] = assignee;
+            chunk.createdTimes[i] = bug.getCreatedTime();
+            chunk.updatedTimes[i] = bug.getUpdatedTime();
+            chunk.size = Math.max(chunk.size, i + 1);
+        } finally {
+            chunk.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the chunk with the given index, adding it and any chunks before it first
+     */
+    private Chunk chunkFor(int index) {
+        Chunk[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (index >= current.length) {
+                Chunk[] grown = Arrays.copyOf(current, index + 1);
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = new Chunk();
+                }
+                chunks = grown;
+                current = grown;
+            }
+            return current[index];
+        }
+    }
+
+    /**
+     * Counts bugs by status and by time since they were reported, and adds up how long
+     * they have gone without an update
+     *
+     * @param projectId Restricts the report to this project, or null for all projects
+     * @param now       Timestamp the ages are measured to
+     */
+    AgingReport aging(String projectId, long now) {
+        int project = projectId != null ? projectIds.codeOf(projectId) : NONE;
+        if (projectId != null && project == NONE) {
+            return new AgingReport(new long[AgingReport.width()]);
+        }
+        AgingReport.AgeBucket[] buckets = AgingReport.AgeBucket.values();
+        long[] limits = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            limits[i] = buckets[i].getLimitMillis();
+        }
+        int ageSums = STATUSES * buckets.length;
+        int idleSums = ageSums + STATUSES;
+
+        return new AgingReport(sumChunks(AgingReport.width(), (chunk, totals) -> {
+            byte[] statuses = chunk.statuses;
+            int[] projects = chunk.projects;
+            long[] createdTimes = chunk.createdTimes;
+            long[] updatedTimes = chunk.updatedTimes;
+            for (int i = 0; i < chunk.size; i++) {
+                int status = statuses[i];
+                long created = createdTimes[i];
+                if (status == NONE || created == Timestamps.NONE || (project != NONE && projects[i] != project)) {
+                    continue;
+                }
+                long age = Math.max(0, now - created);
+                int bucket = 0;
+                while (age >= limits[bucket]) {
+                    bucket++;
+                }
+                totals[status * buckets.length + bucket]++;
+                totals[ageSums + status] += age;
+                long updated = updatedTimes[i];
+                totals[idleSums + status] += updated != Timestamps.NONE ? Math.max(0, now - updated) : age;
+            }
+        }));
+    }
+
+    /**
+     * Counts each assignee's bugs by status and priority. Unassigned bugs are not counted.
+     *
+     * @param projectId Restricts the counts to this project, or null for all projects
+     * @return Counts keyed by assignee ID, for every assignee with at least one bug
+     */
+    Map<String, FacetCounts> countsByAssignee(String projectId) {
+        int project = projectId != null ? projectIds.codeOf(projectId) : NONE;
+        Map<String, FacetCounts> result = new HashMap<>();
+        if (projectId != null && project == NONE) {
+            return result;
+        }
+        // Assignees first seen after this are left out, as bugs stored during the report may be
+        int assigneeCount = assigneeIds.size();
+        int cells = STATUSES * PRIORITIES;
+
+        long[] totals = sumChunks(assigneeCount * cells, (chunk, counts) -> {
+            byte[] statuses = chunk.statuses;
+            byte[] priorities = chunk.priorities;
+            int[] projects = chunk.projects;
+            int[] assignees = chunk.assignees;
+            for (int i = 0; i < chunk.size; i++) {
+                int assignee = assignees[i];
+                int status = statuses[i];
+                int priority = priorities[i];
+                if (assignee == NONE || assignee >= assigneeCount || status == NONE || priority == NONE
+                        || (project != NONE && projects[i] != project)) {
+                    continue;
+                }
+                counts[assignee * cells + status * PRIORITIES + priority]++;
+            }
+        });
+
+        Status[] statusValues = Status.values();
+        Priority[] priorityValues = Priority.values();
+        for (int assignee = 0; assignee < assigneeCount; assignee++) {
+            FacetCounts counts = null;
+            for (int cell = 0; cell < cells; cell++) {
+                long count = totals[assignee * cells + cell];
+                if (count > 0) {
+                    if (counts == null) {
+                        counts = new FacetCounts();
+                        result.put(assigneeIds.valueOf(assignee), counts);
+                    }
+                    counts.set(statusValues[cell / PRIORITIES], priorityValues[cell % PRIORITIES], (int) count);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scans the chunks in parallel, each under its read lock and adding to its own
+     * totals, and sums the totals of all chunks
+     */
+    private long[] sumChunks(int width, ChunkScan scan) {
+        return Stream.of(chunks).parallel()
+                .map(chunk -> {
+                    long[] totals = new long[width];
+                    chunk.lock.readLock().lock();
+                    try {
+                        scan.scan(chunk, totals);
+                    } finally {
+                        chunk.lock.readLock().unlock();
+                    }
+                    return totals;
+                })
+                .reduce((left, right) -> {
+                    for (int i = 0; i < width; i++) {
+                        left[i] += right[i];
+                    }
+                    return left;
+                })
+                .orElseGet(() -> new long[width]);
+    }
+
+    /**
+     * Removes all entries. Bugs being stored at the same time may or may not be kept.
+     */
+    void clear() {
+        synchronized (this) {
+            chunks = new Chunk[0];
+        }
+        projectIds.clear();
+        assigneeIds.clear();
+    }
+
+    @FunctionalInterface
+    private interface ChunkScan {
+        void scan(Chunk chunk, long[] totals);
+    }
+
+    /**
+     * The columns of 64k consecutive ordinals. The arrays grow up to that size as bugs
+     * are stored, and are read and written only under the chunk's lock.
+     */
+    private static class Chunk {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        byte[] statuses = new byte[0];
+        byte[] priorities = new byte[0];
+        int[] projects = new int[0];
+        int[] assignees = new int[0];
+        long[] createdTimes = new long[0];
+        long[] updatedTimes = new long[0];
+        // One past the highest offset recorded
+        int size;
+
+        void grow(int capacity) {
+            int previous = statuses.length;
+            statuses = Arrays.copyOf(statuses, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            projects = Arrays.copyOf(projects, capacity);
+            assignees = Arrays.copyOf(assignees, capacity);
+            createdTimes = Arrays.copyOf(createdTimes, capacity);
+            updatedTimes = Arrays.copyOf(updatedTimes, capacity);
+            // Ordinals handed out but not yet recorded must not count as NEW bugs
+            Arrays.fill(statuses, previous, capacity, (byte) NONE);
+        }
+    }
+
+    /**
+     * Assigns dense codes to ID strings in order of first appearance.
+     * Shared by all chunks, so guarded by its own monitor.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        synchronized int encode(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        synchronized int codeOf(String value) {
+            return codes.getOrDefault(value, NONE);
+        }
+
+        synchronized String valueOf(int code) {
+            return values.get(code);
+        }
+
+        synchronized int size() {
+            return values.size();
+        }
+
+        synchronized void clear() {
+            codes.clear();
+            values.clear();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Lazily evaluated result of a {@link BugQuery}.
+ * Candidate bugs are fetched and filtered only as the caller advances, so a listing
+ * can be paged through without materialising the whole result.
+ */
+public class BugCursor implements Iterator<Bug> {
+    private final IntFunction<Bug> bugAt;
+    private final int[] candidates;
+    private final int candidateCount;
+    private final Predicate<Bug> filter;
+    private final boolean reverse;
+    private final String plan;
+
+    private int position;
+    private int toSkip;
+    private int remaining;
+    private Bug next;
+
+    /**
+     * Creates a cursor over a set of candidate ordinals
+     *
+     * @param bugAt          Resolves an ordinal to its bug
+     * @param candidates     Candidate ordinals, or null to visit ordinals 0 to candidateCount - 1
+     * @param candidateCount Number of candidates
+     * @param filter         Residual filter applied to each candidate
+     * @param reverse        Whether to visit the candidates from last to first
+     * @param offset         Number of matching bugs to skip
+     * @param limit          Maximum number of bugs to return
+     * @param plan           Human-readable description of how the query is evaluated
+     */
+    BugCursor(IntFunction<Bug> bugAt, int[] candidates, int candidateCount, Predicate<Bug> filter,
+              boolean reverse, int offset, int limit, String plan) {
+        this.bugAt = bugAt;
+        this.candidates = candidates;
+        this.candidateCount = candidateCount;
+        this.filter = filter;
+        this.reverse = reverse;
+        this.toSkip = offset;
+        this.remaining = limit;
+        this.plan = plan;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && remaining > 0 && position < candidateCount) {
+            int index = reverse ? candidateCount - 1 - position : position;
+            position++;
+            Bug bug = bugAt.apply(candidates != null ? candidates[index] : index);
+            if (bug == null || !filter.test(bug)) {
+                continue;
+            }
+            if (toSkip > 0) {
+                toSkip--;
+                continue;
+            }
+            next = bug;
+            remaining--;
+        }
+        return next != null;
+    }
+
+    @Override
+    public Bug next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Bug bug = next;
+        next = null;
+        return bug;
+    }
+
+    /**
+     * Gets up to the given number of further results
+     *
+     * @param size Maximum number of bugs in the page
+     * @return The next page, empty once the cursor is exhausted
+     */
+    public List<Bug> nextPage(int size) {
+        List<Bug> page = new ArrayList<>(Math.min(size, 64));
+        while (page.size() < size && hasNext()) {
+            page.add(next());
+        }
+        return page;
+    }
+
+    /**
+     * Gets a description of the access path chosen for the query
+     */
+    public String getPlan() {
+        return plan;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Timestamps;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Describes a bug listing: a combination of filters, an optional sort order and a page window.
+ * Criteria left unset do not restrict the result. Queries are run with
+ * {@link DataRepository#query(BugQuery)}, which chooses the most selective index for them.
+ *
+ * <pre>
+ * new BugQuery().inProject("3").withStatus(Status.IN_PROGRESS).withPriority(Priority.HIGH)
+ *         .updatedSince(LocalDateTime.now().minusWeeks(1))
+ *         .sortBy(BugQuery.SortField.UPDATED_DATE, true)
+ *         .limit(20);
+ * </pre>
+ */
+public class BugQuery {
+    /**
+     * Fields a query result can be sorted by
+     */
+    public enum SortField {
+        /**
+         * Order in which bugs were reported
+         */
+        REPORTED_ORDER,
+        CREATED_DATE,
+        UPDATED_DATE,
+        PRIORITY,
+        STATUS
+    }
+
+    private String projectId;
+    private String assigneeId;
+    private String reporterId;
+    private Status status;
+    private Priority priority;
+    private LocalDateTime createdSince;
+    private LocalDateTime updatedSince;
+    private LocalDateTime updatedBefore;
+    // The same bounds as timestamps, so that matching a bug allocates no date-times
+    private long createdSinceTime = Timestamps.NONE;
+    private long updatedSinceTime = Timestamps.NONE;
+    private long updatedBeforeTime = Timestamps.NONE;
+    private SortField sortField = SortField.REPORTED_ORDER;
+    private boolean descending;
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+
+    public BugQuery inProject(String projectId) {
+        this.projectId = projectId;
+        return this;
+    }
+
+    public BugQuery assignedTo(String assigneeId) {
+        this.assigneeId = assigneeId;
+        return this;
+    }
+
+    public BugQuery reportedBy(String reporterId) {
+        this.reporterId = reporterId;
+        return this;
+    }
+
+    public BugQuery withStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public BugQuery withPriority(Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Restricts the result to bugs created at or after the given time
+     */
+    public BugQuery createdSince(LocalDateTime createdSince) {
+        this.createdSince = createdSince;
+        this.createdSinceTime = Timestamps.of(createdSince);
+        return this;
+    }
+
+    /**
+     * Restricts the result to bugs updated at or after the given time
+     */
+    public BugQuery updatedSince(LocalDateTime updatedSince) {
+        this.updatedSince = updatedSince;
+        this.updatedSinceTime = Timestamps.of(updatedSince);
+        return this;
+    }
+
+    /**
+     * Restricts the result to bugs last updated before the given time
+     */
+    public BugQuery updatedBefore(LocalDateTime updatedBefore) {
+        this.updatedBefore = updatedBefore;
+        this.updatedBeforeTime = Timestamps.of(updatedBefore);
+        return this;
+    }
+
+    /**
+     * Sorts the result; without a sort order bugs are returned in the order they were reported
+     */
+    public BugQuery sortBy(SortField sortField, boolean descending) {
+        this.sortField = sortField;
+        this.descending = descending;
+        return this;
+    }
+
+    /**
+     * Skips the given number of matching bugs
+     */
+    public BugQuery offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Returns at most the given number of bugs
+     */
+    public BugQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Checks whether a bug satisfies every filter of this query
+     */
+    public boolean matches(Bug bug) {
+        return (projectId == null || projectId.equals(bug.getProjectId()))
+                && (assigneeId == null || assigneeId.equals(bug.getAssigneeId()))
+                && (reporterId == null || reporterId.equals(bug.getReporterId()))
+                && (status == null || status == bug.getStatus())
+                && (priority == null || priority == bug.getPriority())
+                && (createdSince == null || bug.getCreatedTime() >= createdSinceTime)
+                && (updatedSince == null || bug.getUpdatedTime() >= updatedSinceTime)
+                && (updatedBefore == null || bug.getUpdatedTime() < updatedBeforeTime);
+    }
+
+    /**
+     * Gets the comparator for the requested sort order, or null for reported order
+     */
+    Comparator<Bug> comparator() {
+        Comparator<Bug> comparator;
+        switch (sortField) {
+            case CREATED_DATE:
+                comparator = Comparator.comparingLong(Bug::getCreatedTime);
+                break;
+            case UPDATED_DATE:
+                comparator = Comparator.comparingLong(Bug::getUpdatedTime);
+                break;
+            case PRIORITY:
+                comparator = Comparator.comparing(Bug::getPriority);
+                break;
+            case STATUS:
+                comparator = Comparator.comparing(Bug::getStatus);
+                break;
+            default:
+                return null;
+        }
+        return descending ? comparator.reversed() : comparator;
+    }
+
+    // Getters
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getAssigneeId() {
+        return assigneeId;
+    }
+
+    public String getReporterId() {
+        return reporterId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public LocalDateTime getCreatedSince() {
+        return createdSince;
+    }
+
+    public LocalDateTime getUpdatedSince() {
+        return updatedSince;
+    }
+
+    public LocalDateTime getUpdatedBefore() {
+        return updatedBefore;
+    }
+
+    public SortField getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bugtracker.repository;
+
+/**
+ * Counters of a cache over entities kept on disk, taken at one point in time.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long writeBacks;
+    private final int size;
+    private final int capacity;
+
+    CacheStats(long hits, long misses, long evictions, long writeBacks, int size, int capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.writeBacks = writeBacks;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the number of reads answered from memory
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of reads that had to go to disk
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the share of reads answered from memory, between 0 and 1
+     */
+    public double getHitRate() {
+        long reads = hits + misses;
+        return reads > 0 ? hits / (double) reads : 0;
+    }
+
+    /**
+     * Gets the number of entities dropped from memory to make room for others
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of evicted entities that had changed and were written to disk
+     */
+    public long getWriteBacks() {
+        return writeBacks;
+    }
+
+    /**
+     * Gets the number of entities currently in memory
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the largest number of entities kept in memory
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d write-backs, %d/%d cached",
+                hits, misses, getHitRate() * 100, evictions, writeBacks, size, capacity);
+    }
+}
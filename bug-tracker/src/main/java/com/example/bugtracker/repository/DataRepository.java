@@ -2,110 +2,452 @@ package com.example.bugtracker.repository;
 
 import com.example.bugtracker.model.*;
 import com.example.bugtracker.model.enums.*;
-import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonParseException;
 import java.io.*;
-import java.lang.reflect.Type;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Repository class responsible for data persistence and retrieval.
- * Handles loading and saving all application data to/from a JSON file.
+ * Keeps all application data in memory and persists it with a {@link StorageEngine}:
+ * by default in a JSON file, optionally journaling individual mutations between full
+ * snapshots, or in an embedded SQL database.
+ * <p>
+ * Unless configured otherwise, only the headers of bugs are held in memory and their
+ * descriptions and comments are kept in a {@link BodyStore} next to the data file.
+ * Methods returning bugs return headers, except {@link #getBugWithBody(String)} and
+ * {@link #withBody(Bug)}, which load the body. In {@link StorageMode#DISK} storage mode
+ * whole bugs are kept in a {@link DiskTable} instead, with only the recently used ones
+ * in memory, and in {@link StorageMode#MAPPED} storage mode in a {@link SegmentTable},
+ * which also persists them in place of the data file. The indexes stay in memory in
+ * every mode.
+ * <p>
+ * The repository is safe for concurrent use. Reads are lock-free; mutations of the
+ * same entity are serialised on one of a fixed set of striped locks, so writers of
+ * different entities proceed in parallel. Writing a snapshot briefly excludes all
+ * mutations so that it never misses a change whose journal record it discards.
  */
-public class DataRepository {
-    private static final String DATA_FILE = "bugs.json";
-    private final Gson gson;
+public class DataRepository implements AutoCloseable {
+    private final RepositoryConfig config;
+    private final StorageEngine engine;
+    private final FlushScheduler flushScheduler;
+
+    // Mutations hold the read lock, snapshots the write lock
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private final Object[] stripes = new Object[64];
+    private volatile boolean snapshotNeeded;
+
+    private final AtomicLong userSequence = new AtomicLong();
+    private final AtomicLong projectSequence = new AtomicLong();
+    private final AtomicLong bugSequence = new AtomicLong();
     
-    // In-memory data storage
-    private List<User> users;
-    private List<Project> projects;
-    private List<Bug> bugs;
+    // Data storage, indexed by ID; bugs are kept on disk in DISK and MAPPED storage modes
+    private final EntityTable<User> users = new EntityTable<>(User::getId);
+    private final EntityTable<Project> projects = new EntityTable<>(Project::getId);
+    private final Table<Bug> bugs;
+    private final Map<String, User> usersByName = new ConcurrentHashMap<>();
+
+    // Secondary indexes over bug ordinals
+    private final SecondaryIndex<Bug, String> bugsByProject = new SecondaryIndex<>(Bug::getProjectId);
+    private final SecondaryIndex<Bug, String> bugsByAssignee = new SecondaryIndex<>(Bug::getAssigneeId);
+    private final SecondaryIndex<Bug, String> bugsByReporter = new SecondaryIndex<>(Bug::getReporterId);
+    private final SecondaryIndex<Bug, Status> bugsByStatus = new SecondaryIndex<>(Bug::getStatus);
+    private final SearchIndex searchIndex = new SearchIndex();
+
+    private final DuplicateIndex duplicateIndex = new DuplicateIndex();
+
+    // Bitmap indexes used for facet counts
+    private final BitmapIndex<Bug, String> projectBitmaps = new BitmapIndex<>(Bug::getProjectId);
+    private final BitmapIndex<Bug, Status> statusBitmaps = new BitmapIndex<>(Bug::getStatus);
+    private final BitmapIndex<Bug, Priority> priorityBitmaps = new BitmapIndex<>(Bug::getPriority);
+    // Null when the configuration turns the columnar copy off
+    private final BugColumns bugColumns;
+    // Null when bug bodies are kept in memory or with the bugs on disk
+    private final BodyStore bodies;
 
     /**
-     * Initializes the repository and loads data from file
+     * Initializes the repository using configuration from system properties
      */
     public DataRepository() {
-        // Configure Gson with custom serializers for LocalDateTime
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeSerializer())
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeDeserializer())
-                .setPrettyPrinting()
-                .create();
-        
-        loadData();
+        this(RepositoryConfig.fromSystemProperties());
     }
 
     /**
-     * Custom serializer for LocalDateTime to handle JSON conversion
+     * Initializes the repository with the given configuration and loads data from file
      */
-    private static class LocalDateTimeSerializer implements JsonSerializer<LocalDateTime> {
-        @Override
-        public JsonElement serialize(LocalDateTime src, Type typeOfSrc, JsonSerializationContext context) {
-            return new JsonPrimitive(src.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    public DataRepository(RepositoryConfig config) {
+        this.config = config;
+        this.engine = openStorageEngine();
+        this.bugColumns = config.isColumnarEnabled() ? new BugColumns() : null;
+        this.bugs = config.getStorageMode() != StorageMode.MEMORY ? openBugStore() : new EntityTable<>(Bug::getId);
+        this.bodies = config.isLazyBodies() && bugs instanceof EntityTable ? openBodyStore() : null;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+
+        loadData();
+
+        this.flushScheduler = config.getDurabilityMode() == DurabilityMode.GROUP_COMMIT
+                ? new FlushScheduler(this::groupCommit, config.getFlushIntervalMillis(), config.getFlushBatchSize())
+                : null;
+    }
+
+    private StorageEngine openStorageEngine() {
+        if (config.getStorageEngine() != null) {
+            return config.getStorageEngine();
+        }
+        if (config.getBackend() == StorageBackend.SQL) {
+            try {
+                return new SqlStorageEngine(config.getDatabaseUrl());
+            } catch (IOException e) {
+                System.err.println("Error opening the database, keeping data in " + config.getDataFile() + ": "
+                        + e.getMessage());
+            }
         }
+        return new JsonStorageEngine(config);
     }
 
     /**
-     * Custom deserializer for LocalDateTime to handle JSON conversion
+     * Opens the table bugs are kept in on disk. The SQL backend persists bugs itself,
+     * so with it MAPPED storage mode keeps them as DISK storage mode does.
      */
-    private static class LocalDateTimeDeserializer implements JsonDeserializer<LocalDateTime> {
-        @Override
-        public LocalDateTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) {
-            return LocalDateTime.parse(json.getAsString(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    private Table<Bug> openBugStore() {
+        boolean mapped = config.getStorageMode() == StorageMode.MAPPED && !(engine instanceof SqlStorageEngine);
+        String location = mapped ? config.getSegmentDirectory() : config.getBugStoreFile();
+        try {
+            return mapped
+                    ? new SegmentTable(new File(location))
+                    : new DiskTable<>(new File(location), Bug.class, Bug::getId, config.getBugCacheSize());
+        } catch (IOException e) {
+            System.err.println("Error opening " + location + ", keeping bugs in memory: " + e.getMessage());
+            return new EntityTable<>(Bug::getId);
+        }
+    }
+
+    private BodyStore openBodyStore() {
+        try {
+            return new BodyStore(new File(config.getBodyFile()), config.getBodyCacheSize());
+        } catch (IOException e) {
+            System.err.println("Error opening " + config.getBodyFile() + ", keeping bug bodies in memory: "
+                    + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Loads data from the JSON file, creates default data if file doesn't exist
+     * Loads the stored data, creates default data if there is none. In MAPPED storage
+     * mode bugs are read from their segment files instead, and in the other modes bugs
+     * left in segment files by MAPPED storage mode are moved back into the storage
+     * engine. Changes the engine recorded since its last checkpoint, such as those in
+     * the journal in JOURNAL mode, are replayed on top. A new SQL database starts with
+     * the data of the JSON data file, if there is one.
      */
     private void loadData() {
-        File file = new File(DATA_FILE);
-        
-        if (!file.exists()) {
+        boolean stored = engine.exists();
+        File segmentDirectory = new File(config.getSegmentDirectory());
+        boolean segmentsLeft = stored && !(bugs instanceof SegmentTable)
+                && SegmentTable.exists(segmentDirectory);
+
+        int storedBugs = -1;
+        if (stored) {
+            indexStoredBugs();
+            if (segmentsLeft) {
+                loadSegments(segmentDirectory);
+            }
+            storedBugs = loadStored(engine);
+        } else if (!importJsonData()) {
             createDefaultData();
+        }
+
+        recover(engine);
+
+        // Bugs that moved between the storage engine and segment files are saved in their new place
+        boolean moved = segmentsLeft || (bugs instanceof SegmentTable && storedBugs > 0);
+        if (!stored) {
             saveData();
-            return;
+        } else if (moved && storedBugs >= 0 && writeSnapshot() && segmentsLeft) {
+            try {
+                SegmentTable.delete(segmentDirectory);
+            } catch (IOException e) {
+                System.err.println("Error deleting " + segmentDirectory + ": " + e.getMessage());
+            }
         }
+    }
 
-        try (FileReader reader = new FileReader(file)) {
-            Type dataType = new TypeToken<DataContainer>(){}.getType();
-            DataContainer data = gson.fromJson(reader, dataType);
-            
-            if (data != null) {
-                this.users = data.users != null ? data.users : new ArrayList<>();
-                this.projects = data.projects != null ? data.projects : new ArrayList<>();
-                this.bugs = data.bugs != null ? data.bugs : new ArrayList<>();
-            } else {
-                createDefaultData();
+    /**
+     * Indexes the bugs a persistent table holds when it is opened
+     */
+    private void indexStoredBugs() {
+        for (int ordinal = 0; ordinal < bugs.size(); ordinal++) {
+            Bug bug = bugs.get(ordinal);
+            indexBug(ordinal, bug);
+            advanceSequence(bugSequence, bug.getId());
+        }
+    }
+
+    /**
+     * Reads the bugs kept in segment files by MAPPED storage mode
+     */
+    private void loadSegments(File directory) {
+        try (SegmentTable segments = new SegmentTable(directory)) {
+            for (Bug bug : segments.snapshot()) {
+                putBug(bug);
             }
-        } catch (IOException | JsonSyntaxException e) {
-            System.err.println("Error loading data from file: " + e.getMessage());
-            createDefaultData();
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Error loading bugs from " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the data of the JSON data file, and any journaled changes, into a new SQL database
+     *
+     * @return false if the storage engine is not a new SQL database or there is no data file
+     */
+    private boolean importJsonData() {
+        if (!(engine instanceof SqlStorageEngine) || !new File(config.getDataFile()).exists()) {
+            return false;
+        }
+        try (JsonStorageEngine source = new JsonStorageEngine(config)) {
+            loadStored(source);
+            recover(source);
+        } catch (IOException e) {
+            System.err.println("Error closing " + config.getDataFile() + ": " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Streams the data stored at the last checkpoint of a storage engine into the store
+     *
+     * @return The number of bugs read, or -1 if default data was created instead
+     */
+    private int loadStored(StorageEngine source) {
+        try {
+            int bugCount = source.load(this::putUser, this::putProject, this::putBug);
+            if (bugCount >= 0) {
+                return bugCount;
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            System.err.println("Error loading data: " + e.getMessage());
+        }
+        createDefaultData();
+        return -1;
+    }
+
+    /**
+     * Applies the changes a storage engine recorded since its last checkpoint. They are
+     * upserts, so applying a change that is already reflected in the loaded data is harmless.
+     */
+    private void recover(StorageEngine source) {
+        try {
+            source.recover(this::putUser, this::putProject, this::putBug);
+        } catch (IOException e) {
+            System.err.println("Error replaying changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Inserts or replaces a user, keeping the username index current
+     */
+    private void putUser(User user) {
+        synchronized (usersByName) {
+            User previous = users.get(user.getId());
+            users.put(user);
+            if (previous != null) {
+                usersByName.remove(usernameKey(previous.getUsername()));
+            }
+            usersByName.put(usernameKey(user.getUsername()), user);
+        }
+        advanceSequence(userSequence, user.getId());
+    }
+
+    private void putProject(Project project) {
+        projects.put(project);
+        advanceSequence(projectSequence, project.getId());
+    }
+
+    /**
+     * Inserts or replaces a bug and brings the secondary indexes up to date with it.
+     * A header replaces only the header of the stored bug and keeps its body.
+     */
+    private void putBug(Bug bug) {
+        compact(bug);
+        if (!bug.isBodyLoaded() && bodies == null) {
+            Bug current = bugs.get(bug.getId());
+            bug = current != null ? bug.withBody(current.getDescription(), current.getComments()) : bug;
+        }
+        if (bodies == null || !bug.isBodyLoaded()) {
+            bugs.put(bug);
+        } else {
+            bugs.put(bug.header());
+            bodies.put(bugs.ordinalOf(bug.getId()), bug);
+        }
+        indexBug(bugs.ordinalOf(bug.getId()), bug);
+        advanceSequence(bugSequence, bug.getId());
+    }
+
+    /**
+     * Replaces a stored bug, keeping only its header in memory if bodies are stored
+     * apart. The body is stored first, so that a reader never combines the new
+     * header with the old body.
+     */
+    private void replaceBug(int ordinal, Bug bug) {
+        if (bodies != null && bug.isBodyLoaded()) {
+            bodies.put(ordinal, bug);
+            bugs.replace(bug.header());
+        } else {
+            bugs.replace(bug);
+        }
+        indexBug(ordinal, bug);
+    }
+
+    /**
+     * Combines the header of a bug with its body
+     *
+     * @param cache Whether to keep the body in the cache of recently read bodies
+     */
+    private Bug attachBody(Bug bug, boolean cache) {
+        if (bug == null || bug.isBodyLoaded() || bodies == null) {
+            return bug;
+        }
+        int ordinal = bugs.ordinalOf(bug.getId());
+        BodyStore.Body body = cache ? bodies.get(ordinal) : bodies.read(ordinal);
+        if (body == null) {
+            // The bug is being added and its body is stored under the stripe lock
+            synchronized (stripeFor(bug.getId())) {
+                body = cache ? bodies.get(ordinal) : bodies.read(ordinal);
+            }
+        }
+        return body != null ? bug.withBody(body.description, body.comments) : bug.withBody(null, null);
+    }
+
+    /**
+     * Shrinks a bug before it is stored. Each bug read from a file carries its own copies
+     * of the project and user IDs it refers to; they are replaced by the ID strings of
+     * the stored projects and users, so that a million bugs share a handful of strings.
+     */
+    private void compact(Bug bug) {
+        String projectId = bug.getProjectId();
+        Project project = projectId != null ? projects.get(projectId) : null;
+        if (project != null) {
+            bug.setProjectId(project.getId());
         }
+        bug.setReporterId(canonicalUserId(bug.getReporterId()));
+        bug.setAssigneeId(canonicalUserId(bug.getAssigneeId()));
+        for (Comment comment : bug.getComments()) {
+            comment.setAuthorId(canonicalUserId(comment.getAuthorId()));
+        }
+        bug.setComments(bug.getComments());
+    }
+
+    private String canonicalUserId(String id) {
+        User user = id != null ? users.get(id) : null;
+        return user != null ? user.getId() : id;
+    }
+
+    /**
+     * Makes sure an ID sequence never issues a numeric ID that is already in use
+     */
+    private static void advanceSequence(AtomicLong sequence, String id) {
+        try {
+            long value = Long.parseLong(id);
+            sequence.accumulateAndGet(value, Math::max);
+        } catch (NumberFormatException e) {
+            // Non-numeric IDs cannot collide with generated ones
+        }
+    }
+
+    private void indexBug(int ordinal, Bug bug) {
+        bugsByProject.update(ordinal, bug);
+        bugsByAssignee.update(ordinal, bug);
+        bugsByReporter.update(ordinal, bug);
+        bugsByStatus.update(ordinal, bug);
+        // A header carries no text, and only ever replaces a bug whose text is indexed
+        if (bug.isBodyLoaded()) {
+            searchIndex.update(ordinal, bug);
+            duplicateIndex.update(ordinal, bug);
+        }
+        projectBitmaps.update(ordinal, bug);
+        statusBitmaps.update(ordinal, bug);
+        priorityBitmaps.update(ordinal, bug);
+        if (bugColumns != null) {
+            bugColumns.update(ordinal, bug);
+        }
+    }
+
+    /**
+     * Resolves a set of bug ordinals to a read-only list of the bugs in the same order.
+     * The bugs are read from a single snapshot taken after the ordinals were looked up,
+     * which therefore contains all of them, and only when the list is read, so that a
+     * large result does not need all of its bugs in memory in DISK storage mode.
+     */
+    private List<Bug> bugsAt(int[] ordinals) {
+        List<Bug> snapshot = bugs.snapshot();
+        return new AbstractList<>() {
+            @Override
+            public Bug get(int index) {
+                return snapshot.get(ordinals[index]);
+            }
+
+            @Override
+            public int size() {
+                return ordinals.length;
+            }
+        };
+    }
+
+    private static String usernameKey(String username) {
+        return username != null ? username.toLowerCase(Locale.ROOT) : null;
     }
 
     /**
      * Creates default mock data for demonstration purposes
      */
     private void createDefaultData() {
+        users.clear();
+        usersByName.clear();
+        projects.clear();
+        bugs.clear();
+        bugsByProject.clear();
+        bugsByAssignee.clear();
+        bugsByReporter.clear();
+        bugsByStatus.clear();
+        searchIndex.clear();
+        duplicateIndex.clear();
+        projectBitmaps.clear();
+        statusBitmaps.clear();
+        priorityBitmaps.clear();
+        if (bugColumns != null) {
+            bugColumns.clear();
+        }
+        if (bodies != null) {
+            try {
+                bodies.clear();
+            } catch (IOException e) {
+                System.err.println("Error clearing bug bodies: " + e.getMessage());
+            }
+        }
+        userSequence.set(0);
+        projectSequence.set(0);
+        bugSequence.set(0);
+
         // Create default users
-        users = new ArrayList<>();
-        users.add(new User("1", "manager1", Role.PROJECT_MANAGER));
-        users.add(new User("2", "dev1", Role.DEVELOPER));
-        users.add(new User("3", "dev2", Role.DEVELOPER));
-        users.add(new User("4", "tester1", Role.TESTER));
-        users.add(new User("5", "tester2", Role.TESTER));
+        putUser(new User("1", "manager1", Role.PROJECT_MANAGER));
+        putUser(new User("2", "dev1", Role.DEVELOPER));
+        putUser(new User("3", "dev2", Role.DEVELOPER));
+        putUser(new User("4", "tester1", Role.TESTER));
+        putUser(new User("5", "tester2", Role.TESTER));
 
         // Create default projects
-        projects = new ArrayList<>();
-        projects.add(new Project("1", "E-commerce Website", "Main company e-commerce platform"));
-        projects.add(new Project("2", "Mobile App", "iOS and Android mobile application"));
-        projects.add(new Project("3", "API Service", "Backend API for all company services"));
+        putProject(new Project("1", "E-commerce Website", "Main company e-commerce platform"));
+        putProject(new Project("2", "Mobile App", "iOS and Android mobile application"));
+        putProject(new Project("3", "API Service", "Backend API for all company services"));
 
         // Create default bugs
-        bugs = new ArrayList<>();
         LocalDateTime now = LocalDateTime.now();
         
         Bug bug1 = new Bug("1", "Login page not loading", 
@@ -129,128 +471,707 @@ public class DataRepository {
         bug3.setCreatedDate(now.minusDays(1));
         bug3.setUpdatedDate(now.minusDays(1));
         
-        bugs.add(bug1);
-        bugs.add(bug2);
-        bugs.add(bug3);
+        putBug(bug1);
+        putBug(bug2);
+        putBug(bug3);
     }
 
     /**
-     * Saves current data to the JSON file
+     * Saves current data as a checkpoint of the storage engine. With the JSON backend the
+     * snapshot is written to a temporary file and moved into place, and in JOURNAL mode
+     * the journal is emptied once the snapshot is safely on disk. In MAPPED storage mode
+     * the segment files are checkpointed instead of writing bugs to the data file.
      */
     public void saveData() {
-        try (FileWriter writer = new FileWriter(DATA_FILE)) {
-            DataContainer data = new DataContainer();
-            data.users = this.users;
-            data.projects = this.projects;
-            data.bugs = this.bugs;
-            
-            gson.toJson(data, writer);
+        writeSnapshot();
+    }
+
+    /**
+     * Saves current data as {@link #saveData()} does
+     *
+     * @return false if the data could not be saved
+     */
+    private boolean writeSnapshot() {
+        checkpointLock.writeLock().lock();
+        try {
+            if (bugs instanceof SegmentTable segments) {
+                segments.checkpoint();
+            }
+            List<Bug> snapshot = bugs.snapshot();
+            List<Bug> complete = bodies == null ? snapshot : new AbstractList<>() {
+                @Override
+                public Bug get(int index) {
+                    return attachBody(snapshot.get(index), false);
+                }
+
+                @Override
+                public int size() {
+                    return snapshot.size();
+                }
+            };
+            // The segment files hold the bugs
+            engine.checkpoint(users.snapshot(), projects.snapshot(), bugs instanceof SegmentTable ? null : complete);
+            snapshotNeeded = false;
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving data: " + e.getMessage());
+            return false;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a mutation in memory and records it with the storage engine while holding
+     * the stripe lock of the changed entity, then persists it according to the configured
+     * durability mode. With group commit the mutation is only recorded as pending here
+     * and written by the flusher.
+     */
+    private void mutate(String id, Runnable change, Change record) {
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (stripeFor(id)) {
+                change.run();
+                record(record);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        persist();
+    }
+
+    /**
+     * Persists the mutations applied so far according to the configured durability mode
+     */
+    private void persist() {
+        if (snapshotNeeded) {
+            saveData();
+        } else if (flushScheduler != null) {
+            flushScheduler.markDirty();
+        } else {
+            commit();
+        }
+    }
+
+    private void record(Change change) {
+        try {
+            change.recordTo(engine);
+        } catch (IOException e) {
+            // Fall back to a full snapshot once the stripe and checkpoint locks are released
+            System.err.println("Error recording change: " + e.getMessage());
+            snapshotNeeded = true;
+        }
+    }
+
+    private Object stripeFor(String id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private int stripeIndex(String id) {
+        int hash = id != null ? id.hashCode() : 0;
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Runs an action while holding the given stripe locks. They are taken in ascending
+     * order, so two callers locking overlapping stripes cannot deadlock.
+     */
+    private void withStripes(int[] sortedIndexes, int from, Runnable action) {
+        if (from == sortedIndexes.length) {
+            action.run();
+            return;
+        }
+        synchronized (stripes[sortedIndexes[from]]) {
+            withStripes(sortedIndexes, from + 1, action);
+        }
+    }
+
+    /**
+     * Writes all pending mutations to disk, and a checkpoint when the storage engine
+     * asks for one
+     */
+    private void commit() {
+        try {
+            engine.commit(false);
         } catch (IOException e) {
-            System.err.println("Error saving data to file: " + e.getMessage());
+            System.err.println("Error committing changes: " + e.getMessage());
+        }
+
+        if (engine.isCheckpointDue()) {
+            saveData();
+        }
+    }
+
+    /**
+     * Commits a batch of mutations for the flusher as {@link #commit()} does, but also
+     * forces them to the storage device, since group commit amortises the cost over the
+     * batch. A failure is thrown so that the flusher keeps the batch pending.
+     */
+    private void groupCommit() {
+        try {
+            engine.commit(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error committing changes: " + e.getMessage(), e);
+        }
+
+        if (engine.isCheckpointDue()) {
+            saveData();
+        }
+    }
+
+    /**
+     * Blocks until every mutation made before this call is durable on disk.
+     * Only needed with group commit; in IMMEDIATE mode mutations are already committed.
+     *
+     * @throws UncheckedIOException if the mutations could not be written. They stay
+     *                              pending and the flusher keeps retrying them.
+     */
+    public void flush() {
+        if (flushScheduler != null) {
+            flushScheduler.flush();
+        }
+    }
+
+    /**
+     * Commits outstanding mutations, folds any journal records into the snapshot,
+     * stops the background flusher and closes the storage engine
+     */
+    @Override
+    public void close() {
+        if (flushScheduler != null) {
+            flushScheduler.close();
+        }
+
+        if (engine.getChangesSinceCheckpoint() > 0) {
+            saveData();
+        }
+        try {
+            engine.close();
+        } catch (IOException e) {
+            System.err.println("Error closing storage engine: " + e.getMessage());
+        }
+        if (bodies != null) {
+            try {
+                bodies.close();
+            } catch (IOException e) {
+                System.err.println("Error closing bug bodies: " + e.getMessage());
+            }
+        }
+        if (bugs instanceof Closeable store) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Error closing bug store: " + e.getMessage());
+            }
         }
     }
 
     // User operations
+
+    /**
+     * Gets an immutable snapshot of all users. It is not affected by later changes
+     * and is returned without copying; the same applies to the other getAll methods.
+     */
     public List<User> getAllUsers() {
-        return new ArrayList<>(users);
+        return users.snapshot();
     }
 
     public User getUserById(String id) {
-        return users.stream()
-                .filter(user -> user.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return users.get(id);
     }
 
     public User getUserByUsername(String username) {
-        return users.stream()
-                .filter(user -> user.getUsername().equalsIgnoreCase(username))
-                .findFirst()
-                .orElse(null);
+        return usersByName.get(usernameKey(username));
     }
 
     public void addUser(User user) {
-        users.add(user);
-        saveData();
+        mutate(user.getId(), () -> putUser(user), storage -> storage.putUser(user));
     }
 
     // Project operations
     public List<Project> getAllProjects() {
-        return new ArrayList<>(projects);
+        return projects.snapshot();
     }
 
     public Project getProjectById(String id) {
-        return projects.stream()
-                .filter(project -> project.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return projects.get(id);
     }
 
     public void addProject(Project project) {
-        projects.add(project);
-        saveData();
+        mutate(project.getId(), () -> putProject(project), storage -> storage.putProject(project));
     }
 
     // Bug operations
     public List<Bug> getAllBugs() {
-        return new ArrayList<>(bugs);
+        return bugs.snapshot();
     }
 
     public List<Bug> getBugsByProject(String projectId) {
-        return bugs.stream()
-                .filter(bug -> bug.getProjectId().equals(projectId))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        return bugsAt(bugsByProject.lookup(projectId));
+    }
+
+    public List<Bug> getBugsByAssignee(String assigneeId) {
+        return bugsAt(bugsByAssignee.lookup(assigneeId));
+    }
+
+    public List<Bug> getBugsByReporter(String reporterId) {
+        return bugsAt(bugsByReporter.lookup(reporterId));
+    }
+
+    public List<Bug> getBugsByStatus(Status status) {
+        return bugsAt(bugsByStatus.lookup(status));
     }
 
     public Bug getBugById(String id) {
-        return bugs.stream()
-                .filter(bug -> bug.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return bugs.get(id);
+    }
+
+    /**
+     * Gets the counters of the cache of recently used bugs kept in DISK storage mode
+     *
+     * @return The counters, or null if all bugs are kept in memory
+     */
+    public CacheStats getBugCacheStats() {
+        return bugs instanceof DiskTable<Bug> store ? store.stats() : null;
+    }
+
+    /**
+     * Gets a bug with its description and comments. A body loaded from the body store
+     * is kept in a cache of recently read bodies, so viewing a bug again is fast.
+     *
+     * @return A bug that must not be changed, or null if there is none with the ID
+     */
+    public Bug getBugWithBody(String id) {
+        return attachBody(bugs.get(id), true);
+    }
+
+    /**
+     * Gets a bug read from this repository with its description and comments, without
+     * adding the body to the cache. Intended for reading many bugs once, as an export does.
+     *
+     * @param bug A bug returned by this repository
+     * @return The bug itself if it holds its body, otherwise a copy that does
+     */
+    public Bug withBody(Bug bug) {
+        return attachBody(bug, false);
+    }
+
+    /**
+     * Runs a query, reading candidates from the most selective applicable index
+     * and falling back to a scan of all bugs when no indexed filter is set.
+     * Unsorted results are produced lazily by the returned cursor; sorted results
+     * are ordered up front, holding only the requested window of matches when it is
+     * bounded.
+     *
+     * @param query The filters, sort order and page window to apply
+     * @return Cursor over the matching bugs
+     */
+    public BugCursor query(BugQuery query) {
+        IndexChoice choice = new IndexChoice();
+        choice.consider("project", query.getProjectId(), bugsByProject);
+        choice.consider("assignee", query.getAssigneeId(), bugsByAssignee);
+        choice.consider("reporter", query.getReporterId(), bugsByReporter);
+        choice.consider("status", query.getStatus(), bugsByStatus);
+
+        int[] ordinals = choice.index != null ? choice.index.lookup(choice.key) : null;
+        // The whole result is read from one snapshot, so paging through it sees no later writes
+        List<Bug> snapshot = bugs.snapshot();
+        int count = ordinals != null ? ordinals.length : snapshot.size();
+        String plan = ordinals != null ? choice.plan : "scan of " + count + " bugs";
+        Comparator<Bug> comparator = query.comparator();
+        if (comparator == null) {
+            return new BugCursor(snapshot::get, ordinals, count, query::matches,
+                    query.isDescending(), query.getOffset(), query.getLimit(), plan);
+        }
+
+        int[] sorted = sortMatches(snapshot, ordinals, count, query, comparator);
+        return new BugCursor(snapshot::get, sorted, sorted.length, bug -> true, false,
+                query.getOffset(), query.getLimit(), plan + ", sorted by " + query.getSortField());
+    }
+
+    /**
+     * Orders the matching candidates, keeping only the requested window when it is bounded
+     */
+    private int[] sortMatches(List<Bug> snapshot, int[] candidates, int count, BugQuery query,
+                              Comparator<Bug> comparator) {
+        // Matches are compared with the bug they were read with, so each is read only once
+        Comparator<Map.Entry<Integer, Bug>> order = Map.Entry.<Integer, Bug>comparingByValue(comparator)
+                .thenComparing(Map.Entry.comparingByKey());
+        long window = (long) query.getOffset() + query.getLimit();
+        if (window <= 0) {
+            return new int[0];
+        }
+        boolean bounded = window < count;
+
+        // With a bounded window keep a max-heap of the best matches; otherwise sort them all
+        PriorityQueue<Map.Entry<Integer, Bug>> best = new PriorityQueue<>(order.reversed());
+        List<Map.Entry<Integer, Bug>> all = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int ordinal = candidates != null ? candidates[i] : i;
+            Bug bug = snapshot.get(ordinal);
+            if (!query.matches(bug)) {
+                continue;
+            }
+            Map.Entry<Integer, Bug> match = Map.entry(ordinal, bug);
+            if (!bounded) {
+                all.add(match);
+            } else if (best.size() < window) {
+                best.offer(match);
+            } else if (order.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.offer(match);
+            }
+        }
+        if (bounded) {
+            all.addAll(best);
+        }
+        all.sort(order);
+        return all.stream().mapToInt(Map.Entry::getKey).toArray();
+    }
+
+    /**
+     * Counts bugs for every combination of status and priority using the bitmap indexes
+     *
+     * @param projectId Restricts the counts to this project, or null for all projects
+     * @return Counts per status and priority
+     */
+    public FacetCounts getFacetCounts(String projectId) {
+        FacetCounts counts = new FacetCounts();
+        BitSet project = projectId != null ? projectBitmaps.lookup(projectId) : null;
+        // Each bitmap is copied once, and the intersections are counted word by word without copies
+        Priority[] priorities = Priority.values();
+        long[][] priorityWords = new long[priorities.length][];
+        for (int i = 0; i < priorities.length; i++) {
+            priorityWords[i] = priorityBitmaps.lookup(priorities[i]).toLongArray();
+        }
+        for (Status status : Status.values()) {
+            BitSet statusBits = statusBitmaps.lookup(status);
+            if (project != null) {
+                statusBits.and(project);
+            }
+            long[] statusWords = statusBits.toLongArray();
+            for (int i = 0; i < priorities.length; i++) {
+                counts.set(status, priorities[i], intersectionCount(statusWords, priorityWords[i]));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts bugs matching all of the given attributes using the bitmap indexes
+     *
+     * @param projectId Project to count in, or null for any project
+     * @param status    Status to count, or null for any status
+     * @param priority  Priority to count, or null for any priority
+     * @return Number of matching bugs
+     */
+    public int countBugs(String projectId, Status status, Priority priority) {
+        BitSet result = null;
+        if (projectId != null) {
+            result = projectBitmaps.lookup(projectId);
+        }
+        // Lookups return copies, so the first one holds the intersection
+        if (status != null) {
+            result = and(result, statusBitmaps.lookup(status));
+        }
+        if (priority != null) {
+            result = and(result, priorityBitmaps.lookup(priority));
+        }
+        return result != null ? result.cardinality() : bugs.size();
+    }
+
+    /**
+     * Counts bugs by status and by how long ago they were reported, scanning the
+     * columnar copy of the bugs in parallel
+     *
+     * @param projectId Restricts the report to this project, or null for all projects
+     * @return Counts and average ages per status, measured to the current time
+     */
+    public AgingReport getAgingReport(String projectId) {
+        return columns().aging(projectId, Timestamps.now());
+    }
+
+    /**
+     * Counts each developer's bugs by status and priority, scanning the columnar copy
+     * of the bugs in parallel
+     *
+     * @param projectId Restricts the counts to this project, or null for all projects
+     * @return Counts keyed by assignee ID, for every assignee with at least one bug
+     */
+    public Map<String, FacetCounts> getFacetCountsByAssignee(String projectId) {
+        return columns().countsByAssignee(projectId);
+    }
+
+    private BugColumns columns() {
+        return bugColumns != null ? bugColumns : BugColumns.of(bugs.snapshot());
+    }
+
+    private static BitSet and(BitSet left, BitSet right) {
+        if (left == null) {
+            return right;
+        }
+        left.and(right);
+        return left;
+    }
+
+    private static int intersectionCount(long[] left, long[] right) {
+        int count = 0;
+        for (int i = 0, words = Math.min(left.length, right.length); i < words; i++) {
+            count += Long.bitCount(left[i] & right[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Finds existing bugs in a project whose title and description closely resemble the given text
+     *
+     * @param projectId     The project to look in
+     * @param title         Title of the new report
+     * @param description   Description of the new report
+     * @param minSimilarity Minimum Jaccard similarity of the texts' shingle sets, between 0 and 1
+     * @param limit         Maximum number of results
+     * @return Similar bugs, most similar first
+     */
+    public List<Bug> findSimilarBugs(String projectId, String title, String description,
+                                                  double minSimilarity, int limit) {
+        int[] shingles = DuplicateIndex.shingles(title, description);
+        int[] candidates = duplicateIndex.candidates(projectId, shingles, 256);
+        List<Bug> snapshot = bugs.snapshot();
+        Map<Bug, Double> similar = new HashMap<>();
+        for (int ordinal : candidates) {
+            Bug bug = snapshot.get(ordinal);
+            if (!bug.getProjectId().equals(projectId)) {
+                continue;
+            }
+            double similarity = DuplicateIndex.similarity(shingles,
+                    DuplicateIndex.shingles(bug.getTitle(), attachBody(bug, false).getDescription()));
+            if (similarity >= minSimilarity) {
+                similar.put(bug, similarity);
+            }
+        }
+
+        List<Bug> result = new ArrayList<>(similar.keySet());
+        result.sort(Comparator.comparing(similar::get).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Full-text search over bug titles, descriptions and comments
+     *
+     * @param query     Free-text query; the last word also matches as a prefix
+     * @param projectId Restricts results to this project, or null for all projects
+     * @param limit     Maximum number of results
+     * @return Matching bugs, most relevant first
+     */
+    public List<Bug> searchBugs(String query, String projectId, int limit) {
+        BitSet project = projectId != null ? projectBitmaps.lookup(projectId) : null;
+        int[] ordinals = searchIndex.search(query, limit, ordinal -> project == null || project.get(ordinal));
+        return bugsAt(ordinals);
     }
 
     public void addBug(Bug bug) {
-        bugs.add(bug);
-        saveData();
+        mutate(bug.getId(), () -> putBug(bug), storage -> storage.putBug(bug));
     }
 
-    public void updateBug(Bug bug) {
-        for (int i = 0; i < bugs.size(); i++) {
-            if (bugs.get(i).getId().equals(bug.getId())) {
-                bugs.set(i, bug);
-                saveData();
-                return;
+    /**
+     * Adds a batch of new bugs and persists them with a single commit instead of one
+     * per bug. The bugs are indexed and recorded in parallel, each under its own
+     * stripe lock, so they may be stored in any order.
+     *
+     * @param batch New bugs, each with an ID not yet in use
+     */
+    public void addBugs(List<Bug> batch) {
+        checkpointLock.readLock().lock();
+        try {
+            batch.parallelStream().forEach(bug -> {
+                synchronized (stripeFor(bug.getId())) {
+                    putBug(bug);
+                    record(storage -> storage.putBug(bug));
+                }
+            });
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        persist();
+    }
+
+    /**
+     * Stores an edited copy of a bug, provided the stored bug has not changed since
+     * the copy was made. The check and the replacement happen under the bug's
+     * stripe lock only, so callers hold no lock while preparing the copy.
+     * On success the copy's version is advanced and it becomes the stored bug,
+     * so it must not be changed afterwards. A copy of a header changes the header
+     * only; a copy with its body also replaces the body.
+     *
+     * @param updated Copy of the bug, carrying the version it was copied from
+     * @return true if the copy was stored, false if the bug does not exist
+     * @throws VersionConflictException if the bug was changed since the copy was made
+     */
+    public boolean compareAndSetBug(Bug updated) {
+        String id = updated.getId();
+        if (bugs.ordinalOf(id) < 0) {
+            return false;
+        }
+        long expectedVersion = updated.getVersion();
+        compact(updated);
+        mutate(id, () -> {
+            Bug current = bugs.get(id);
+            if (current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion, current.getVersion());
+            }
+            updated.setVersion(expectedVersion + 1);
+            replaceBug(bugs.ordinalOf(id), updated);
+        }, storage -> storage.putBug(updated));
+        return true;
+    }
+
+    /**
+     * Stores edited copies of several bugs as one atomic change: either all of them
+     * are stored or, if any bug was changed since its copy was made, none are. The
+     * copies are recorded as a single change and persisted with a single commit.
+     * On success each copy's version is advanced and it becomes the stored bug.
+     * The copies must either all be headers or all carry their bodies.
+     * Readers take no locks, so one may briefly see some copies of the batch stored
+     * before the others.
+     *
+     * @param batch Copies of existing bugs, each carrying the version it was copied from
+     * @throws VersionConflictException if any of the bugs was changed since its copy was made
+     * @throws IllegalArgumentException if a bug does not exist or appears twice, or the
+     *                                  batch mixes headers with bugs carrying their bodies
+     */
+    public void compareAndSetBugs(List<Bug> batch) {
+        if (batch.stream().map(Bug::isBodyLoaded).distinct().count() > 1) {
+            throw new IllegalArgumentException("A batch cannot mix bug headers with complete bugs");
+        }
+        Set<String> ids = new HashSet<>();
+        for (Bug bug : batch) {
+            if (!ids.add(bug.getId()) || bugs.ordinalOf(bug.getId()) < 0) {
+                throw new IllegalArgumentException("Bug " + bug.getId() + " does not exist or appears twice");
             }
         }
+        int[] stripeIndexes = ids.stream().mapToInt(this::stripeIndex).distinct().sorted().toArray();
+        batch.forEach(this::compact);
+
+        checkpointLock.readLock().lock();
+        try {
+            withStripes(stripeIndexes, 0, () -> {
+                for (Bug updated : batch) {
+                    Bug current = bugs.get(updated.getId());
+                    if (current.getVersion() != updated.getVersion()) {
+                        throw new VersionConflictException(updated.getId(), updated.getVersion(), current.getVersion());
+                    }
+                }
+                for (Bug updated : batch) {
+                    updated.setVersion(updated.getVersion() + 1);
+                    replaceBug(bugs.ordinalOf(updated.getId()), updated);
+                }
+                record(storage -> storage.putBugs(batch));
+            });
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        persist();
+    }
+
+    /**
+     * Stores a modified bug and re-indexes it, regardless of any changes made to it
+     * concurrently. Prefer {@link #compareAndSetBug(Bug)}, which does not lose them.
+     */
+    public void updateBug(Bug bug) {
+        if (bugs.ordinalOf(bug.getId()) < 0) {
+            return;
+        }
+        compact(bug);
+        mutate(bug.getId(), () -> {
+            Bug current = bugs.get(bug.getId());
+            bug.setVersion(current.getVersion() + 1);
+            replaceBug(bugs.ordinalOf(bug.getId()), bug);
+        }, storage -> storage.putBug(bug));
     }
 
     /**
-     * Generates the next available ID for users
+     * Generates the next available ID for users. Each call reserves a new ID.
      */
     public String getNextUserId() {
-        return String.valueOf(users.size() + 1);
+        return String.valueOf(userSequence.incrementAndGet());
     }
 
     /**
-     * Generates the next available ID for projects
+     * Generates the next available ID for projects. Each call reserves a new ID.
      */
     public String getNextProjectId() {
-        return String.valueOf(projects.size() + 1);
+        return String.valueOf(projectSequence.incrementAndGet());
     }
 
     /**
-     * Generates the next available ID for bugs
+     * Generates the next available ID for bugs. Each call reserves a new ID.
      */
     public String getNextBugId() {
-        return String.valueOf(bugs.size() + 1);
+        return String.valueOf(bugSequence.incrementAndGet());
+    }
+
+    /**
+     * Reserves a block of consecutive bug IDs with a single update of the sequence
+     *
+     * @param count Number of IDs to reserve
+     * @return The first ID of the block; the others follow it numerically
+     */
+    public long reserveBugIds(int count) {
+        return bugSequence.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Claims a bug ID chosen elsewhere, such as one kept by an import, moving the
+     * sequence past it so that it is never generated. Only a numeric ID above every ID
+     * issued so far can be claimed, since any other may already be in use.
+     *
+     * @return true if the ID was claimed and is free to use
+     */
+    public boolean claimBugId(String id) {
+        long value;
+        try {
+            value = Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long current;
+        do {
+            current = bugSequence.get();
+            if (value <= current) {
+                return false;
+            }
+        } while (!bugSequence.compareAndSet(current, value));
+        return true;
+    }
+
+    /**
+     * Tracks the most selective index found while planning a query
+     */
+    private static class IndexChoice {
+        SecondaryIndex<Bug, Object> index;
+        Object key;
+        int count;
+        String plan;
+
+        @SuppressWarnings("unchecked")
+        <K> void consider(String name, K key, SecondaryIndex<Bug, K> candidate) {
+            if (key == null) {
+                return;
+            }
+            int candidateCount = candidate.count(key);
+            if (index == null || candidateCount < count) {
+                index = (SecondaryIndex<Bug, Object>) candidate;
+                this.key = key;
+                count = candidateCount;
+                plan = "index on " + name + "=" + key + " (" + candidateCount + " bugs)";
+            }
+        }
     }
 
     /**
-     * Container class for JSON serialization
+     * A mutation as recorded with the storage engine
      */
-    private static class DataContainer {
-        List<User> users;
-        List<Project> projects;
-        List<Bug> bugs;
+    private interface Change {
+        void recordTo(StorageEngine engine) throws IOException;
     }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.ModelTypeAdapters;
+import com.google.gson.Gson;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Table that keeps its entities in a {@link RecordFile} as JSON records, and only a
+ * bounded number of recently used ones in memory. For every entity only its ordinal and
+ * the position of its record are held in memory.
+ * <p>
+ * Entities are stored in the cache first and marked dirty; an entity is written to the
+ * file when it is evicted, so one that changes repeatedly while in use is written once.
+ * The least recently used entity is evicted first. Reads by ID and ordinal admit the
+ * entity to the cache, while reads through {@link #snapshot()}, which scans use, only
+ * consult it, so that a report or an export does not push out the working set.
+ * <p>
+ * Snapshots are views over the entities that existed when they were taken and see
+ * later replacements of them.
+ *
+ * @param <T> Entity type
+ */
+class DiskTable<T> implements Table<T>, Closeable {
+    private final Class<T> type;
+    private final Function<T, String> idOf;
+    private final RecordFile file;
+    private final Gson gson = ModelTypeAdapters.builder().create();
+    private final int capacity;
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry<T>> cache;
+    // Positions of the latest record of every ordinal, or -1 for an entity never evicted
+    private long[] positions = new long[0];
+    private volatile int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeBacks;
+
+    /**
+     * Creates an empty table
+     *
+     * @param file     The file to keep the entities in; any existing content is discarded
+     * @param type     Class the entities are read back as
+     * @param idOf     Extracts the unique ID of an entity
+     * @param capacity The number of entities to keep in memory
+     */
+    DiskTable(File file, Class<T> type, Function<T, String> idOf, int capacity) throws IOException {
+        this.file = new RecordFile(file);
+        this.type = type;
+        this.idOf = idOf;
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<T>> eldest) {
+                if (size() <= DiskTable.this.capacity) {
+                    return false;
+                }
+                if (eldest.getValue().dirty) {
+                    byte[] record = gson.toJson(eldest.getValue().item).getBytes(StandardCharsets.UTF_8);
+                    positions[eldest.getKey()] = DiskTable.this.file.append(record);
+                    writeBacks++;
+                }
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public T get(String id) {
+        int ordinal = ordinalOf(id);
+        return ordinal >= 0 ? read(ordinal, true) : null;
+    }
+
+    @Override
+    public T get(int ordinal) {
+        return read(ordinal, true);
+    }
+
+    private T read(int ordinal, boolean admit) {
+        long position;
+        synchronized (this) {
+            Entry<T> entry = cache.get(ordinal);
+            if (entry != null) {
+                hits++;
+                return entry.item;
+            }
+            misses++;
+            position = positions[ordinal];
+        }
+
+        T item = gson.fromJson(new String(file.read(position), StandardCharsets.UTF_8), type);
+
+        if (admit) {
+            synchronized (this) {
+                // Unless the entity was replaced while it was being read
+                if (positions[ordinal] == position && !cache.containsKey(ordinal)) {
+                    cache.put(ordinal, new Entry<>(item, false));
+                }
+            }
+        }
+        return item;
+    }
+
+    @Override
+    public int ordinalOf(String id) {
+        Integer ordinal = id != null ? ordinals.get(id) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    @Override
+    public boolean put(T item) {
+        String id = idOf.apply(item);
+        synchronized (this) {
+            if (!ordinals.containsKey(id)) {
+                int ordinal = size;
+                if (ordinal == positions.length) {
+                    positions = Arrays.copyOf(positions, Math.max(16, ordinal * 2));
+                }
+                positions[ordinal] = -1;
+                cache.put(ordinal, new Entry<>(item, true));
+                size = ordinal + 1;
+                // Published only once the entity is in place, so an ordinal always resolves
+                ordinals.put(id, ordinal);
+                return false;
+            }
+        }
+        return replace(item);
+    }
+
+    /**
+     * Replaces the entity in the cache, without reading the record it supersedes
+     */
+    @Override
+    public boolean replace(T item) {
+        int ordinal = ordinalOf(idOf.apply(item));
+        if (ordinal < 0) {
+            return false;
+        }
+        synchronized (this) {
+            cache.put(ordinal, new Entry<>(item, true));
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        try {
+            file.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error clearing stored entities", e);
+        }
+        cache.clear();
+        ordinals.clear();
+        positions = new long[0];
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<T> snapshot() {
+        int count = size;
+        return new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                if (index >= count) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return read(index, false);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Gets the counters of the cache
+     */
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, writeBacks, cache.size(), capacity);
+    }
+
+    /**
+     * Closes and deletes the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * A cached entity, and whether it has changed since it was last written to the file
+     */
+    private static class Entry<T> {
+        final T item;
+        final boolean dirty;
+
+        Entry(T item, boolean dirty) {
+            this.item = item;
+            this.dirty = dirty;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Locality-sensitive hash index for finding bugs with near-identical text.
+ * The title and description of a bug are reduced to a set of character shingles,
+ * summarised by a MinHash signature, and the signature is split into bands. Bugs in
+ * the same project that share any band hash become duplicate candidates, so a lookup
+ * touches only a few buckets instead of every bug.
+ * The index is safe for concurrent use; signatures are computed outside the lock.
+ */
+class DuplicateIndex {
+    private static final int SHINGLE_LENGTH = 4;
+    private static final int BANDS = 16;
+    private static final int ROWS = 2;
+    private static final long[] SEEDS = new long[BANDS * ROWS];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5eedL);
+        for (int i = 0; i < SEEDS.length; i++) {
+            SEEDS[i] = random.nextLong();
+        }
+    }
+
+    private final Map<Integer, OrdinalSet> buckets = new HashMap<>();
+    // Bucket keys of every indexed bug, needed to remove it when its text changes
+    private final List<int[]> bucketKeysByOrdinal = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes the text of the bug at the given ordinal, replacing what was
+     * previously indexed for it
+     */
+    void update(int ordinal, Bug bug) {
+        int[] keys = bucketKeys(bug.getProjectId(), shingles(bug.getTitle(), bug.getDescription()));
+        lock.writeLock().lock();
+        try {
+            updateLocked(ordinal, keys);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void updateLocked(int ordinal, int[] keys) {
+        while (bucketKeysByOrdinal.size() <= ordinal) {
+            bucketKeysByOrdinal.add(null);
+        }
+
+        int[] previous = bucketKeysByOrdinal.set(ordinal, keys);
+        if (Arrays.equals(previous, keys)) {
+            return;
+        }
+        if (previous != null) {
+            for (int key : previous) {
+                OrdinalSet ordinals = buckets.get(key);
+                ordinals.remove(ordinal);
+                if (ordinals.size() == 0) {
+                    buckets.remove(key);
+                }
+            }
+        }
+        if (keys != null) {
+            for (int key : keys) {
+                buckets.computeIfAbsent(key, k -> new OrdinalSet()).add(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Finds bugs whose text may be similar to the given text
+     *
+     * @param projectId     Project the text belongs to
+     * @param shingles      Shingles of the text, from {@link #shingles(String, String)}
+     * @param maxCandidates Maximum number of candidates to return
+     * @return Candidate ordinals, which the caller should verify
+     */
+    int[] candidates(String projectId, int[] shingles, int maxCandidates) {
+        int[] keys = bucketKeys(projectId, shingles);
+        if (keys == null) {
+            return new int[0];
+        }
+
+        Set<Integer> candidates = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            for (int key : keys) {
+                OrdinalSet ordinals = buckets.get(key);
+                if (ordinals == null) {
+                    continue;
+                }
+                // Prefer the most recently reported bugs in large buckets
+                for (int i = ordinals.size() - 1; i >= 0 && candidates.size() < maxCandidates; i--) {
+                    candidates.add(ordinals.get(i));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return candidates.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Removes all entries from the index
+     */
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            buckets.clear();
+            bucketKeysByOrdinal.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Computes the sorted, distinct hashes of the character shingles of a bug's text
+     */
+    static int[] shingles(String title, String description) {
+        String text = normalize((title != null ? title : "") + " " + (description != null ? description : ""));
+        if (text.length() < SHINGLE_LENGTH) {
+            return text.isEmpty() ? new int[0] : new int[]{text.hashCode()};
+        }
+
+        int[] hashes = new int[text.length() - SHINGLE_LENGTH + 1];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = text.substring(i, i + SHINGLE_LENGTH).hashCode();
+        }
+        return Arrays.stream(hashes).sorted().distinct().toArray();
+    }
+
+    /**
+     * Computes the Jaccard similarity of two shingle sets
+     */
+    static double similarity(int[] left, int[] right) {
+        if (left.length == 0 || right.length == 0) {
+            return 0;
+        }
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] == right[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (left[i] < right[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (left.length + right.length - shared);
+    }
+
+    /**
+     * Computes the MinHash signature of a shingle set and hashes each band of it,
+     * together with the project, into a bucket key
+     */
+    private static int[] bucketKeys(String projectId, int[] shingles) {
+        if (shingles.length == 0) {
+            return null;
+        }
+
+        long[] signature = new long[SEEDS.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int i = 0; i < SEEDS.length; i++) {
+                long hash = mix(shingle ^ SEEDS[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+
+        int projectHash = projectId != null ? projectId.hashCode() : 0;
+        int[] keys = new int[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long hash = band * 0x9E3779B97F4A7C15L + projectHash;
+            for (int row = 0; row < ROWS; row++) {
+                hash = mix(hash ^ signature[band * ROWS + row]);
+            }
+            keys[band] = (int) (hash ^ (hash >>> 32));
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{Nd}]+", " ").trim();
+    }
+
+    /**
+     * 64-bit finaliser from MurmurHash3, used as a family of hash functions via the seeds
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93e1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bugtracker.repository;
+
+/**
+ * Enumeration of when repository mutations are committed to disk.
+ */
+public enum DurabilityMode {
+    /**
+     * Every mutation is committed before the mutating call returns
+     */
+    IMMEDIATE,
+
+    /**
+     * Mutations are batched and committed by a background flusher;
+     * callers that need durability use DataRepository.flush()
+     */
+    GROUP_COMMIT
+}
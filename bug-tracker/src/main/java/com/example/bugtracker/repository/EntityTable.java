@@ -0,0 +1,134 @@
+package com.example.bugtracker.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Insertion-ordered collection of entities with an ID-keyed hash index.
+ * Each entity keeps a dense ordinal (its position in insertion order), so point
+ * lookups are O(1) while iteration preserves the original order.
+ * <p>
+ * Entities are held in a {@link PersistentVector} that is replaced, never modified,
+ * on every write. Readers take the current version as an immutable snapshot in O(1)
+ * and are never blocked; writers derive the next version and publish it with a
+ * compare-and-set. Appends are additionally serialised on an internal lock so that
+ * ordinals are handed out in order. Callers must serialise replacements of the
+ * same entity themselves.
+ *
+ * @param <T> Entity type
+ */
+class EntityTable<T> implements Table<T> {
+    private final Function<T, String> idOf;
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private final AtomicReference<PersistentVector<T>> rows = new AtomicReference<>(PersistentVector.empty());
+
+    /**
+     * Creates an empty table
+     *
+     * @param idOf Extracts the unique ID of an entity
+     */
+    EntityTable(Function<T, String> idOf) {
+        this.idOf = idOf;
+    }
+
+    /**
+     * Gets the entity with the given ID, or null if there is none
+     */
+    @Override
+    public T get(String id) {
+        Integer ordinal = id != null ? ordinals.get(id) : null;
+        return ordinal != null ? get(ordinal.intValue()) : null;
+    }
+
+    /**
+     * Gets the entity at the given ordinal
+     */
+    @Override
+    public T get(int ordinal) {
+        return rows.get().get(ordinal);
+    }
+
+    /**
+     * Gets the ordinal of the entity with the given ID, or -1 if there is none
+     */
+    @Override
+    public int ordinalOf(String id) {
+        Integer ordinal = id != null ? ordinals.get(id) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Inserts the entity, or replaces the existing entity with the same ID
+     *
+     * @return true if an entity was replaced, false if the entity was appended
+     */
+    @Override
+    public boolean put(T item) {
+        if (replace(item)) {
+            return true;
+        }
+
+        synchronized (appendLock) {
+            if (replace(item)) {
+                return true;
+            }
+            PersistentVector<T> current;
+            do {
+                current = rows.get();
+            } while (!rows.compareAndSet(current, current.plus(item)));
+            // Published only once the entity is in place, so an ordinal always resolves
+            ordinals.put(idOf.apply(item), current.size());
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the existing entity with the same ID
+     *
+     * @return true if the entity was replaced, false if no entity has that ID
+     */
+    @Override
+    public boolean replace(T item) {
+        Integer ordinal = ordinals.get(idOf.apply(item));
+        if (ordinal == null) {
+            return false;
+        }
+        while (true) {
+            PersistentVector<T> current = rows.get();
+            if (rows.compareAndSet(current, current.with(ordinal, item))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes all entities from the table
+     */
+    @Override
+    public void clear() {
+        synchronized (appendLock) {
+            ordinals.clear();
+            rows.set(PersistentVector.empty());
+        }
+    }
+
+    /**
+     * Gets the number of entities in the table
+     */
+    @Override
+    public int size() {
+        return rows.get().size();
+    }
+
+    /**
+     * Gets an immutable, insertion-ordered snapshot of the entities currently in the
+     * table. Later writes do not affect it, and taking it does not copy anything.
+     */
+    @Override
+    public List<T> snapshot() {
+        return rows.get();
+    }
+}
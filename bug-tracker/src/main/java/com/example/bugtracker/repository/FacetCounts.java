@@ -0,0 +1,57 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+
+/**
+ * Number of bugs for every combination of status and priority.
+ */
+public class FacetCounts {
+    private final int[][] counts = new int[Status.values().length][Priority.values().length];
+
+    void set(Status status, Priority priority, int count) {
+        counts[status.ordinal()][priority.ordinal()] = count;
+    }
+
+    /**
+     * Gets the number of bugs with the given status and priority
+     */
+    public int getCount(Status status, Priority priority) {
+        return counts[status.ordinal()][priority.ordinal()];
+    }
+
+    /**
+     * Gets the number of bugs with the given status, across all priorities
+     */
+    public int getTotal(Status status) {
+        int total = 0;
+        for (int count : counts[status.ordinal()]) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of bugs with the given priority, across all statuses
+     */
+    public int getTotal(Priority priority) {
+        int total = 0;
+        for (int[] row : counts) {
+            total += row[priority.ordinal()];
+        }
+        return total;
+    }
+
+    /**
+     * Gets the total number of bugs counted
+     */
+    public int getTotal() {
+        int total = 0;
+        for (int[] row : counts) {
+            for (int count : row) {
+                total += count;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.bugtracker.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Background flusher that coalesces many mutations into a single commit.
+ * A commit runs once the oldest pending mutation has waited for the flush interval,
+ * once the number of pending mutations reaches the batch size, or when a caller
+ * explicitly requests a flush. A commit that fails leaves its mutations pending, and
+ * is retried after a delay that doubles with each consecutive failure.
+ */
+class FlushScheduler implements AutoCloseable {
+    private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+
+    private final Runnable commitAction;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final Thread flusher;
+
+    // Sequence numbers of the latest mutation marked dirty and the latest one committed
+    private long dirtySequence;
+    private long committedSequence;
+    private boolean flushRequested;
+    private boolean closed;
+    // Number of commits attempted, and the failure of the last one if it failed
+    private long attempts;
+    private RuntimeException failure;
+    private int consecutiveFailures;
+
+    /**
+     * Creates and starts a flusher
+     *
+     * @param commitAction   Writes all pending state to disk, throwing if it cannot
+     * @param intervalMillis Maximum time a mutation waits before being committed
+     * @param batchSize      Number of pending mutations that triggers an early commit
+     */
+    FlushScheduler(Runnable commitAction, long intervalMillis, int batchSize) {
+        this.commitAction = commitAction;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.flusher = new Thread(this::run, "bugtracker-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Records that a mutation has been applied in memory and needs committing
+     */
+    synchronized void markDirty() {
+        dirtySequence++;
+        if (dirtySequence - committedSequence >= batchSize) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until every mutation marked dirty before this call has been committed
+     *
+     * @throws UncheckedIOException if a commit attempted since this call failed. The
+     *                              mutations stay pending and the commit is retried.
+     */
+    synchronized void flush() {
+        long target = dirtySequence;
+        long attemptsBefore = attempts;
+        while (committedSequence < target && !closed) {
+            if (failure != null && attempts > attemptsBefore) {
+                throw new UncheckedIOException("Pending changes could not be committed: " + failure.getMessage(),
+                        failure.getCause() instanceof IOException cause ? cause : new IOException(failure));
+            }
+            flushRequested = true;
+            notifyAll();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Commits any pending mutations and stops the flusher thread. Mutations that cannot
+     * be committed are left to the caller, which holds them still.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage());
+        }
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            long target;
+            synchronized (this) {
+                try {
+                    while (!closed && dirtySequence == committedSequence) {
+                        wait();
+                    }
+                    long deadline = System.currentTimeMillis() + intervalMillis;
+                    long remaining;
+                    while (!closed && !flushRequested
+                            && dirtySequence - committedSequence < batchSize
+                            && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (dirtySequence == committedSequence) {
+                    return;
+                }
+                target = dirtySequence;
+                flushRequested = false;
+            }
+
+            try {
+                commitAction.run();
+            } catch (RuntimeException e) {
+                // Leave the batch pending and retry it once the delay has passed
+                System.err.println("Error committing pending changes: " + e.getMessage());
+                if (!backOff(e)) {
+                    return;
+                }
+                continue;
+            }
+
+            synchronized (this) {
+                committedSequence = target;
+                attempts++;
+                failure = null;
+                consecutiveFailures = 0;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reports a failed commit to callers waiting for a flush, then waits before the retry
+     *
+     * @return false if the flusher was closed, when the commit is not retried
+     */
+    private synchronized boolean backOff(RuntimeException e) {
+        attempts++;
+        failure = e;
+        notifyAll();
+        long delay = Math.min(Math.max(intervalMillis, 10) << Math.min(consecutiveFailures++, 10),
+                MAX_RETRY_DELAY_MILLIS);
+        long retryAt = System.currentTimeMillis() + delay;
+        long remaining;
+        try {
+            while (!closed && (remaining = retryAt - System.currentTimeMillis()) > 0) {
+                wait(remaining);
+            }
+        } catch (InterruptedException interrupted) {
+            return false;
+        }
+        return !closed;
+    }
+}
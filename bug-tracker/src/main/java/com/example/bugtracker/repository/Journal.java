@@ -0,0 +1,145 @@
+package com.example.bugtracker.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of repository mutations.
+ * Each mutation is written as one line of compact JSON, so the cost of a write is
+ * proportional to the changed record rather than to the whole data set.
+ * All operations are synchronized so that records from concurrent writers never interleave.
+ */
+class Journal implements Closeable {
+    private final File file;
+    private final Gson gson;
+    private FileOutputStream output;
+    private Writer writer;
+    private int recordCount;
+
+    /**
+     * Creates a journal backed by the given file; the file is opened lazily on first append
+     */
+    Journal(File file, Gson gson) {
+        this.file = file;
+        this.gson = gson;
+    }
+
+    /**
+     * Replays every complete record in the journal, in the order it was written.
+     * A torn final line left behind by a crash is ignored and cut off the file, so that
+     * records appended later start on a line of their own.
+     *
+     * @param consumer Receives each record
+     * @return Number of records replayed
+     */
+    synchronized int replay(Consumer<JournalRecord> consumer) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        int replayed = 0;
+        // Length of the journal up to the end of the last complete record
+        long validLength = 0;
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long offset = 0;
+            int b;
+            while ((b = input.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                String text = line.toString(StandardCharsets.UTF_8);
+                line.reset();
+                if (!text.isBlank()) {
+                    JournalRecord record;
+                    try {
+                        record = gson.fromJson(text, JournalRecord.class);
+                    } catch (JsonParseException e) {
+                        System.err.println("Ignoring incomplete journal record: " + e.getMessage());
+                        break;
+                    }
+                    if (record != null && record.op != null) {
+                        consumer.accept(record);
+                        replayed++;
+                    }
+                }
+                validLength = offset;
+            }
+        }
+
+        if (validLength < file.length()) {
+            System.err.println("Truncating journal " + file + " to its last complete record at byte " + validLength);
+            try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+                journal.setLength(validLength);
+            }
+        }
+        recordCount = replayed;
+        return replayed;
+    }
+
+    /**
+     * Appends a record to the end of the journal.
+     * The record is buffered in memory until the next call to {@link #flush(boolean)}.
+     */
+    void append(JournalRecord record) throws IOException {
+        String line = gson.toJson(record);
+        synchronized (this) {
+            write(line);
+        }
+    }
+
+    private void write(String line) throws IOException {
+        if (writer == null) {
+            output = new FileOutputStream(file, true);
+            writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        }
+        writer.write(line);
+        writer.write('\n');
+        recordCount++;
+    }
+
+    /**
+     * Writes buffered records to the file
+     *
+     * @param sync Whether to also force the written data to the storage device
+     */
+    synchronized void flush(boolean sync) throws IOException {
+        if (writer == null) {
+            return;
+        }
+        writer.flush();
+        if (sync) {
+            output.getFD().sync();
+        }
+    }
+
+    /**
+     * Discards all records, typically after they have been folded into a snapshot
+     */
+    synchronized void reset() throws IOException {
+        close();
+        new FileOutputStream(file).close();
+        recordCount = 0;
+    }
+
+    /**
+     * Gets the number of records currently held in the journal
+     */
+    synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            output = null;
+        }
+    }
+}
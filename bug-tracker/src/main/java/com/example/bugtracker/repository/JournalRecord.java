@@ -0,0 +1,74 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Project;
+import com.example.bugtracker.model.User;
+import java.util.List;
+
+/**
+ * A single mutation as written to the journal.
+ * Only the field matching the operation is populated.
+ * <p>
+ * A change to bug headers is journaled without the bugs' descriptions and comments,
+ * which it did not change, and is marked as such; replaying it keeps the bodies.
+ */
+class JournalRecord {
+    /**
+     * Kinds of mutation that can be journaled
+     */
+    enum Operation {
+        PUT_USER,
+        PUT_PROJECT,
+        PUT_BUG,
+        /**
+         * Several bugs changed together. Written as one line, so a crash never leaves
+         * only some of them in the journal.
+         */
+        PUT_BUGS
+    }
+
+    Operation op;
+    User user;
+    Project project;
+    Bug bug;
+    List<Bug> bugs;
+    // Null rather than false, so that records of complete bugs do not mention it
+    Boolean bodyOmitted;
+
+    static JournalRecord of(User user) {
+        JournalRecord record = new JournalRecord();
+        record.op = Operation.PUT_USER;
+        record.user = user;
+        return record;
+    }
+
+    static JournalRecord of(Project project) {
+        JournalRecord record = new JournalRecord();
+        record.op = Operation.PUT_PROJECT;
+        record.project = project;
+        return record;
+    }
+
+    static JournalRecord of(Bug bug) {
+        JournalRecord record = new JournalRecord();
+        record.op = Operation.PUT_BUG;
+        record.bug = bug;
+        record.bodyOmitted = bug.isBodyLoaded() ? null : Boolean.TRUE;
+        return record;
+    }
+
+    static JournalRecord of(List<Bug> bugs) {
+        JournalRecord record = new JournalRecord();
+        record.op = Operation.PUT_BUGS;
+        record.bugs = bugs;
+        record.bodyOmitted = bugs.isEmpty() || bugs.get(0).isBodyLoaded() ? null : Boolean.TRUE;
+        return record;
+    }
+
+    /**
+     * Checks whether the record holds bug headers rather than complete bugs
+     */
+    boolean isBodyOmitted() {
+        return Boolean.TRUE.equals(bodyOmitted);
+    }
+}
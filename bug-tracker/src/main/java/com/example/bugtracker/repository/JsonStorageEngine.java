@@ -0,0 +1,188 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.ModelTypeAdapters;
+import com.example.bugtracker.model.Project;
+import com.example.bugtracker.model.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine that keeps all data in a single JSON file.
+ * In SNAPSHOT mode the file is rewritten at every commit. In JOURNAL mode each change
+ * is appended to a {@link Journal} instead, and the journal is folded into the file
+ * once it has grown past the compaction threshold.
+ */
+class JsonStorageEngine implements StorageEngine {
+    private final File file;
+    private final Gson gson;
+    private final Journal journal;
+    private final int compactionThreshold;
+    private final LoadProgressListener progressListener;
+
+    JsonStorageEngine(RepositoryConfig config) {
+        // The model classes are read and written by streaming adapters rather than reflectively
+        this(config, ModelTypeAdapters.builder());
+    }
+
+    /**
+     * Creates an engine that converts the data with Gson instances made by the given
+     * builder, so that a benchmark can compare adapters
+     */
+    JsonStorageEngine(RepositoryConfig config, GsonBuilder builder) {
+        this.file = new File(config.getDataFile());
+        this.compactionThreshold = config.getCompactionThreshold();
+        this.progressListener = config.getLoadProgressListener();
+
+        Gson journalGson = builder.create();
+        this.gson = config.isPrettyPrinting() ? builder.setPrettyPrinting().create() : journalGson;
+
+        this.journal = config.getPersistenceMode() == PersistenceMode.JOURNAL
+                ? new Journal(new File(config.getJournalFile()), journalGson)
+                : null;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Streams the full data set from the data file
+     */
+    @Override
+    public int load(Consumer<User> users, Consumer<Project> projects, Consumer<Bug> bugs) throws IOException {
+        int[] bugCount = new int[1];
+        SnapshotLoader loader = new SnapshotLoader(gson, progressListener);
+        boolean loaded = loader.load(file, users, projects, bug -> {
+            bugs.accept(bug);
+            bugCount[0]++;
+        });
+        return loaded ? bugCount[0] : -1;
+    }
+
+    /**
+     * Replays the journal in JOURNAL mode. Records are upserts, so replaying a record
+     * that is already reflected in the data file is harmless.
+     */
+    @Override
+    public void recover(Consumer<User> users, Consumer<Project> projects, Consumer<Bug> bugs) throws IOException {
+        if (journal == null) {
+            return;
+        }
+        journal.replay(record -> {
+            switch (record.op) {
+                case PUT_USER:
+                    users.accept(record.user);
+                    break;
+                case PUT_PROJECT:
+                    projects.accept(record.project);
+                    break;
+                case PUT_BUG:
+                    bugs.accept(record.isBodyOmitted() ? record.bug.header() : record.bug);
+                    break;
+                case PUT_BUGS:
+                    for (Bug bug : record.bugs) {
+                        bugs.accept(record.isBodyOmitted() ? bug.header() : bug);
+                    }
+                    break;
+            }
+        });
+    }
+
+    @Override
+    public void putUser(User user) throws IOException {
+        append(JournalRecord.of(user));
+    }
+
+    @Override
+    public void putProject(Project project) throws IOException {
+        append(JournalRecord.of(project));
+    }
+
+    @Override
+    public void putBug(Bug bug) throws IOException {
+        append(JournalRecord.of(bug));
+    }
+
+    @Override
+    public void putBugs(List<Bug> bugs) throws IOException {
+        append(JournalRecord.of(bugs));
+    }
+
+    private void append(JournalRecord record) throws IOException {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    /**
+     * Writes the journaled changes to the file. Only a synced commit forces them to the
+     * storage device, since group commit amortises the cost over a batch.
+     */
+    @Override
+    public void commit(boolean sync) throws IOException {
+        if (journal != null) {
+            journal.flush(sync);
+        }
+    }
+
+    /**
+     * Checks whether the data file is due to be rewritten, which in SNAPSHOT mode it is
+     * after every commit
+     */
+    @Override
+    public boolean isCheckpointDue() {
+        return journal == null || journal.getRecordCount() >= compactionThreshold;
+    }
+
+    @Override
+    public int getChangesSinceCheckpoint() {
+        return journal != null ? journal.getRecordCount() : 0;
+    }
+
+    /**
+     * Writes the data file. It is written to a temporary file and moved into place, and
+     * in JOURNAL mode the journal is emptied once the data file is safely on disk.
+     */
+    @Override
+    public void checkpoint(List<User> users, List<Project> projects, List<Bug> bugs) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            DataContainer data = new DataContainer();
+            data.users = users;
+            data.projects = projects;
+            data.bugs = bugs;
+            gson.toJson(data, writer);
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (journal != null) {
+            journal.reset();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Container class for JSON serialization
+     */
+    private static class DataContainer {
+        List<User> users;
+        List<Project> projects;
+        List<Bug> bugs;
+    }
+}
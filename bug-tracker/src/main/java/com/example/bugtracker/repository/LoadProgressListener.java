@@ -0,0 +1,17 @@
+package com.example.bugtracker.repository;
+
+/**
+ * Receives progress updates while the repository loads its data file.
+ */
+public interface LoadProgressListener {
+    /**
+     * Called periodically while the data file is being read
+     *
+     * @param bytesRead  Approximate number of bytes consumed so far
+     * @param totalBytes Size of the data file in bytes
+     * @param users      Number of users loaded so far
+     * @param projects   Number of projects loaded so far
+     * @param bugs       Number of bugs loaded so far
+     */
+    void onProgress(long bytesRead, long totalBytes, int users, int projects, int bugs);
+}
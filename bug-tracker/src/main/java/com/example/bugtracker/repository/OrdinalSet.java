@@ -0,0 +1,79 @@
+package com.example.bugtracker.repository;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of entity ordinals backed by a growable int array.
+ * Ordinals are usually added in increasing order, so adds are amortised O(1)
+ * and iteration visits entities in insertion order.
+ */
+class OrdinalSet {
+    private int[] values = new int[4];
+    private int size;
+
+    /**
+     * Adds an ordinal to the set
+     *
+     * @return true if the ordinal was not already present
+     */
+    boolean add(int ordinal) {
+        if (size == 0 || values[size - 1] < ordinal) {
+            ensureCapacity();
+            values[size++] = ordinal;
+            return true;
+        }
+
+        int position = Arrays.binarySearch(values, 0, size, ordinal);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        ensureCapacity();
+        System.arraycopy(values, position, values, position + 1, size - position);
+        values[position] = ordinal;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes an ordinal from the set
+     *
+     * @return true if the ordinal was present
+     */
+    boolean remove(int ordinal) {
+        int position = Arrays.binarySearch(values, 0, size, ordinal);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(values, position + 1, values, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Gets the ordinal at the given position in ascending order
+     */
+    int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets the number of ordinals in the set
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies the ordinals into a new array in ascending order
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void ensureCapacity() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+    }
+}
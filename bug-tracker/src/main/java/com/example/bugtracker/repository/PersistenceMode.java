@@ -0,0 +1,16 @@
+package com.example.bugtracker.repository;
+
+/**
+ * Enumeration of the strategies the repository can use to persist mutations.
+ */
+public enum PersistenceMode {
+    /**
+     * Rewrites the complete data file after every mutation
+     */
+    SNAPSHOT,
+
+    /**
+     * Appends each mutation to a journal and periodically folds it into the data file
+     */
+    JOURNAL
+}
@@ -0,0 +1,138 @@
+package com.example.bugtracker.repository;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list that shares structure with the versions it was derived from.
+ * Elements are stored in a tree of 32-slot arrays; replacing or appending an
+ * element copies only the arrays on the path to it, so deriving a new version
+ * costs O(log32 n) and every earlier version stays valid and unchanged.
+ * Instances can therefore be handed to readers as point-in-time snapshots
+ * without copying or locking.
+ *
+ * @param <T> Element type
+ */
+final class PersistentVector<T> extends AbstractList<T> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, 0, new Object[WIDTH]);
+
+    private final int size;
+    // Number of index bits consumed above the leaves; 0 while the root is itself a leaf
+    private final int shift;
+    private final Object[] root;
+
+    private PersistentVector(int size, int shift, Object[] root) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) leafFor(index)[index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a version of this vector with the element at the given index replaced
+     */
+    PersistentVector<T> with(int index, T value) {
+        Objects.checkIndex(index, size);
+        return new PersistentVector<>(size, shift, set(root, shift, index, value));
+    }
+
+    /**
+     * Returns a version of this vector with the element appended
+     */
+    PersistentVector<T> plus(T value) {
+        if (size == 1 << (shift + BITS)) {
+            // The tree is full; grow it by one level
+            Object[] newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, value);
+            return new PersistentVector<>(size + 1, shift + BITS, newRoot);
+        }
+        return new PersistentVector<>(size + 1, shift, append(root, shift, size, value));
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index;
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if (leaf == null || (index & MASK) == 0) {
+                    leaf = leafFor(index);
+                }
+                return (T) leaf[index++ & MASK];
+            }
+        };
+    }
+
+    private Object[] leafFor(int index) {
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private static Object[] set(Object[] node, int level, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int slot = (index >>> level) & MASK;
+            copy[slot] = set((Object[]) node[slot], level - BITS, index, value);
+        }
+        return copy;
+    }
+
+    private static Object[] append(Object[] node, int level, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int slot = (index >>> level) & MASK;
+            Object[] child = (Object[]) node[slot];
+            copy[slot] = child == null
+                    ? newPath(level - BITS, value)
+                    : append(child, level - BITS, index, value);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object value) {
+        Object[] node = new Object[WIDTH];
+        node[0] = level == 0 ? value : newPath(level - BITS, value);
+        return node;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.bugtracker.repository;
+
+import java.util.Arrays;
+
+/**
+ * Posting list of a search term: the sorted ordinals of the bugs containing
+ * the term together with the weighted number of occurrences in each bug.
+ */
+class PostingList {
+    private int[] ordinals = new int[2];
+    private int[] frequencies = new int[2];
+    private int size;
+
+    /**
+     * Records the term frequency for a bug, replacing any previous entry
+     */
+    void put(int ordinal, int frequency) {
+        int position = size > 0 && ordinals[size - 1] < ordinal
+                ? -(size + 1)
+                : Arrays.binarySearch(ordinals, 0, size, ordinal);
+        if (position >= 0) {
+            frequencies[position] = frequency;
+            return;
+        }
+
+        position = -position - 1;
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+        System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+        ordinals[position] = ordinal;
+        frequencies[position] = frequency;
+        size++;
+    }
+
+    /**
+     * Removes the entry for a bug, if present
+     */
+    void remove(int ordinal) {
+        int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+        System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+        size--;
+    }
+
+    /**
+     * Returns the term frequency recorded for a bug, or 0 if it has no entry
+     */
+    int frequencyOf(int ordinal) {
+        int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+        return position >= 0 ? frequencies[position] : 0;
+    }
+
+    int ordinalAt(int index) {
+        return ordinals[index];
+    }
+
+    int frequencyAt(int index) {
+        return frequencies[index];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.bugtracker.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only file of length-prefixed records, addressed by the position they were
+ * appended at. Appended records are buffered and written in blocks; reading a record
+ * that is still buffered writes the buffer first.
+ * <p>
+ * The file only lives as long as the object: it is emptied when opened and deleted
+ * when closed. It is safe for concurrent use, and records are read without holding
+ * its lock.
+ */
+class RecordFile implements Closeable {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    // Replaced by compaction, which callers keep readers away from
+    private volatile FileChannel channel;
+    // Appended records not yet written to the file start at the end of the file
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long fileEnd;
+
+    /**
+     * Creates an empty record file
+     *
+     * @param file The file to keep the records in; any existing content is discarded
+     */
+    RecordFile(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Appends a record
+     *
+     * @return The position to read the record from
+     */
+    synchronized long append(byte[] record) {
+        long position = fileEnd + pending.size();
+        pending.write(record.length >>> 24);
+        pending.write(record.length >>> 16);
+        pending.write(record.length >>> 8);
+        pending.write(record.length);
+        pending.writeBytes(record);
+        if (pending.size() >= WRITE_BUFFER_SIZE) {
+            flush();
+        }
+        return position;
+    }
+
+    /**
+     * Reads the record appended at the given position
+     */
+    byte[] read(long position) {
+        synchronized (this) {
+            if (position >= fileEnd) {
+                flush();
+            }
+        }
+        try {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            readFully(length, position);
+            ByteBuffer record = ByteBuffer.allocate(length.getInt(0));
+            readFully(record, position + 4);
+            return record.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + file, e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    /**
+     * Writes the appended records to the file. Called with the lock held.
+     */
+    private void flush() {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+            while (buffer.hasRemaining()) {
+                fileEnd += channel.write(buffer, fileEnd);
+            }
+            pending.reset();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing " + file, e);
+        }
+    }
+
+    /**
+     * Rewrites the file with only the records at the given positions, in the same order.
+     * Callers must not read records until it returns.
+     *
+     * @param positions Positions of the records to keep, or -1 where there is none.
+     *                  Each is replaced by the position of the record in the new file.
+     * @return The length of the new file
+     */
+    synchronized long compact(long[] positions) throws IOException {
+        flush();
+        File temp = new File(file.getPath() + ".compact");
+        long end = 0;
+        try (FileChannel target = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] < 0) {
+                    continue;
+                }
+                length.clear();
+                readFully(length, positions[i]);
+                long size = 4 + length.getInt(0);
+                for (long copied = 0; copied < size; ) {
+                    copied += channel.transferTo(positions[i] + copied, size - copied, target);
+                }
+                positions[i] = end;
+                end += size;
+            }
+        }
+        channel.close();
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileEnd = end;
+        return end;
+    }
+
+    /**
+     * Removes all records
+     */
+    synchronized void clear() throws IOException {
+        channel.truncate(0);
+        fileEnd = 0;
+        pending.reset();
+    }
+
+    /**
+     * Closes and deletes the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.bugtracker.repository;
+
+import java.io.File;
+
+/**
+ * Configuration options for the data repository.
+ * Defaults can be overridden with system properties, e.g. -Dbugtracker.persistence=journal.
+ */
+public class RepositoryConfig {
+    private String dataFile = "bugs.json";
+    private StorageBackend backend = StorageBackend.JSON;
+    private String databaseUrl;
+    private StorageEngine storageEngine;
+    private boolean prettyPrinting = true;
+    private PersistenceMode persistenceMode = PersistenceMode.SNAPSHOT;
+    private int compactionThreshold = 10_000;
+    private DurabilityMode durabilityMode = DurabilityMode.IMMEDIATE;
+    private long flushIntervalMillis = 50;
+    private int flushBatchSize = 1_000;
+    private boolean columnarEnabled = true;
+    private boolean lazyBodies;
+    private int bodyCacheSize = 1_000;
+    private StorageMode storageMode = StorageMode.MEMORY;
+    private int bugCacheSize = 10_000;
+    private LoadProgressListener loadProgressListener;
+
+    /**
+     * Creates a configuration populated from the bugtracker.* system properties
+     *
+     * @return Configuration with defaults for any property that is not set
+     */
+    public static RepositoryConfig fromSystemProperties() {
+        RepositoryConfig config = new RepositoryConfig();
+        config.setDataFile(System.getProperty("bugtracker.dataFile", config.getDataFile()));
+        String backend = System.getProperty("bugtracker.backend");
+        if (backend != null) {
+            config.setBackend(StorageBackend.valueOf(backend.trim().toUpperCase()));
+        }
+        config.setDatabaseUrl(System.getProperty("bugtracker.sql.url"));
+        String pretty = System.getProperty("bugtracker.json.pretty");
+        if (pretty != null) {
+            config.setPrettyPrinting(Boolean.parseBoolean(pretty.trim()));
+        }
+        String mode = System.getProperty("bugtracker.persistence");
+        if (mode != null) {
+            config.setPersistenceMode(PersistenceMode.valueOf(mode.trim().toUpperCase()));
+        }
+        config.setCompactionThreshold(Integer.getInteger("bugtracker.journal.compactionThreshold",
+                config.getCompactionThreshold()));
+        String durability = System.getProperty("bugtracker.durability");
+        if (durability != null) {
+            config.setDurabilityMode(DurabilityMode.valueOf(durability.trim().toUpperCase()));
+        }
+        config.setFlushIntervalMillis(Long.getLong("bugtracker.flush.intervalMillis",
+                config.getFlushIntervalMillis()));
+        config.setFlushBatchSize(Integer.getInteger("bugtracker.flush.batchSize",
+                config.getFlushBatchSize()));
+        String columnar = System.getProperty("bugtracker.columnar");
+        if (columnar != null) {
+            config.setColumnarEnabled(Boolean.parseBoolean(columnar.trim()));
+        }
+        String lazyBodies = System.getProperty("bugtracker.bodies.lazy");
+        if (lazyBodies != null) {
+            config.setLazyBodies(Boolean.parseBoolean(lazyBodies.trim()));
+        }
+        config.setBodyCacheSize(Integer.getInteger("bugtracker.bodies.cacheSize", config.getBodyCacheSize()));
+        String storage = System.getProperty("bugtracker.storage");
+        if (storage != null) {
+            config.setStorageMode(StorageMode.valueOf(storage.trim().toUpperCase()));
+        }
+        config.setBugCacheSize(Integer.getInteger("bugtracker.cache.size", config.getBugCacheSize()));
+        return config;
+    }
+
+    // Getters and setters
+    public String getDataFile() {
+        return dataFile;
+    }
+
+    public void setDataFile(String dataFile) {
+        this.dataFile = dataFile;
+    }
+
+    public StorageBackend getBackend() {
+        return backend;
+    }
+
+    public void setBackend(StorageBackend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Gets the JDBC URL of the database the SQL backend keeps data in. Unless set, this
+     * is an H2 database in a file named after the data file, such as bugs.json.h2.mv.db.
+     */
+    public String getDatabaseUrl() {
+        if (databaseUrl != null) {
+            return databaseUrl;
+        }
+        // Every commit is written to the file at once rather than within half a second
+        return "jdbc:h2:file:" + new File(dataFile + ".h2").getAbsolutePath() + ";WRITE_DELAY=0";
+    }
+
+    public void setDatabaseUrl(String databaseUrl) {
+        this.databaseUrl = databaseUrl;
+    }
+
+    /**
+     * Gets the storage engine to use in place of the one chosen by the backend, or null if none.
+     * The repository closes it when it is closed.
+     */
+    public StorageEngine getStorageEngine() {
+        return storageEngine;
+    }
+
+    public void setStorageEngine(StorageEngine storageEngine) {
+        this.storageEngine = storageEngine;
+    }
+
+    /**
+     * Checks whether the data file is written indented, for reading and editing by hand,
+     * rather than as compact JSON, which is smaller and quicker to write and load
+     */
+    public boolean isPrettyPrinting() {
+        return prettyPrinting;
+    }
+
+    public void setPrettyPrinting(boolean prettyPrinting) {
+        this.prettyPrinting = prettyPrinting;
+    }
+
+    /**
+     * Gets the journal file used alongside the data file in JOURNAL mode
+     */
+    public String getJournalFile() {
+        return dataFile + ".journal";
+    }
+
+    public PersistenceMode getPersistenceMode() {
+        return persistenceMode;
+    }
+
+    public void setPersistenceMode(PersistenceMode persistenceMode) {
+        this.persistenceMode = persistenceMode;
+    }
+
+    /**
+     * Gets the number of journal records after which the journal is folded into a new snapshot
+     */
+    public int getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public DurabilityMode getDurabilityMode() {
+        return durabilityMode;
+    }
+
+    public void setDurabilityMode(DurabilityMode durabilityMode) {
+        this.durabilityMode = durabilityMode;
+    }
+
+    /**
+     * Gets the longest time a mutation may wait before the group-commit flusher writes it
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Gets the number of pending mutations that makes the group-commit flusher write early
+     */
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    public void setFlushBatchSize(int flushBatchSize) {
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Checks whether the repository keeps a columnar copy of the bug attributes that
+     * reports aggregate over. Without it each report first copies them from the bugs.
+     */
+    public boolean isColumnarEnabled() {
+        return columnarEnabled;
+    }
+
+    public void setColumnarEnabled(boolean columnarEnabled) {
+        this.columnarEnabled = columnarEnabled;
+    }
+
+    /**
+     * Checks whether the repository keeps only the headers of bugs in memory, and their
+     * descriptions and comments in the body file until they are needed. Off by default,
+     * since saving a snapshot then reads every body back from the file; it suits the
+     * JOURNAL persistence mode and the SQL backend. Has no effect in DISK and MAPPED
+     * storage modes, where whole bugs are kept on disk.
+     */
+    public boolean isLazyBodies() {
+        return lazyBodies;
+    }
+
+    public void setLazyBodies(boolean lazyBodies) {
+        this.lazyBodies = lazyBodies;
+    }
+
+    /**
+     * Gets the file bug descriptions and comments are kept in while the repository is open
+     */
+    public String getBodyFile() {
+        return dataFile + ".bodies";
+    }
+
+    /**
+     * Gets the number of recently read bug bodies kept in memory
+     */
+    public int getBodyCacheSize() {
+        return bodyCacheSize;
+    }
+
+    public void setBodyCacheSize(int bodyCacheSize) {
+        this.bodyCacheSize = bodyCacheSize;
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    public void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    /**
+     * Gets the file bugs are kept in while the repository is open in DISK storage mode
+     */
+    public String getBugStoreFile() {
+        return dataFile + ".store";
+    }
+
+    /**
+     * Gets the directory MAPPED storage mode persists bugs in
+     */
+    public String getSegmentDirectory() {
+        return dataFile + ".segments";
+    }
+
+    /**
+     * Gets the number of recently used bugs kept in memory in DISK storage mode
+     */
+    public int getBugCacheSize() {
+        return bugCacheSize;
+    }
+
+    public void setBugCacheSize(int bugCacheSize) {
+        this.bugCacheSize = bugCacheSize;
+    }
+
+    /**
+     * Gets the listener notified while the data file is loaded, or null if none
+     */
+    public LoadProgressListener getLoadProgressListener() {
+        return loadProgressListener;
+    }
+
+    public void setLoadProgressListener(LoadProgressListener loadProgressListener) {
+        this.loadProgressListener = loadProgressListener;
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory inverted index over bug titles, descriptions and comments.
+ * Results are ranked with BM25, with title matches weighted above body matches.
+ * Query terms match exactly; a word ending in '*', and the last word of the query,
+ * also match every indexed term they are a prefix of.
+ * The index is safe for concurrent use: searches share a read lock and updates
+ * take the write lock only after the bug's text has been tokenised.
+ */
+class SearchIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 3;
+    private static final float PREFIX_WEIGHT = 0.8f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "in", "is", "it",
+            "of", "on", "or", "the", "to", "was", "when", "with");
+
+    // Sorted so that prefix queries can walk a range of terms
+    private final NavigableMap<String, PostingList> terms = new TreeMap<>();
+    // What was indexed for every bug, needed to remove its postings on re-index
+    private final List<IndexedText> textByOrdinal = new ArrayList<>();
+    private int[] lengthsByOrdinal = new int[16];
+    private long totalLength;
+    private int documentCount;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes the current text of the bug at the given ordinal, replacing what was
+     * previously indexed for it
+     */
+    void update(int ordinal, Bug bug) {
+        int headerHash = Objects.hash(bug.getTitle(), bug.getDescription());
+        List<Comment> comments = bug.getComments();
+        IndexedText previous = indexedText(ordinal);
+
+        // Comments are only ever appended, so when the title and description are
+        // unchanged just the new comments need to be tokenised and indexed
+        if (previous != null && previous.headerHash == headerHash
+                && previous.commentCount <= comments.size()) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (Comment comment : comments.subList(previous.commentCount, comments.size())) {
+                addTokens(frequencies, comment.getText(), 1);
+            }
+            lock.writeLock().lock();
+            try {
+                append(ordinal, frequencies, comments.size());
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTokens(frequencies, bug.getTitle(), TITLE_WEIGHT);
+        addTokens(frequencies, bug.getDescription(), 1);
+        for (Comment comment : comments) {
+            addTokens(frequencies, comment.getText(), 1);
+        }
+
+        lock.writeLock().lock();
+        try {
+            remove(ordinal);
+            add(ordinal, frequencies, headerHash, comments.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private IndexedText indexedText(int ordinal) {
+        lock.readLock().lock();
+        try {
+            return ordinal < textByOrdinal.size() ? textByOrdinal.get(ordinal) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(int ordinal, Map<String, Integer> frequencies, int headerHash, int commentCount) {
+        String[] distinctTerms = new String[frequencies.size()];
+        int length = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Map.Entry<String, PostingList> term = postingsOf(entry.getKey());
+            term.getValue().put(ordinal, entry.getValue());
+            distinctTerms[i++] = term.getKey();
+            length += entry.getValue();
+        }
+
+        while (textByOrdinal.size() <= ordinal) {
+            textByOrdinal.add(null);
+        }
+        textByOrdinal.set(ordinal, new IndexedText(distinctTerms, headerHash, commentCount));
+        if (ordinal >= lengthsByOrdinal.length) {
+            lengthsByOrdinal = Arrays.copyOf(lengthsByOrdinal, Math.max(ordinal + 1, lengthsByOrdinal.length * 2));
+        }
+        lengthsByOrdinal[ordinal] = length;
+        totalLength += length;
+        documentCount++;
+    }
+
+    private void append(int ordinal, Map<String, Integer> frequencies, int commentCount) {
+        IndexedText previous = textByOrdinal.get(ordinal);
+        List<String> newTerms = new ArrayList<>();
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Map.Entry<String, PostingList> term = postingsOf(entry.getKey());
+            int frequency = term.getValue().frequencyOf(ordinal);
+            if (frequency == 0) {
+                newTerms.add(term.getKey());
+            }
+            term.getValue().put(ordinal, frequency + entry.getValue());
+            length += entry.getValue();
+        }
+
+        String[] distinctTerms = previous.terms;
+        if (!newTerms.isEmpty()) {
+            distinctTerms = Arrays.copyOf(distinctTerms, distinctTerms.length + newTerms.size());
+            for (int i = 0; i < newTerms.size(); i++) {
+                distinctTerms[previous.terms.length + i] = newTerms.get(i);
+            }
+        }
+        textByOrdinal.set(ordinal, new IndexedText(distinctTerms, previous.headerHash, commentCount));
+        lengthsByOrdinal[ordinal] += length;
+        totalLength += length;
+    }
+
+    /**
+     * Gets the term as stored in the index together with its posting list, adding an
+     * empty one for a new term. The indexed text of every bug refers to the stored term,
+     * so that all bugs containing a term share one copy of it.
+     */
+    private Map.Entry<String, PostingList> postingsOf(String term) {
+        Map.Entry<String, PostingList> entry = terms.ceilingEntry(term);
+        if (entry != null && entry.getKey().equals(term)) {
+            return entry;
+        }
+        PostingList postings = new PostingList();
+        terms.put(term, postings);
+        return Map.entry(term, postings);
+    }
+
+    /**
+     * Searches the index
+     *
+     * @param query  Free-text query
+     * @param limit  Maximum number of results
+     * @param filter Accepts the ordinals that may appear in the results
+     * @return Ordinals of the best matches, most relevant first
+     */
+    int[] search(String query, int limit, IntPredicate filter) {
+        Map<String, Boolean> queryTerms = parseQuery(query);
+        lock.readLock().lock();
+        try {
+            return search(queryTerms, limit, filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] search(Map<String, Boolean> queryTerms, int limit, IntPredicate filter) {
+        if (queryTerms.isEmpty() || documentCount == 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        Accumulator accumulator = new Accumulator(lengthsByOrdinal.length);
+        float averageLength = (float) totalLength / documentCount;
+        for (Map.Entry<String, Boolean> queryTerm : queryTerms.entrySet()) {
+            String term = queryTerm.getKey();
+            score(accumulator, terms.get(term), 1.0f, averageLength, filter);
+            if (queryTerm.getValue()) {
+                int expansions = 0;
+                for (Map.Entry<String, PostingList> entry : terms.tailMap(term, false).entrySet()) {
+                    if (!entry.getKey().startsWith(term) || ++expansions > MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    score(accumulator, entry.getValue(), PREFIX_WEIGHT, averageLength, filter);
+                }
+            }
+        }
+
+        // Keep the top results in a min-heap ordered by score, preferring older bugs on ties
+        float[] scores = accumulator.scores;
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, (x, y) -> scores[x] != scores[y]
+                ? Float.compare(scores[x], scores[y])
+                : Integer.compare(y, x));
+        for (int i = 0; i < accumulator.count; i++) {
+            int ordinal = accumulator.touched[i];
+            if (top.size() < limit) {
+                top.offer(ordinal);
+            } else if (scores[ordinal] > scores[top.peek()]) {
+                top.poll();
+                top.offer(ordinal);
+            }
+        }
+
+        int[] result = new int[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll();
+        }
+        return result;
+    }
+
+    /**
+     * Removes all entries from the index
+     */
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            textByOrdinal.clear();
+            lengthsByOrdinal = new int[16];
+            totalLength = 0;
+            documentCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-case search terms, dropping punctuation and stop words
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void remove(int ordinal) {
+        if (ordinal >= textByOrdinal.size() || textByOrdinal.get(ordinal) == null) {
+            return;
+        }
+        for (String term : textByOrdinal.get(ordinal).terms) {
+            PostingList postings = terms.get(term);
+            postings.remove(ordinal);
+            if (postings.size() == 0) {
+                terms.remove(term);
+            }
+        }
+        textByOrdinal.set(ordinal, null);
+        totalLength -= lengthsByOrdinal[ordinal];
+        documentCount--;
+    }
+
+    private void score(Accumulator accumulator, PostingList postings, float weight,
+                       float averageLength, IntPredicate filter) {
+        if (postings == null) {
+            return;
+        }
+        float idf = (float) Math.log(1 + (documentCount - postings.size() + 0.5) / (postings.size() + 0.5));
+        for (int i = 0; i < postings.size(); i++) {
+            int ordinal = postings.ordinalAt(i);
+            int frequency = postings.frequencyAt(i);
+            float norm = K1 * (1 - B + B * lengthsByOrdinal[ordinal] / averageLength);
+            accumulator.add(ordinal, weight * idf * frequency * (K1 + 1) / (frequency + norm), filter);
+        }
+    }
+
+    private static void addTokens(Map<String, Integer> frequencies, String text, int weight) {
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Splits a query into terms, mapping each to whether it should also match as a prefix
+     */
+    private static Map<String, Boolean> parseQuery(String query) {
+        Map<String, Boolean> queryTerms = new LinkedHashMap<>();
+        if (query == null) {
+            return queryTerms;
+        }
+
+        String[] words = query.trim().split("\\s+");
+        for (int i = 0; i < words.length; i++) {
+            List<String> tokens = tokenize(words[i]);
+            boolean prefix = words[i].endsWith("*") || i == words.length - 1;
+            for (int j = 0; j < tokens.size(); j++) {
+                queryTerms.merge(tokens.get(j), prefix && j == tokens.size() - 1, Boolean::logicalOr);
+            }
+        }
+        return queryTerms;
+    }
+
+    /**
+     * Dense per-query score table that also tracks which ordinals have been scored
+     */
+    private static class Accumulator {
+        final float[] scores;
+        int[] touched = new int[64];
+        int count;
+
+        Accumulator(int capacity) {
+            this.scores = new float[capacity];
+        }
+
+        void add(int ordinal, float score, IntPredicate filter) {
+            if (scores[ordinal] == 0) {
+                if (!filter.test(ordinal)) {
+                    return;
+                }
+                if (count == touched.length) {
+                    touched = Arrays.copyOf(touched, count * 2);
+                }
+                touched[count++] = ordinal;
+            }
+            scores[ordinal] += score;
+        }
+    }
+
+    /**
+     * Distinct terms indexed for a bug, plus what is needed to tell whether a
+     * later update only appended comments
+     */
+    private static class IndexedText {
+        final String[] terms;
+        final int headerHash;
+        final int commentCount;
+
+        IndexedText(String[] terms, int headerHash, int commentCount) {
+            this.terms = terms;
+            this.headerHash = headerHash;
+            this.commentCount = commentCount;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bugtracker.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Non-unique index from an attribute value to the ordinals of the entities that have it.
+ * The index remembers the key it last recorded for every ordinal, so an entity that was
+ * modified in place can be re-indexed without knowing its previous state.
+ * The index is safe for concurrent use; readers receive copies of the posting lists.
+ *
+ * @param <T> Entity type
+ * @param <K> Key type; null keys are not indexed
+ */
+class SecondaryIndex<T, K> {
+    private final Function<T, K> keyOf;
+    private final Map<K, OrdinalSet> postings = new HashMap<>();
+    private final List<K> keysByOrdinal = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an empty index
+     *
+     * @param keyOf Extracts the indexed attribute from an entity
+     */
+    SecondaryIndex(Function<T, K> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Records the current key of the entity at the given ordinal,
+     * moving it out of the posting list of its previous key if that changed
+     */
+    void update(int ordinal, T entity) {
+        K key = keyOf.apply(entity);
+        lock.writeLock().lock();
+        try {
+            updateLocked(ordinal, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void updateLocked(int ordinal, K key) {
+        while (keysByOrdinal.size() <= ordinal) {
+            keysByOrdinal.add(null);
+        }
+
+        K previous = keysByOrdinal.set(ordinal, key);
+        if (previous != null && previous.equals(key)) {
+            return;
+        }
+        if (previous != null) {
+            OrdinalSet ordinals = postings.get(previous);
+            ordinals.remove(ordinal);
+            if (ordinals.size() == 0) {
+                postings.remove(previous);
+            }
+        }
+        if (key != null) {
+            postings.computeIfAbsent(key, k -> new OrdinalSet()).add(ordinal);
+        }
+    }
+
+    /**
+     * Gets the ordinals of all entities with the given key, in ascending order
+     */
+    int[] lookup(K key) {
+        lock.readLock().lock();
+        try {
+            OrdinalSet ordinals = key != null ? postings.get(key) : null;
+            return ordinals != null ? ordinals.toArray() : new int[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of entities with the given key
+     */
+    int count(K key) {
+        lock.readLock().lock();
+        try {
+            OrdinalSet ordinals = key != null ? postings.get(key) : null;
+            return ordinals != null ? ordinals.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all entries from the index
+     */
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            keysByOrdinal.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of bugs kept in memory-mapped segment files in the binary format of
+ * {@link BugCodec}, which persist them across restarts.
+ * <p>
+ * Every stored version of a bug is appended to the current segment as a length-prefixed
+ * record, and a new segment is started when it is full. For every bug only its ordinal
+ * and the position of its latest record are held in memory. A bug is decoded from its
+ * record whenever it is read, so reading one bug parses no other.
+ * <p>
+ * {@link #checkpoint()} forces the segments to disk and writes the record positions to
+ * an index file, from which the table is reopened by mapping the segments named in it.
+ * Records appended after the last checkpoint are discarded on reopening, so they must be
+ * recoverable from elsewhere, such as the journal. Once superseded records take up most
+ * of the segments, a checkpoint first copies the live records to new segments.
+ * <p>
+ * The table is safe for concurrent use; records are decoded without holding its lock.
+ * Snapshots are views over the bugs that existed when they were taken and see later
+ * replacements of them.
+ */
+class SegmentTable implements Table<Bug>, Closeable {
+    private static final int SEGMENT_SIZE = 64 << 20;
+    private static final int INDEX_MAGIC = 0x42554753;
+    private static final int INDEX_FORMAT = 1;
+    private static final String INDEX_FILE = "index";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final File directory;
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private List<Segment> segments = new ArrayList<>();
+    // Segment slot in the high and offset in the low 32 bits of the latest record of every ordinal
+    private long[] positions = new long[0];
+    private volatile int size;
+    private long nextSegmentNumber;
+    private long liveBytes;
+
+    /**
+     * Opens the table kept in a directory, mapping the segments of its last checkpoint,
+     * or creates an empty one
+     */
+    SegmentTable(File directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory.toPath());
+        File index = new File(directory, INDEX_FILE);
+        if (index.exists()) {
+            readIndex(index);
+        }
+        // Segments started after the last checkpoint hold nothing it refers to
+        deleteUnusedSegments();
+        if (segments.isEmpty()) {
+            segments.add(createSegment(SEGMENT_SIZE));
+        }
+    }
+
+    /**
+     * Checks whether a directory holds a table written by a checkpoint
+     */
+    static boolean exists(File directory) {
+        return new File(directory, INDEX_FILE).exists();
+    }
+
+    /**
+     * Deletes a table kept in a directory, which must not be open
+     */
+    static void delete(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        for (File file : files != null ? files : new File[0]) {
+            Files.delete(file.toPath());
+        }
+        Files.deleteIfExists(directory.toPath());
+    }
+
+    private void readIndex(File file) throws IOException {
+        ByteBuffer index;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (index.remaining() < 2 * Integer.BYTES || index.getInt() != INDEX_MAGIC
+                || index.getInt() != INDEX_FORMAT) {
+            throw new IOException(file + " is not a bug segment index");
+        }
+
+        int segmentCount = index.getInt();
+        for (int i = 0; i < segmentCount; i++) {
+            long number = index.getLong();
+            int end = index.getInt();
+            segments.add(openSegment(number, end));
+        }
+        int count = index.getInt();
+        positions = new long[Math.max(16, count)];
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            byte[] id = new byte[index.getInt()];
+            index.get(id);
+            positions[ordinal] = index.getLong();
+            ordinals.put(new String(id, StandardCharsets.UTF_8), ordinal);
+        }
+        size = count;
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            liveBytes += recordSize(positions[ordinal]);
+        }
+    }
+
+    @Override
+    public Bug get(String id) {
+        int ordinal = ordinalOf(id);
+        return ordinal >= 0 ? get(ordinal) : null;
+    }
+
+    @Override
+    public Bug get(int ordinal) {
+        Segment segment;
+        int offset;
+        synchronized (this) {
+            if (ordinal >= size) {
+                throw new IndexOutOfBoundsException(ordinal);
+            }
+            segment = segments.get((int) (positions[ordinal] >>> 32));
+            offset = (int) positions[ordinal];
+        }
+        int length = segment.buffer.getInt(offset);
+        return BugCodec.decode(segment.buffer.slice(offset + Integer.BYTES, length));
+    }
+
+    @Override
+    public int ordinalOf(String id) {
+        Integer ordinal = id != null ? ordinals.get(id) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    @Override
+    public boolean put(Bug item) {
+        byte[] record = BugCodec.encode(item);
+        synchronized (this) {
+            if (!ordinals.containsKey(item.getId())) {
+                int ordinal = size;
+                if (ordinal == positions.length) {
+                    positions = Arrays.copyOf(positions, Math.max(16, ordinal * 2));
+                }
+                positions[ordinal] = append(record);
+                liveBytes += Integer.BYTES + record.length;
+                size = ordinal + 1;
+                // Published only once the bug is in place, so an ordinal always resolves
+                ordinals.put(item.getId(), ordinal);
+                return false;
+            }
+        }
+        return replace(item, record);
+    }
+
+    @Override
+    public boolean replace(Bug item) {
+        return replace(item, BugCodec.encode(item));
+    }
+
+    private boolean replace(Bug item, byte[] record) {
+        int ordinal = ordinalOf(item.getId());
+        if (ordinal < 0) {
+            return false;
+        }
+        // The superseded record is only measured, never decoded
+        synchronized (this) {
+            liveBytes -= recordSize(positions[ordinal]);
+            positions[ordinal] = append(record);
+            liveBytes += Integer.BYTES + record.length;
+        }
+        return true;
+    }
+
+    /**
+     * Appends a record to the current segment, starting a new one if it does not fit.
+     * Called with the lock held.
+     *
+     * @return The position of the record
+     */
+    private long append(byte[] record) {
+        int length = Integer.BYTES + record.length;
+        Segment segment = segments.get(segments.size() - 1);
+        if (segment.buffer.capacity() - segment.end < length) {
+            segment = createSegment(Math.max(SEGMENT_SIZE, length));
+            segments.add(segment);
+        }
+        segment.buffer.putInt(segment.end, record.length);
+        segment.buffer.put(segment.end + Integer.BYTES, record);
+        long position = (long) (segments.size() - 1) << 32 | segment.end;
+        segment.end += length;
+        return position;
+    }
+
+    private int recordSize(long position) {
+        return Integer.BYTES + segments.get((int) (position >>> 32)).buffer.getInt((int) position);
+    }
+
+    /**
+     * Makes the current state of the table durable: forces the segments to disk and
+     * replaces the index file. Superseded records are first dropped by copying the live
+     * ones to new segments if they take up more than half of the segments.
+     */
+    synchronized void checkpoint() throws IOException {
+        long totalBytes = 0;
+        for (Segment segment : segments) {
+            totalBytes += segment.end;
+        }
+        if (totalBytes > SEGMENT_SIZE && totalBytes > 2 * liveBytes) {
+            compact();
+        }
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+
+        File file = new File(directory, INDEX_FILE);
+        File tempFile = new File(directory, INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tempFile), 64 * 1024))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_FORMAT);
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                out.writeLong(segment.number);
+                out.writeInt(segment.end);
+            }
+            String[] ids = new String[size];
+            ordinals.forEach((id, ordinal) -> ids[ordinal] = id);
+            out.writeInt(size);
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                byte[] id = ids[ordinal].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(id.length);
+                out.write(id);
+                out.writeLong(positions[ordinal]);
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // The index no longer refers to segments dropped by compaction
+        deleteUnusedSegments();
+    }
+
+    /**
+     * Deletes the segment files in the directory that are not part of the table
+     */
+    private void deleteUnusedSegments() throws IOException {
+        Set<String> current = new HashSet<>();
+        for (Segment segment : segments) {
+            current.add(segment.file.getName());
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        for (File file : files != null ? files : new File[0]) {
+            if (!current.contains(file.getName())) {
+                Files.delete(file.toPath());
+            }
+        }
+    }
+
+    /**
+     * Copies the latest record of every bug to new segments and switches to them.
+     * Called with the lock held. Readers that looked up a position before the switch
+     * still read it from the old segment, whose mapping stays valid.
+     */
+    private void compact() throws IOException {
+        List<Segment> previous = segments;
+        long[] previousPositions = positions;
+        segments = new ArrayList<>();
+        segments.add(createSegment(SEGMENT_SIZE));
+        positions = new long[previousPositions.length];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Segment segment = previous.get((int) (previousPositions[ordinal] >>> 32));
+            int offset = (int) previousPositions[ordinal];
+            byte[] record = new byte[segment.buffer.getInt(offset)];
+            segment.buffer.get(offset + Integer.BYTES, record);
+            positions[ordinal] = append(record);
+        }
+        for (Segment segment : previous) {
+            segment.channel.close();
+        }
+    }
+
+    private Segment createSegment(int capacity) {
+        try {
+            Segment segment = new Segment(new File(directory, segmentName(nextSegmentNumber)),
+                    nextSegmentNumber, capacity, 0);
+            nextSegmentNumber++;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error creating a bug segment in " + directory, e);
+        }
+    }
+
+    private Segment openSegment(long number, int end) throws IOException {
+        File file = new File(directory, segmentName(number));
+        if (!file.exists()) {
+            throw new IOException("Missing bug segment " + file);
+        }
+        nextSegmentNumber = Math.max(nextSegmentNumber, number + 1);
+        return new Segment(file, number, (int) file.length(), end);
+    }
+
+    private static String segmentName(long number) {
+        return String.format("%08d%s", number, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Removes all bugs. The files of the last checkpoint are kept until the next one.
+     */
+    @Override
+    public synchronized void clear() {
+        try {
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error closing bug segments in " + directory, e);
+        }
+        segments = new ArrayList<>();
+        segments.add(createSegment(SEGMENT_SIZE));
+        ordinals.clear();
+        positions = new long[0];
+        size = 0;
+        liveBytes = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<Bug> snapshot() {
+        int count = size;
+        return new AbstractList<>() {
+            @Override
+            public Bug get(int index) {
+                if (index >= count) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return SegmentTable.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Closes the segment files, leaving them and the index of the last checkpoint in place
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+    }
+
+    /**
+     * A segment file mapped into memory, and the end of the records written to it
+     */
+    private static class Segment {
+        final File file;
+        final long number;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int end;
+
+        Segment(File file, long number, int capacity, int end) throws IOException {
+            this.file = file;
+            this.number = number;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Project;
+import com.example.bugtracker.model.User;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for the JSON data file.
+ * Records are decoded one at a time with a {@link JsonReader} and handed to the
+ * supplied consumers as they arrive, so no intermediate tree or container of the
+ * whole file is ever built.
+ */
+class SnapshotLoader {
+    private static final int PROGRESS_INTERVAL = 65_536;
+
+    private final Gson gson;
+    private final LoadProgressListener progressListener;
+
+    private CountingInputStream counter;
+    private long totalBytes;
+    private int userCount;
+    private int projectCount;
+    private int bugCount;
+    private boolean progressReported;
+
+    /**
+     * Creates a loader
+     *
+     * @param gson             Gson instance used to decode individual records
+     * @param progressListener Receives periodic progress updates, may be null
+     */
+    SnapshotLoader(Gson gson, LoadProgressListener progressListener) {
+        this.gson = gson;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Reads the data file, passing each record to the matching consumer
+     *
+     * @return false if the file contains no data at all
+     */
+    boolean load(File file, Consumer<User> users, Consumer<Project> projects, Consumer<Bug> bugs)
+            throws IOException {
+        totalBytes = file.length();
+        counter = new CountingInputStream(new FileInputStream(file));
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new BufferedInputStream(counter, 64 * 1024), StandardCharsets.UTF_8))) {
+            // Records are read as leniently as Gson.fromJson reads them
+            reader.setLenient(true);
+            if (reader.peek() == JsonToken.END_DOCUMENT) {
+                return false;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "users":
+                        readArray(reader, User.class, user -> {
+                            users.accept(user);
+                            userCount++;
+                        });
+                        break;
+                    case "projects":
+                        readArray(reader, Project.class, project -> {
+                            projects.accept(project);
+                            projectCount++;
+                        });
+                        break;
+                    case "bugs":
+                        readArray(reader, Bug.class, bug -> {
+                            bugs.accept(bug);
+                            bugCount++;
+                        });
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        // Small files finish before the first periodic update and stay silent
+        if (progressReported) {
+            reportProgress();
+        }
+        return true;
+    }
+
+    private <T> void readArray(JsonReader reader, Class<T> type, Consumer<T> consumer) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+
+        // The adapter is looked up once and reads records straight from the stream
+        TypeAdapter<T> adapter = gson.getAdapter(type);
+        reader.beginArray();
+        int read = 0;
+        while (reader.hasNext()) {
+            T item;
+            try {
+                item = adapter.read(reader);
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+            if (item != null) {
+                consumer.accept(item);
+            }
+            if (++read % PROGRESS_INTERVAL == 0) {
+                reportProgress();
+            }
+        }
+        reader.endArray();
+    }
+
+    private void reportProgress() {
+        progressReported = true;
+        if (progressListener != null) {
+            progressListener.onProgress(Math.min(counter.count, totalBytes), totalBytes,
+                    userCount, projectCount, bugCount);
+        }
+    }
+
+    /**
+     * Input stream wrapper that counts the bytes read from the file
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
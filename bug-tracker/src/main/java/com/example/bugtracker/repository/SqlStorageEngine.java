@@ -0,0 +1,519 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.Project;
+import com.example.bugtracker.model.Timestamps;
+import com.example.bugtracker.model.User;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Role;
+import com.example.bugtracker.model.enums.Status;
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine that keeps all data in an embedded H2 database, opened in-process
+ * through JDBC from a file next to the data file.
+ * <p>
+ * Users, projects and bugs have a table each, and the comments of all bugs another,
+ * keyed by bug and position. Bugs are indexed on project, assignee, reporter and
+ * status for queries run against the database itself; the repository keeps every bug
+ * in memory and answers its lookups from its own indexes. Each table also numbers its
+ * rows in the order they were first stored, so that they are loaded in that order.
+ * <p>
+ * Recorded changes are kept in memory until the next commit, which writes them as
+ * batches of prepared statements in a single transaction; a change that is overwritten
+ * before then is written only once. Every commit is durable in the database, so there
+ * is nothing for a checkpoint to fold in, and one only takes place when the repository
+ * saves all of its data. The statements are prepared once and reused.
+ */
+class SqlStorageEngine implements StorageEngine {
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS users (seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "id VARCHAR NOT NULL UNIQUE, username VARCHAR, role VARCHAR)",
+            "CREATE TABLE IF NOT EXISTS projects (seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "id VARCHAR NOT NULL UNIQUE, name VARCHAR, description VARCHAR)",
+            "CREATE TABLE IF NOT EXISTS bugs (seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "id VARCHAR NOT NULL UNIQUE, title VARCHAR, description VARCHAR, project_id VARCHAR, "
+                    + "reporter_id VARCHAR, assignee_id VARCHAR, status VARCHAR, priority VARCHAR, "
+                    + "created_time BIGINT, updated_time BIGINT, version BIGINT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS comments (bug_id VARCHAR, comment_no INT, author_id VARCHAR, "
+                    + "text VARCHAR, time BIGINT, PRIMARY KEY (bug_id, comment_no))",
+            "CREATE INDEX IF NOT EXISTS bugs_by_project ON bugs(project_id)",
+            "CREATE INDEX IF NOT EXISTS bugs_by_assignee ON bugs(assignee_id)",
+            "CREATE INDEX IF NOT EXISTS bugs_by_reporter ON bugs(reporter_id)",
+            "CREATE INDEX IF NOT EXISTS bugs_by_status ON bugs(status)"
+    };
+
+    private static final String PUT_USER =
+            "MERGE INTO users (id, username, role) KEY (id) VALUES (?, ?, ?)";
+    private static final String PUT_PROJECT =
+            "MERGE INTO projects (id, name, description) KEY (id) VALUES (?, ?, ?)";
+    private static final String PUT_BUG =
+            "MERGE INTO bugs (id, title, project_id, reporter_id, assignee_id, status, priority, "
+                    + "created_time, updated_time, version, description) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Leaves the description of the stored bug unchanged
+    private static final String PUT_BUG_HEADER =
+            "MERGE INTO bugs (id, title, project_id, reporter_id, assignee_id, status, priority, "
+                    + "created_time, updated_time, version) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String PUT_COMMENT =
+            "MERGE INTO comments (bug_id, comment_no, author_id, text, time) KEY (bug_id, comment_no) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_COMMENTS =
+            "DELETE FROM comments WHERE bug_id = ? AND comment_no >= ?";
+
+    private static final String SELECT_USERS = "SELECT id, username, role FROM users ORDER BY seq";
+    private static final String SELECT_PROJECTS = "SELECT id, name, description FROM projects ORDER BY seq";
+    private static final String SELECT_BUGS =
+            "SELECT id, title, description, project_id, reporter_id, assignee_id, status, priority, "
+                    + "created_time, updated_time, version FROM bugs ORDER BY seq";
+    // Ordered like the bugs, so that the comments of each bug follow those of the previous one
+    private static final String SELECT_COMMENTS =
+            "SELECT c.bug_id, c.author_id, c.text, c.time FROM comments c JOIN bugs b ON b.id = c.bug_id "
+                    + "ORDER BY b.seq, c.comment_no";
+
+    private final String url;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    // Serialises all use of the connection, so that commits are written in order
+    private final Object writeLock = new Object();
+    private volatile boolean exists;
+    // Guarded by this
+    private Pending pending = new Pending();
+
+    /**
+     * Opens the database, creating it and its tables if necessary
+     *
+     * @param url JDBC URL of the database
+     * @throws IOException if the database cannot be opened
+     */
+    SqlStorageEngine(String url) throws IOException {
+        this.url = url;
+        try {
+            this.connection = DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            throw new IOException("Cannot open " + url + ": " + e.getMessage(), e);
+        }
+        try {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+            }
+            connection.commit();
+            this.exists = hasData();
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new IOException("Cannot create the tables in " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks whether the database holds any users, projects or bugs
+     */
+    private boolean hasData() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM users) "
+                     + "OR EXISTS (SELECT 1 FROM projects) OR EXISTS (SELECT 1 FROM bugs)")) {
+            return rows.next() && rows.getBoolean(1);
+        }
+    }
+
+    @Override
+    public boolean exists() {
+        return exists;
+    }
+
+    @Override
+    public int load(Consumer<User> users, Consumer<Project> projects, Consumer<Bug> bugs) throws IOException {
+        if (!exists) {
+            return -1;
+        }
+        synchronized (writeLock) {
+            try {
+                try (ResultSet rows = prepare(SELECT_USERS).executeQuery()) {
+                    while (rows.next()) {
+                        users.accept(new User(rows.getString(1), rows.getString(2),
+                                enumValue(Role.class, rows.getString(3))));
+                    }
+                }
+                try (ResultSet rows = prepare(SELECT_PROJECTS).executeQuery()) {
+                    while (rows.next()) {
+                        projects.accept(new Project(rows.getString(1), rows.getString(2), rows.getString(3)));
+                    }
+                }
+                return loadBugs(bugs);
+            } catch (SQLException e) {
+                throw new IOException("Cannot read from " + url + ": " + e.getMessage(), e);
+            } finally {
+                rollbackQuietly();
+            }
+        }
+    }
+
+    /**
+     * Reads the bugs, merging in their comments from a second query in the same order
+     */
+    private int loadBugs(Consumer<Bug> consumer) throws SQLException {
+        int count = 0;
+        try (ResultSet rows = prepare(SELECT_BUGS).executeQuery();
+             ResultSet comments = prepare(SELECT_COMMENTS).executeQuery()) {
+            boolean moreComments = comments.next();
+            while (rows.next()) {
+                Bug bug = new Bug();
+                bug.setId(rows.getString(1));
+                bug.setTitle(rows.getString(2));
+                bug.setDescription(rows.getString(3));
+                bug.setProjectId(rows.getString(4));
+                bug.setReporterId(rows.getString(5));
+                bug.setAssigneeId(rows.getString(6));
+                bug.setStatus(enumValue(Status.class, rows.getString(7)));
+                bug.setPriority(enumValue(Priority.class, rows.getString(8)));
+                bug.setCreatedTime(timestamp(rows, 9));
+                bug.setUpdatedTime(timestamp(rows, 10));
+                bug.setVersion(rows.getLong(11));
+
+                List<Comment> bugComments = null;
+                while (moreComments && bug.getId().equals(comments.getString(1))) {
+                    Comment comment = new Comment();
+                    comment.setAuthorId(comments.getString(2));
+                    comment.setText(comments.getString(3));
+                    comment.setTime(timestamp(comments, 4));
+                    if (bugComments == null) {
+                        bugComments = new ArrayList<>();
+                    }
+                    bugComments.add(comment);
+                    moreComments = comments.next();
+                }
+                bug.setComments(bugComments);
+
+                consumer.accept(bug);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long timestamp(ResultSet rows, int column) throws SQLException {
+        long value = rows.getLong(column);
+        return rows.wasNull() ? Timestamps.NONE : value;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Does nothing, since every commit is already in the database
+     */
+    @Override
+    public void recover(Consumer<User> users, Consumer<Project> projects, Consumer<Bug> bugs) {
+    }
+
+    /**
+     * Records a copy of the user, since the caller may still change it
+     */
+    @Override
+    public synchronized void putUser(User user) {
+        pending.users.put(user.getId(), new User(user.getId(), user.getUsername(), user.getRole()));
+    }
+
+    /**
+     * Records a copy of the project, since the caller may still change it
+     */
+    @Override
+    public synchronized void putProject(Project project) {
+        pending.projects.put(project.getId(),
+                new Project(project.getId(), project.getName(), project.getDescription()));
+    }
+
+    /**
+     * Records a copy of the bug, since the caller may still change it
+     */
+    @Override
+    public synchronized void putBug(Bug bug) {
+        pending.put(new Bug(bug));
+    }
+
+    /**
+     * Records copies of the bugs. They are written in the same transaction, as every
+     * change recorded before a commit is.
+     */
+    @Override
+    public synchronized void putBugs(List<Bug> bugs) {
+        for (Bug bug : bugs) {
+            pending.put(new Bug(bug));
+        }
+    }
+
+    /**
+     * Writes the changes recorded so far in one transaction. If it fails they are kept,
+     * merged with any recorded since, and written by the next commit.
+     *
+     * @param sync Whether to also write a database checkpoint to the storage device
+     */
+    @Override
+    public void commit(boolean sync) throws IOException {
+        synchronized (writeLock) {
+            Pending batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new Pending();
+            }
+
+            try {
+                write(batch.users.values(), batch.projects.values(), batch.bugs.values());
+                connection.commit();
+            } catch (SQLException e) {
+                rollbackQuietly();
+                synchronized (this) {
+                    batch.putAll(pending);
+                    pending = batch;
+                }
+                throw new IOException("Cannot write to " + url + ": " + e.getMessage(), e);
+            }
+
+            if (sync) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CHECKPOINT SYNC");
+                } catch (SQLException e) {
+                    throw new IOException("Cannot sync " + url + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes entities with batches of the prepared statements
+     */
+    private void write(Iterable<User> users, Iterable<Project> projects, Iterable<Bug> bugs) throws SQLException {
+        Batch putUser = new Batch(prepare(PUT_USER));
+        for (User user : users) {
+            PreparedStatement statement = putUser.statement;
+            statement.setString(1, user.getId());
+            statement.setString(2, user.getUsername());
+            statement.setString(3, name(user.getRole()));
+            putUser.add();
+        }
+        putUser.execute();
+
+        Batch putProject = new Batch(prepare(PUT_PROJECT));
+        for (Project project : projects) {
+            PreparedStatement statement = putProject.statement;
+            statement.setString(1, project.getId());
+            statement.setString(2, project.getName());
+            statement.setString(3, project.getDescription());
+            putProject.add();
+        }
+        putProject.execute();
+
+        Batch putBug = new Batch(prepare(PUT_BUG));
+        Batch putHeader = new Batch(prepare(PUT_BUG_HEADER));
+        Batch putComment = new Batch(prepare(PUT_COMMENT));
+        Batch deleteComments = new Batch(prepare(DELETE_COMMENTS));
+        for (Bug bug : bugs) {
+            Batch put = bug.isBodyLoaded() ? putBug : putHeader;
+            PreparedStatement statement = put.statement;
+            statement.setString(1, bug.getId());
+            statement.setString(2, bug.getTitle());
+            statement.setString(3, bug.getProjectId());
+            statement.setString(4, bug.getReporterId());
+            statement.setString(5, bug.getAssigneeId());
+            statement.setString(6, name(bug.getStatus()));
+            statement.setString(7, name(bug.getPriority()));
+            setTimestamp(statement, 8, bug.getCreatedTime());
+            setTimestamp(statement, 9, bug.getUpdatedTime());
+            statement.setLong(10, bug.getVersion());
+            if (!bug.isBodyLoaded()) {
+                putHeader.add();
+                continue;
+            }
+            statement.setString(11, bug.getDescription());
+            putBug.add();
+
+            List<Comment> comments = bug.getComments();
+            for (int i = 0; i < comments.size(); i++) {
+                Comment comment = comments.get(i);
+                statement = putComment.statement;
+                statement.setString(1, bug.getId());
+                statement.setInt(2, i);
+                statement.setString(3, comment.getAuthorId());
+                statement.setString(4, comment.getText());
+                setTimestamp(statement, 5, comment.getTime());
+                putComment.add();
+            }
+            deleteComments.statement.setString(1, bug.getId());
+            deleteComments.statement.setInt(2, comments.size());
+            deleteComments.add();
+        }
+        putBug.execute();
+        putHeader.execute();
+        putComment.execute();
+        deleteComments.execute();
+    }
+
+    private static void setTimestamp(PreparedStatement statement, int index, long timestamp) throws SQLException {
+        if (timestamp == Timestamps.NONE) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, timestamp);
+        }
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    /**
+     * Gets the prepared statement for the given SQL, preparing it on first use
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    @Override
+    public boolean isCheckpointDue() {
+        return false;
+    }
+
+    @Override
+    public int getChangesSinceCheckpoint() {
+        return 0;
+    }
+
+    /**
+     * Replaces the contents of all tables in one transaction
+     */
+    @Override
+    public void checkpoint(List<User> users, List<Project> projects, List<Bug> bugs) throws IOException {
+        synchronized (writeLock) {
+            synchronized (this) {
+                pending = new Pending();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM comments");
+                statement.executeUpdate("DELETE FROM bugs");
+                statement.executeUpdate("DELETE FROM projects");
+                statement.executeUpdate("DELETE FROM users");
+                write(users, projects, bugs != null ? bugs : List.of());
+                connection.commit();
+                exists = true;
+            } catch (SQLException e) {
+                rollbackQuietly();
+                throw new IOException("Cannot write to " + url + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Commits any changes a failed commit left behind and closes the database
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            try {
+                commit(false);
+            } finally {
+                closeQuietly();
+            }
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back " + url + ": " + e.getMessage());
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing " + url + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prepared statement with a batch of parameter sets that is executed once it is full
+     */
+    private static class Batch {
+        final PreparedStatement statement;
+        int size;
+
+        Batch(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        void add() throws SQLException {
+            statement.addBatch();
+            if (++size == BATCH_SIZE) {
+                execute();
+            }
+        }
+
+        void execute() throws SQLException {
+            if (size > 0) {
+                statement.executeBatch();
+                size = 0;
+            }
+        }
+    }
+
+    /**
+     * Changes recorded since the last commit, by ID, so that only the latest change of
+     * an entity is written
+     */
+    private static class Pending {
+        final Map<String, User> users = new LinkedHashMap<>();
+        final Map<String, Project> projects = new LinkedHashMap<>();
+        final Map<String, Bug> bugs = new LinkedHashMap<>();
+
+        void put(Bug bug) {
+            Bug previous = bugs.get(bug.getId());
+            if (!bug.isBodyLoaded() && previous != null && previous.isBodyLoaded()) {
+                // A header leaves the body that is still to be written unchanged
+                bug = bug.withBody(previous.getDescription(), previous.getComments());
+            }
+            bugs.put(bug.getId(), bug);
+        }
+
+        /**
+         * Adds the changes recorded after these ones
+         */
+        void putAll(Pending later) {
+            users.putAll(later.users);
+            projects.putAll(later.projects);
+            later.bugs.values().forEach(this::put);
+        }
+
+        boolean isEmpty() {
+            return users.isEmpty() && projects.isEmpty() && bugs.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bugtracker.repository;
+
+/**
+ * Enumeration of the storage engines the repository can persist its data with.
+ */
+public enum StorageBackend {
+    /**
+     * Keeps all data in the JSON data file, optionally with a journal of recent changes
+     */
+    JSON,
+
+    /**
+     * Keeps all data in an embedded H2 database next to the data file
+     */
+    SQL
+}
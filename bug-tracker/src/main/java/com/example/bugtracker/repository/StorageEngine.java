@@ -0,0 +1,96 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Project;
+import com.example.bugtracker.model.User;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Durable storage beneath the repository. The repository keeps its working copy and
+ * indexes in memory; the engine loads the stored data when the repository opens,
+ * records each change as it is made, and makes recorded changes durable when they are
+ * committed.
+ * <p>
+ * Changes are recorded while the repository holds the lock of the changed entity, so
+ * recording should not wait for I/O; commits and checkpoints are made without it.
+ * A checkpoint replaces the stored data with a complete copy, and is requested when
+ * the engine reports it due, when recording a change failed, and on first use.
+ * The repository never records changes during a checkpoint.
+ * <p>
+ * The repository chooses an engine according to {@link RepositoryConfig#getBackend()},
+ * unless one is supplied with {@link RepositoryConfig#setStorageEngine(StorageEngine)}.
+ */
+public interface StorageEngine extends Closeable {
+    /**
+     * Checks whether the engine holds stored data, as opposed to being used for the first time
+     */
+    boolean exists();
+
+    /**
+     * Reads the data stored at the last checkpoint, passing each entity to the matching
+     * consumer in the order it was first stored
+     *
+     * @return The number of bugs read, or -1 if no data is stored
+     */
+    int load(Consumer<User> users, Consumer<Project> projects, Consumer<Bug> bugs) throws IOException;
+
+    /**
+     * Reads the changes committed since the last checkpoint, in the order they were made.
+     * Called after {@link #load}, or after default data was created in place of it.
+     * A bug passed as a header replaces only the header of the loaded bug.
+     */
+    void recover(Consumer<User> users, Consumer<Project> projects, Consumer<Bug> bugs) throws IOException;
+
+    /**
+     * Records a new or changed user
+     */
+    void putUser(User user) throws IOException;
+
+    /**
+     * Records a new or changed project
+     */
+    void putProject(Project project) throws IOException;
+
+    /**
+     * Records a new or changed bug. A header, see {@link Bug#isBodyLoaded()}, changes
+     * the header of the stored bug and keeps its description and comments.
+     */
+    void putBug(Bug bug) throws IOException;
+
+    /**
+     * Records bugs changed together, which must become durable together
+     *
+     * @param bugs Bugs that are either all headers or all complete
+     */
+    void putBugs(List<Bug> bugs) throws IOException;
+
+    /**
+     * Makes the changes recorded so far durable
+     *
+     * @param sync Whether to also force them to the storage device
+     */
+    void commit(boolean sync) throws IOException;
+
+    /**
+     * Checks whether the repository should write a checkpoint after the last commit
+     */
+    boolean isCheckpointDue();
+
+    /**
+     * Gets the number of changes committed since the last checkpoint that the next
+     * checkpoint would fold into the stored data. The repository writes a checkpoint
+     * on closing if there are any.
+     */
+    int getChangesSinceCheckpoint();
+
+    /**
+     * Replaces the stored data with the given entities and discards the changes recorded so far
+     *
+     * @param bugs The bugs with their bodies, or null if they are persisted elsewhere,
+     *             as they are in {@link StorageMode#MAPPED} storage mode
+     */
+    void checkpoint(List<User> users, List<Project> projects, List<Bug> bugs) throws IOException;
+}
@@ -0,0 +1,23 @@
+package com.example.bugtracker.repository;
+
+/**
+ * Enumeration of the places the repository can keep bugs while it is running.
+ */
+public enum StorageMode {
+    /**
+     * Keeps every bug in memory
+     */
+    MEMORY,
+
+    /**
+     * Keeps bugs in a file next to the data file and only a bounded number of
+     * recently used bugs in memory
+     */
+    DISK,
+
+    /**
+     * Keeps bugs in memory-mapped binary segment files next to the data file, which
+     * persist them in place of the data file
+     */
+    MAPPED
+}
@@ -0,0 +1,58 @@
+package com.example.bugtracker.repository;
+
+import java.util.List;
+
+/**
+ * Insertion-ordered collection of entities addressed both by ID and by a dense
+ * ordinal, their position in insertion order. Implementations are safe for concurrent
+ * use; callers must serialise replacements of the same entity themselves.
+ *
+ * @param <T> Entity type
+ */
+interface Table<T> {
+    /**
+     * Gets the entity with the given ID, or null if there is none
+     */
+    T get(String id);
+
+    /**
+     * Gets the entity at the given ordinal
+     */
+    T get(int ordinal);
+
+    /**
+     * Gets the ordinal of the entity with the given ID, or -1 if there is none
+     */
+    int ordinalOf(String id);
+
+    /**
+     * Inserts the entity, or replaces the existing entity with the same ID.
+     * The entity it replaces is not read, which for a table on disk would cost a read.
+     *
+     * @return true if an entity was replaced, false if the entity was appended
+     */
+    boolean put(T item);
+
+    /**
+     * Replaces the existing entity with the same ID, without reading it
+     *
+     * @return true if the entity was replaced, false if no entity has that ID
+     */
+    boolean replace(T item);
+
+    /**
+     * Removes all entities from the table
+     */
+    void clear();
+
+    /**
+     * Gets the number of entities in the table
+     */
+    int size();
+
+    /**
+     * Gets an insertion-ordered list of the entities currently in the table, without
+     * copying them. Whether later writes show through depends on the implementation.
+     */
+    List<T> snapshot();
+}
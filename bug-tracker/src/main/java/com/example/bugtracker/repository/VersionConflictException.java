@@ -0,0 +1,33 @@
+package com.example.bugtracker.repository;
+
+/**
+ * Thrown when an edited copy of a bug is stored after someone else has already
+ * changed the bug, so storing it would overwrite their change.
+ */
+public class VersionConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String bugId;
+    private final long expectedVersion;
+    private final long currentVersion;
+
+    public VersionConflictException(String bugId, long expectedVersion, long currentVersion) {
+        super("Bug " + bugId + " was changed concurrently (expected version " + expectedVersion
+                + ", found " + currentVersion + ")");
+        this.bugId = bugId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getBugId() {
+        return bugId;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.bugtracker.service;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+/**
+ * Writes bugs to a CSV or NDJSON stream one at a time, as they are read from a cursor,
+ * so an export needs no more memory for a million bugs than for ten.
+ * <p>
+ * Both formats use the field names of a bug, so an export can be imported again
+ * with {@link BugImporter}. NDJSON records also include each bug's comments, which are
+ * imported with it. Imported bugs keep their IDs unless the repository has issued them.
+ */
+class BugExporter {
+    private static final String[] COLUMNS = {"id", "title", "description", "projectId", "reporterId",
+            "assigneeId", "status", "priority", "createdDate", "updatedDate"};
+
+    private final FileFormat format;
+
+    BugExporter(FileFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Writes every bug the iterator yields
+     *
+     * @return The number of bugs written
+     */
+    long export(Iterator<Bug> bugs, Writer out) throws IOException {
+        long count = 0;
+        if (format == FileFormat.CSV) {
+            out.write(String.join(",", COLUMNS));
+            out.write('\n');
+            while (bugs.hasNext()) {
+                writeCsv(bugs.next(), out);
+                count++;
+            }
+        } else {
+            // Lenient so that the writer accepts one top-level object per line
+            JsonWriter json = new JsonWriter(out);
+            json.setLenient(true);
+            while (bugs.hasNext()) {
+                writeJson(bugs.next(), json);
+                out.write('\n');
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    private static void writeCsv(Bug bug, Writer out) throws IOException {
+        String[] cells = {bug.getId(), bug.getTitle(), bug.getDescription(), bug.getProjectId(),
+                bug.getReporterId(), bug.getAssigneeId(), String.valueOf(bug.getStatus()),
+                String.valueOf(bug.getPriority()), format(bug.getCreatedDate()), format(bug.getUpdatedDate())};
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeCell(cells[i], out);
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Writes a cell, quoting it when it contains a separator, a quote or a line break
+     */
+    private static void writeCell(String cell, Writer out) throws IOException {
+        if (cell == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < cell.length() && !quote; i++) {
+            char c = cell.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(cell);
+            return;
+        }
+        out.write('"');
+        out.write(cell.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static void writeJson(Bug bug, JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("id").value(bug.getId());
+        json.name("title").value(bug.getTitle());
+        json.name("description").value(bug.getDescription());
+        json.name("projectId").value(bug.getProjectId());
+        json.name("reporterId").value(bug.getReporterId());
+        json.name("assigneeId").value(bug.getAssigneeId());
+        json.name("status").value(String.valueOf(bug.getStatus()));
+        json.name("priority").value(String.valueOf(bug.getPriority()));
+        json.name("createdDate").value(format(bug.getCreatedDate()));
+        json.name("updatedDate").value(format(bug.getUpdatedDate()));
+        json.name("comments").beginArray();
+        for (Comment comment : bug.getComments()) {
+            json.beginObject();
+            json.name("authorId").value(comment.getAuthorId());
+            json.name("text").value(comment.getText());
+            json.name("timestamp").value(format(comment.getTimestamp()));
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static String format(LocalDateTime time) {
+        return time != null ? time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.bugtracker.service;
+
+import com.example.bugtracker.event.BugEvent;
+import com.example.bugtracker.event.EventBus;
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.Project;
+import com.example.bugtracker.model.User;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Role;
+import com.example.bugtracker.model.enums.Status;
+import com.example.bugtracker.repository.DataRepository;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports bugs from a CSV or NDJSON stream in three overlapping stages.
+ * The calling thread splits the input into chunks of records. A pool of workers
+ * parses and validates the chunks in parallel, resolving projects and users through
+ * the repository's indexes. The calling thread then stores the valid bugs in input
+ * order, in batches: each batch takes one block of IDs and is persisted with one commit.
+ * <p>
+ * Records use the field names of a bug: id, title, description, projectId, reporterId,
+ * assigneeId, status, priority, createdDate and updatedDate. Only title, projectId and
+ * reporterId are required. A project may also be given by name and a user by username.
+ * NDJSON records may also carry comments, as exports do, each with an authorId, text
+ * and timestamp. A bug keeps its numeric id when the repository has not issued it yet,
+ * and is given a new one otherwise. Invalid records are skipped and reported with
+ * their line numbers.
+ */
+class BugImporter {
+    private static final int CHUNK_SIZE = 2_000;
+    private static final String[] FIELDS = {"title", "description", "projectId", "reporterId",
+            "assigneeId", "status", "priority", "createdDate", "updatedDate", "id"};
+    private static final int TITLE = 0;
+    private static final int DESCRIPTION = 1;
+    private static final int PROJECT = 2;
+    private static final int REPORTER = 3;
+    private static final int ASSIGNEE = 4;
+    private static final int STATUS = 5;
+    private static final int PRIORITY = 6;
+    private static final int CREATED = 7;
+    private static final int UPDATED = 8;
+    private static final int ID = 9;
+
+    private final DataRepository repository;
+    private final EventBus events;
+    private final FileFormat format;
+    private final int batchSize;
+    private final Map<String, Project> projectsByName = new HashMap<>();
+    private final LocalDateTime importTime = LocalDateTime.now();
+    // Position of each field in a CSV record, or -1 if the column is missing
+    private int[] columns;
+
+    BugImporter(DataRepository repository, EventBus events, FileFormat format, int batchSize) {
+        this.repository = repository;
+        this.events = events;
+        this.format = format;
+        this.batchSize = batchSize;
+        for (Project project : repository.getAllProjects()) {
+            projectsByName.put(project.getName().toLowerCase(Locale.ROOT), project);
+        }
+    }
+
+    /**
+     * Imports every record of the input
+     */
+    ImportReport run(BufferedReader input) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads);
+        // Bounds the records held in memory while storing falls behind parsing
+        ArrayDeque<Future<ParsedChunk>> pending = new ArrayDeque<>();
+        List<Bug> batch = new ArrayList<>(batchSize);
+        try {
+            RecordReader reader = new RecordReader(input);
+            if (format == FileFormat.CSV) {
+                String header = reader.next();
+                if (header == null) {
+                    throw new IllegalArgumentException("The file is empty");
+                }
+                columns = mapColumns(header);
+            }
+
+            Chunk chunk;
+            while ((chunk = reader.nextChunk()) != null) {
+                Chunk records = chunk;
+                pending.add(parsers.submit(() -> parse(records)));
+                if (pending.size() >= 2 * threads) {
+                    collect(pending.poll(), batch, report);
+                }
+            }
+            while (!pending.isEmpty()) {
+                collect(pending.poll(), batch, report);
+            }
+            if (!batch.isEmpty()) {
+                store(batch, report);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private void collect(Future<ParsedChunk> future, List<Bug> batch, ImportReport report) throws IOException {
+        ParsedChunk parsed;
+        try {
+            parsed = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error parsing import file", e.getCause());
+        }
+        report.addSkipped(parsed.errors.size(), parsed.errors);
+        for (Bug bug : parsed.bugs) {
+            batch.add(bug);
+            if (batch.size() == batchSize) {
+                store(batch, report);
+            }
+        }
+    }
+
+    /**
+     * Numbers the bugs of a batch that cannot keep their IDs from one block of IDs, and
+     * stores the batch with a single commit
+     */
+    private void store(List<Bug> batch, ImportReport report) {
+        int unnumbered = 0;
+        for (Bug bug : batch) {
+            if (bug.getId() == null || !repository.claimBugId(bug.getId())) {
+                bug.setId(null);
+                unnumbered++;
+            }
+        }
+        long nextId = unnumbered > 0 ? repository.reserveBugIds(unnumbered) : 0;
+        for (Bug bug : batch) {
+            if (bug.getId() == null) {
+                bug.setId(String.valueOf(nextId++));
+            }
+        }
+        repository.addBugs(batch);
+        for (Bug bug : batch) {
+            events.publish(new BugEvent(BugEvent.Type.CREATED, bug, null));
+        }
+        report.addImported(batch.size());
+        batch.clear();
+    }
+
+    private int[] mapColumns(String header) {
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        int[] positions = new int[FIELDS.length];
+        for (int field = 0; field < FIELDS.length; field++) {
+            positions[field] = -1;
+            for (int i = 0; i < names.size(); i++) {
+                if (names.get(i).trim().equalsIgnoreCase(FIELDS[field])) {
+                    positions[field] = i;
+                }
+            }
+        }
+        for (int field : new int[]{TITLE, PROJECT, REPORTER}) {
+            if (positions[field] < 0) {
+                throw new IllegalArgumentException("Missing column '" + FIELDS[field] + "' in header");
+            }
+        }
+        return positions;
+    }
+
+    private ParsedChunk parse(Chunk chunk) {
+        ParsedChunk parsed = new ParsedChunk(chunk.records.size());
+        for (int i = 0; i < chunk.records.size(); i++) {
+            try {
+                parsed.bugs.add(toBug(chunk.records.get(i)));
+            } catch (IllegalArgumentException | JsonParseException | IllegalStateException
+                     | UnsupportedOperationException | DateTimeParseException e) {
+                parsed.errors.add("Line " + chunk.lines[i] + ": " + e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Validates a record and turns it into a bug, with its comments if it has any
+     */
+    private Bug toBug(String record) {
+        if (format == FileFormat.CSV) {
+            return toBug(fields(splitCsv(record)));
+        }
+        JsonObject object = JsonParser.parseString(record).getAsJsonObject();
+        Bug bug = toBug(fields(object));
+        JsonElement comments = object.get("comments");
+        if (comments != null && !comments.isJsonNull()) {
+            bug.setComments(toComments(comments.getAsJsonArray()));
+        }
+        return bug;
+    }
+
+    private String[] fields(List<String> cells) {
+        String[] values = new String[FIELDS.length];
+        for (int field = 0; field < FIELDS.length; field++) {
+            int column = columns[field];
+            values[field] = column >= 0 && column < cells.size() ? cells.get(column) : null;
+        }
+        return trim(values);
+    }
+
+    private static String[] fields(JsonObject object) {
+        String[] values = new String[FIELDS.length];
+        for (int field = 0; field < FIELDS.length; field++) {
+            values[field] = string(object, FIELDS[field]);
+        }
+        return trim(values);
+    }
+
+    private static String string(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value != null && !value.isJsonNull() ? value.getAsString() : null;
+    }
+
+    private static String[] trim(String[] values) {
+        for (int field = 0; field < FIELDS.length; field++) {
+            if (values[field] != null) {
+                values[field] = values[field].trim();
+                if (values[field].isEmpty()) {
+                    values[field] = null;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Validates the fields of a record and turns them into a bug, which has the ID of the
+     * record if it gives one
+     */
+    private Bug toBug(String[] values) {
+        if (values[TITLE] == null) {
+            throw new IllegalArgumentException("Missing title");
+        }
+        Project project = findProject(values[PROJECT]);
+        User reporter = findUser(values[REPORTER], "reporter");
+        User assignee = values[ASSIGNEE] != null ? findUser(values[ASSIGNEE], "assignee") : null;
+        if (assignee != null && assignee.getRole() != Role.DEVELOPER) {
+            throw new IllegalArgumentException("Assignee " + values[ASSIGNEE] + " is not a developer");
+        }
+
+        Bug bug = new Bug();
+        bug.setId(values[ID]);
+        bug.setTitle(values[TITLE]);
+        bug.setDescription(values[DESCRIPTION] != null ? values[DESCRIPTION] : "");
+        bug.setProjectId(project.getId());
+        bug.setReporterId(reporter.getId());
+        bug.setAssigneeId(assignee != null ? assignee.getId() : null);
+        bug.setStatus(values[STATUS] != null ? enumValue(Status.class, values[STATUS]) : Status.NEW);
+        bug.setPriority(values[PRIORITY] != null ? enumValue(Priority.class, values[PRIORITY]) : Priority.MEDIUM);
+        LocalDateTime created = values[CREATED] != null ? LocalDateTime.parse(values[CREATED]) : importTime;
+        bug.setCreatedDate(created);
+        bug.setUpdatedDate(values[UPDATED] != null ? LocalDateTime.parse(values[UPDATED]) : created);
+        return bug;
+    }
+
+    private List<Comment> toComments(JsonArray array) {
+        List<Comment> comments = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            JsonObject object = element.getAsJsonObject();
+            User author = findUser(string(object, "authorId"), "comment author");
+            String text = string(object, "text");
+            String timestamp = string(object, "timestamp");
+            comments.add(new Comment(author.getId(), text != null ? text : "",
+                    timestamp != null ? LocalDateTime.parse(timestamp) : importTime));
+        }
+        return comments;
+    }
+
+    private Project findProject(String reference) {
+        if (reference == null) {
+            throw new IllegalArgumentException("Missing projectId");
+        }
+        Project project = repository.getProjectById(reference);
+        if (project == null) {
+            project = projectsByName.get(reference.toLowerCase(Locale.ROOT));
+        }
+        if (project == null) {
+            throw new IllegalArgumentException("Unknown project " + reference);
+        }
+        return project;
+    }
+
+    private User findUser(String reference, String role) {
+        if (reference == null) {
+            throw new IllegalArgumentException("Missing " + role + "Id");
+        }
+        User user = repository.getUserById(reference);
+        if (user == null) {
+            user = repository.getUserByUsername(reference);
+        }
+        if (user == null) {
+            throw new IllegalArgumentException("Unknown " + role + " " + reference);
+        }
+        return user;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT)
+                    + " " + name);
+        }
+    }
+
+    /**
+     * Splits a CSV record into its cells. Cells may be quoted, in which case they can
+     * contain commas, line breaks and doubled quotes.
+     */
+    static List<String> splitCsv(String record) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    cell.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    /**
+     * Reads whole records, joining the lines of CSV records whose quoted cells contain
+     * line breaks. Only counts quotes, leaving the real parsing to the workers.
+     */
+    private class RecordReader {
+        private final BufferedReader input;
+        private int lineNumber;
+        private int recordLine;
+
+        RecordReader(BufferedReader input) {
+            this.input = input;
+        }
+
+        String next() throws IOException {
+            String line;
+            do {
+                line = input.readLine();
+                lineNumber++;
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            recordLine = lineNumber;
+            if (format != FileFormat.CSV || quoteCount(line) % 2 == 0) {
+                return line;
+            }
+
+            StringBuilder record = new StringBuilder(line);
+            int quotes = quoteCount(line);
+            while (quotes % 2 != 0 && (line = input.readLine()) != null) {
+                lineNumber++;
+                record.append('\n').append(line);
+                quotes += quoteCount(line);
+            }
+            return record.toString();
+        }
+
+        Chunk nextChunk() throws IOException {
+            Chunk chunk = new Chunk();
+            String record;
+            while (chunk.records.size() < CHUNK_SIZE && (record = next()) != null) {
+                chunk.lines[chunk.records.size()] = recordLine;
+                chunk.records.add(record);
+            }
+            return chunk.records.isEmpty() ? null : chunk;
+        }
+
+        private int quoteCount(String line) {
+            int count = 0;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == '"') {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Raw records handed to a worker, with the line each one starts on
+     */
+    private static class Chunk {
+        final List<String> records = new ArrayList<>(CHUNK_SIZE);
+        final int[] lines = new int[CHUNK_SIZE];
+    }
+
+    private static class ParsedChunk {
+        final List<Bug> bugs;
+        final List<String> errors = new ArrayList<>();
+
+        ParsedChunk(int size) {
+            this.bugs = new ArrayList<>(size);
+        }
+    }
+}
@@ -1,24 +1,80 @@
 package com.example.bugtracker.service;
 
+import com.example.bugtracker.event.BugEvent;
+import com.example.bugtracker.event.EventBus;
 import com.example.bugtracker.model.*;
 import com.example.bugtracker.model.enums.*;
+import com.example.bugtracker.repository.AgingReport;
+import com.example.bugtracker.repository.BugCursor;
+import com.example.bugtracker.repository.BugQuery;
 import com.example.bugtracker.repository.DataRepository;
+import com.example.bugtracker.repository.FacetCounts;
+import com.example.bugtracker.repository.VersionConflictException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Service class for bug-related business logic.
  * Handles bug creation, assignment, status updates, and comment management.
+ * Every change that is stored is published as a {@link BugEvent} on the service's
+ * event bus once the repository has accepted it.
  */
 public class BugService {
+    private static final double DUPLICATE_SIMILARITY = 0.4;
+    private static final int MAX_UPDATE_ATTEMPTS = 16;
+    private static final int IMPORT_BATCH_SIZE = 50_000;
+
     private final DataRepository repository;
+    private final EventBus events;
 
     /**
-     * Creates a new BugService with the specified repository
+     * Creates a new BugService with the specified repository and an event bus of its own
      */
     public BugService(DataRepository repository) {
+        this(repository, new EventBus());
+    }
+
+    /**
+     * Creates a new BugService that publishes changes on the given event bus
+     */
+    public BugService(DataRepository repository, EventBus events) {
         this.repository = repository;
+        this.events = events;
+    }
+
+    /**
+     * Gets the bus on which changes to bugs are published
+     */
+    public EventBus getEvents() {
+        return events;
     }
 
     /**
@@ -36,9 +92,137 @@ public class BugService {
         String bugId = repository.getNextBugId();
         Bug bug = new Bug(bugId, title, description, projectId, reporterId, priority);
         repository.addBug(bug);
+        events.publish(new BugEvent(BugEvent.Type.CREATED, bug, null));
         return bug;
     }
 
+    /**
+     * Imports bugs from a CSV or NDJSON file, as when migrating from another tracker.
+     * The format is chosen by the file's extension, and a further .gz extension means
+     * the file is gzip-compressed. Records are parsed and validated in parallel, and
+     * the valid ones are stored in batches that are each persisted with one commit.
+     * 
+     * @param file The file to import
+     * @return The number of bugs imported and skipped, and the import rate
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file type is not recognised, or a CSV
+     *                                  file lacks a required column
+     */
+    public ImportReport importBugs(File file) throws IOException {
+        FileFormat format = FileFormat.fromFileName(file.getName());
+        try (InputStream input = new FileInputStream(file);
+             Reader reader = new InputStreamReader(FileFormat.isCompressed(file.getName())
+                     ? new GZIPInputStream(input, 64 * 1024) : input, StandardCharsets.UTF_8)) {
+            return importBugs(reader, format);
+        }
+    }
+
+    /**
+     * Imports bugs from a stream of CSV or NDJSON records
+     * 
+     * @param input  The records to import; CSV input starts with a header row
+     * @param format The format of the records
+     * @return The number of bugs imported and skipped, and the import rate
+     * @throws IOException if the input cannot be read
+     * @see #importBugs(File)
+     */
+    public ImportReport importBugs(Reader input, FileFormat format) throws IOException {
+        BufferedReader reader = new BufferedReader(input, 64 * 1024);
+        return new BugImporter(repository, events, format, IMPORT_BATCH_SIZE).run(reader);
+    }
+
+    /**
+     * Exports the bugs matching a query to a CSV or NDJSON file, chosen by the file's
+     * extension and gzip-compressed if it ends in .gz. The bugs are written as they are
+     * read from a snapshot of the repository, so the export holds no locks and, for an
+     * unsorted query, needs the same small amount of memory however many bugs match.
+     * The file is written under a temporary name and only replaces an existing file once
+     * it is complete.
+     * 
+     * @param query The bugs to export
+     * @param file  The file to write
+     * @return The number of bugs exported
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the file type is not recognised
+     */
+    public long exportBugs(BugQuery query, File file) throws IOException {
+        FileFormat format = FileFormat.fromFileName(file.getName());
+        File tempFile = new File(file.getPath() + ".tmp");
+        long count;
+        try (OutputStream output = new FileOutputStream(tempFile);
+             Writer writer = new OutputStreamWriter(FileFormat.isCompressed(file.getName())
+                     ? compress(output) : output, StandardCharsets.UTF_8)) {
+            count = exportBugs(query, writer, format);
+        } catch (IOException | RuntimeException e) {
+            tempFile.delete();
+            throw e;
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Wraps a stream in a gzip compressor that favours speed: a nightly export is
+     * compressed once and mostly read by tools
+     */
+    private static OutputStream compress(OutputStream output) throws IOException {
+        return new GZIPOutputStream(output, 64 * 1024) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        };
+    }
+
+    /**
+     * Exports the bugs matching a query as a stream of CSV or NDJSON records
+     * 
+     * @param query  The bugs to export
+     * @param output Receives the records; it is flushed but not closed
+     * @param format The format to write
+     * @return The number of bugs exported
+     * @throws IOException if the output cannot be written
+     * @see #exportBugs(BugQuery, File)
+     */
+    public long exportBugs(BugQuery query, Writer output, FileFormat format) throws IOException {
+        return new BugExporter(format).export(withBodies(repository.query(query)),
+                new BufferedWriter(output, 64 * 1024));
+    }
+
+    /**
+     * Loads the description and comments of each bug as it is iterated. Listings such
+     * as {@link #queryBugs} and {@link #searchBugs} return bugs without them.
+     * 
+     * @param bugs Bugs returned by this service
+     * @return The same bugs, each with its description and comments
+     */
+    public Iterator<Bug> withBodies(Iterator<Bug> bugs) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return bugs.hasNext();
+            }
+
+            @Override
+            public Bug next() {
+                return repository.withBody(bugs.next());
+            }
+        };
+    }
+
+    /**
+     * Finds existing bugs in the same project that are likely duplicates of a new report.
+     * Intended to be called before {@link #createBug} so the reporter can review them.
+     * 
+     * @param title       The title of the new bug
+     * @param description The detailed description of the new bug
+     * @param projectId   The ID of the project the bug would belong to
+     * @return Likely duplicates, most similar first
+     */
+    public List<Bug> findPossibleDuplicates(String title, String description, String projectId) {
+        return repository.findSimilarBugs(projectId, title, description, DUPLICATE_SIMILARITY, 5);
+    }
+
     /**
      * Gets all bugs in the system
      * 
@@ -59,13 +243,66 @@ public class BugService {
     }
 
     /**
-     * Gets a bug by its ID
+     * Finds bugs matching a combination of filters, in the requested order
+     * 
+     * @param query The filters, sort order and page window to apply
+     * @return Cursor that yields the matching bugs, without their descriptions and
+     *         comments, as it is advanced
+     */
+    public BugCursor queryBugs(BugQuery query) {
+        return repository.query(query);
+    }
+
+    /**
+     * Counts the bugs in a project for every combination of status and priority
+     * 
+     * @param projectId The project to count bugs in
+     * @return Counts per status and priority
+     */
+    public FacetCounts getBugCounts(String projectId) {
+        return repository.getFacetCounts(projectId);
+    }
+
+    /**
+     * Counts the bugs in a project by status and by how long ago they were reported
+     * 
+     * @param projectId The project to report on, or null for all projects
+     * @return Counts and average ages per status
+     */
+    public AgingReport getAgingReport(String projectId) {
+        return repository.getAgingReport(projectId);
+    }
+
+    /**
+     * Counts the bugs assigned to each developer in a project by status and priority
+     * 
+     * @param projectId The project to count bugs in, or null for all projects
+     * @return Counts keyed by developer ID, for every developer with bugs assigned
+     */
+    public Map<String, FacetCounts> getWorkload(String projectId) {
+        return repository.getFacetCountsByAssignee(projectId);
+    }
+
+    /**
+     * Gets a bug by its ID, with its description and comments
      * 
      * @param bugId The bug ID to look for
      * @return Bug with the specified ID or null if not found
      */
     public Bug getBugById(String bugId) {
-        return repository.getBugById(bugId);
+        return repository.getBugWithBody(bugId);
+    }
+
+    /**
+     * Searches bug titles, descriptions and comments
+     * 
+     * @param query     The words to search for; the last word also matches as a prefix
+     * @param projectId The project to search in, or null to search all projects
+     * @param limit     The maximum number of results
+     * @return Matching bugs, most relevant first, without their descriptions and comments
+     */
+    public List<Bug> searchBugs(String query, String projectId, int limit) {
+        return repository.searchBugs(query, projectId, limit);
     }
 
     /**
@@ -76,13 +313,21 @@ public class BugService {
      * @return true if assignment successful, false otherwise
      */
     public boolean assignBug(String bugId, String developerId) {
-        Bug bug = getBugById(bugId);
-        if (bug != null) {
-            bug.assignTo(developerId);
-            repository.updateBug(bug);
-            return true;
-        }
-        return false;
+        return modifyBug(bugId, BugEvent.Type.ASSIGNED, bug -> bug.assignTo(developerId));
+    }
+
+    /**
+     * Assigns a bug to a developer, provided the bug has not changed since the
+     * caller read it
+     * 
+     * @param bugId           The ID of the bug to assign
+     * @param developerId     The ID of the developer to assign to
+     * @param expectedVersion The version of the bug the caller based the decision on
+     * @return true if assignment successful, false if the bug does not exist
+     * @throws VersionConflictException if the bug was changed in the meantime
+     */
+    public boolean assignBug(String bugId, String developerId, long expectedVersion) {
+        return modifyBug(bugId, expectedVersion, BugEvent.Type.ASSIGNED, bug -> bug.assignTo(developerId));
     }
 
     /**
@@ -93,13 +338,21 @@ public class BugService {
      * @return true if update successful, false otherwise
      */
     public boolean updateBugStatus(String bugId, Status newStatus) {
-        Bug bug = getBugById(bugId);
-        if (bug != null) {
-            bug.updateStatus(newStatus);
-            repository.updateBug(bug);
-            return true;
-        }
-        return false;
+        return modifyBug(bugId, BugEvent.Type.STATUS_CHANGED, bug -> bug.updateStatus(newStatus));
+    }
+
+    /**
+     * Updates the status of a bug, provided the bug has not changed since the
+     * caller read it
+     * 
+     * @param bugId           The ID of the bug to update
+     * @param newStatus       The new status for the bug
+     * @param expectedVersion The version of the bug the caller based the decision on
+     * @return true if update successful, false if the bug does not exist
+     * @throws VersionConflictException if the bug was changed in the meantime
+     */
+    public boolean updateBugStatus(String bugId, Status newStatus, long expectedVersion) {
+        return modifyBug(bugId, expectedVersion, BugEvent.Type.STATUS_CHANGED, bug -> bug.updateStatus(newStatus));
     }
 
     /**
@@ -111,14 +364,226 @@ public class BugService {
      * @return true if comment added successfully, false otherwise
      */
     public boolean addComment(String bugId, String authorId, String text) {
-        Bug bug = getBugById(bugId);
-        if (bug != null) {
-            Comment comment = new Comment(authorId, text, LocalDateTime.now());
-            bug.addComment(comment);
-            repository.updateBug(bug);
-            return true;
+        Comment comment = new Comment(authorId, text, LocalDateTime.now());
+        return modifyBug(bugId, BugEvent.Type.COMMENTED, bug -> bug.addComment(comment));
+    }
+
+    /**
+     * Applies a change to a copy of the latest version of a bug and stores it,
+     * starting again from the new latest version whenever another change got in first
+     */
+    private boolean modifyBug(String bugId, BugEvent.Type type, Consumer<Bug> change) {
+        for (int attempt = 1; ; attempt++) {
+            Bug bug = repository.getBugById(bugId);
+            if (bug == null) {
+                return false;
+            }
+            try {
+                return modifyBug(bugId, bug.getVersion(), type, change);
+            } catch (VersionConflictException e) {
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    System.err.println("Giving up updating bug " + bugId + ": " + e.getMessage());
+                    return false;
+                }
+            }
+        }
+    }
+
+    private boolean modifyBug(String bugId, long expectedVersion, BugEvent.Type type, Consumer<Bug> change) {
+        Bug current = latest(bugId, type);
+        if (current == null) {
+            return false;
+        }
+        if (current.getVersion() != expectedVersion) {
+            throw new VersionConflictException(bugId, expectedVersion, current.getVersion());
+        }
+        Bug updated = new Bug(current);
+        change.accept(updated);
+        if (!repository.compareAndSetBug(updated)) {
+            return false;
+        }
+        // Published outside the repository's locks, so a full ring never holds up other writers
+        events.publish(new BugEvent(type, updated, current));
+        return true;
+    }
+
+    /**
+     * Gets the stored version of a bug to base a change on. Only a comment changes the
+     * body of a bug, so for other changes the header is enough.
+     */
+    private Bug latest(String bugId, BugEvent.Type type) {
+        return type == BugEvent.Type.COMMENTED ? repository.getBugWithBody(bugId) : repository.getBugById(bugId);
+    }
+
+    /**
+     * Assigns several bugs to a developer as one atomic change with a single commit.
+     * Either every bug is assigned or, if any of them cannot be, none is.
+     * 
+     * @param actor       The user making the change, who must be a project manager
+     * @param bugIds      The IDs of the bugs to assign, each in NEW or IN_PROGRESS status
+     * @param developerId The ID of the developer to assign them to
+     * @return The number of bugs assigned
+     * @throws BulkOperationException if the change is not allowed, listing every reason
+     */
+    public int assignBugs(User actor, Collection<String> bugIds, String developerId) {
+        return assignBugs(actor, () -> bugIds, developerId);
+    }
+
+    /**
+     * Moves every open bug (NEW or IN_PROGRESS) of one developer to another, for example
+     * when a developer leaves, as one atomic change with a single commit
+     * 
+     * @param actor           The user making the change, who must be a project manager
+     * @param fromDeveloperId The ID of the developer whose bugs are reassigned
+     * @param toDeveloperId   The ID of the developer to assign them to
+     * @return The number of bugs reassigned
+     * @throws BulkOperationException if the change is not allowed
+     */
+    public int reassignOpenBugs(User actor, String fromDeveloperId, String toDeveloperId) {
+        return assignBugs(actor, () -> getBugsAssignedTo(fromDeveloperId).stream()
+                .filter(bug -> bug.getStatus() == Status.NEW || bug.getStatus() == Status.IN_PROGRESS)
+                .map(Bug::getId)
+                .collect(Collectors.toList()), toDeveloperId);
+    }
+
+    private int assignBugs(User actor, Supplier<Collection<String>> bugIds, String developerId) {
+        requireRole(actor, Role.PROJECT_MANAGER, "assign bugs");
+        User developer = repository.getUserById(developerId);
+        if (developer == null || developer.getRole() != Role.DEVELOPER) {
+            throw new BulkOperationException(List.of("Bugs can only be assigned to developers"));
+        }
+        return modifyBugs(bugIds, BugEvent.Type.ASSIGNED,
+                bug -> bug.getStatus() == Status.NEW || bug.getStatus() == Status.IN_PROGRESS
+                        ? null : "cannot be assigned (status: " + bug.getStatus() + ")",
+                bug -> bug.assignTo(developerId));
+    }
+
+    /**
+     * Moves several bugs to a new status as one atomic change with a single commit,
+     * applying the same rules as for a single bug: testers may only close RESOLVED
+     * bugs, and developers may only move bugs assigned to them one step along the
+     * workflow. Either every bug is changed or, if any of them cannot be, none is.
+     * 
+     * @param actor     The user making the change, a developer or a tester
+     * @param bugIds    The IDs of the bugs to change
+     * @param newStatus The new status for the bugs
+     * @return The number of bugs changed
+     * @throws BulkOperationException if the change is not allowed, listing every reason
+     */
+    public int updateBugStatuses(User actor, Collection<String> bugIds, Status newStatus) {
+        return updateBugStatuses(actor, () -> bugIds, newStatus);
+    }
+
+    /**
+     * Closes every RESOLVED bug in a project, for example after a release, as one
+     * atomic change with a single commit
+     * 
+     * @param actor     The user making the change, who must be a tester
+     * @param projectId The project whose resolved bugs are closed
+     * @return The number of bugs closed
+     * @throws BulkOperationException if the change is not allowed
+     */
+    public int closeResolvedBugs(User actor, String projectId) {
+        return updateBugStatuses(actor, () -> {
+            List<String> ids = new ArrayList<>();
+            repository.query(new BugQuery().inProject(projectId).withStatus(Status.RESOLVED))
+                    .forEachRemaining(bug -> ids.add(bug.getId()));
+            return ids;
+        }, Status.CLOSED);
+    }
+
+    private int updateBugStatuses(User actor, Supplier<Collection<String>> bugIds, Status newStatus) {
+        Function<Bug, String> check;
+        if (actor.getRole() == Role.TESTER) {
+            if (newStatus != Status.CLOSED) {
+                throw new BulkOperationException(List.of("Testers can only close bugs"));
+            }
+            check = bug -> bug.getStatus() == Status.RESOLVED ? null : "is not RESOLVED";
+        } else if (actor.getRole() == Role.DEVELOPER) {
+            check = bug -> {
+                if (!actor.getId().equals(bug.getAssigneeId())) {
+                    return "is not assigned to you";
+                }
+                return Arrays.asList(getValidDeveloperStatusTransitions(bug.getStatus())).contains(newStatus)
+                        ? null : "cannot move from " + bug.getStatus() + " to " + newStatus;
+            };
+        } else {
+            throw new BulkOperationException(List.of("Only developers and testers can change the status of bugs"));
+        }
+        return modifyBugs(bugIds, BugEvent.Type.STATUS_CHANGED, check, bug -> bug.updateStatus(newStatus));
+    }
+
+    /**
+     * Adds the same comment to several bugs as one atomic change with a single commit
+     * 
+     * @param actor  The user making the comment
+     * @param bugIds The IDs of the bugs to comment on
+     * @param text   The content of the comment
+     * @return The number of bugs commented on
+     * @throws BulkOperationException if any of the bugs does not exist
+     */
+    public int addComments(User actor, Collection<String> bugIds, String text) {
+        LocalDateTime now = LocalDateTime.now();
+        return modifyBugs(() -> bugIds, BugEvent.Type.COMMENTED, bug -> null,
+                bug -> bug.addComment(new Comment(actor.getId(), text, now)));
+    }
+
+    private static void requireRole(User actor, Role role, String action) {
+        if (actor.getRole() != role) {
+            throw new BulkOperationException(List.of("Access denied: role " + actor.getRole()
+                    + " cannot " + action));
+        }
+    }
+
+    /**
+     * Applies a change to copies of the latest versions of several bugs and stores them
+     * all at once. If any bug fails the check nothing is stored; if another change to
+     * one of them gets in first, the selection and checks run again on the new versions.
+     * 
+     * @param selection Supplies the IDs of the bugs to change
+     * @param type      The kind of change, published for each bug
+     * @param check     Returns why a bug may not be changed, or null if it may
+     * @param change    The change to apply to each bug
+     * @return The number of bugs changed
+     */
+    private int modifyBugs(Supplier<Collection<String>> selection, BugEvent.Type type,
+                           Function<Bug, String> check, Consumer<Bug> change) {
+        for (int attempt = 1; ; attempt++) {
+            List<Bug> previous = new ArrayList<>();
+            List<Bug> updated = new ArrayList<>();
+            List<String> reasons = new ArrayList<>();
+            for (String bugId : new LinkedHashSet<>(selection.get())) {
+                Bug current = latest(bugId, type);
+                String problem = current == null ? "does not exist" : check.apply(current);
+                if (problem != null) {
+                    reasons.add("Bug " + bugId + " " + problem);
+                    continue;
+                }
+                Bug copy = new Bug(current);
+                change.accept(copy);
+                previous.add(current);
+                updated.add(copy);
+            }
+            if (!reasons.isEmpty()) {
+                throw new BulkOperationException(reasons);
+            }
+            if (updated.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                repository.compareAndSetBugs(updated);
+            } catch (VersionConflictException e) {
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            }
+            for (int i = 0; i < updated.size(); i++) {
+                events.publish(new BugEvent(type, updated.get(i), previous.get(i)));
+            }
+            return updated.size();
         }
-        return false;
     }
 
     /**
@@ -128,7 +593,7 @@ public class BugService {
      * @return true if bug can be assigned, false otherwise
      */
     public boolean canAssignBug(String bugId) {
-        Bug bug = getBugById(bugId);
+        Bug bug = repository.getBugById(bugId);
         return bug != null && (bug.getStatus() == Status.NEW || bug.getStatus() == Status.IN_PROGRESS);
     }
 
@@ -140,7 +605,7 @@ public class BugService {
      * @return true if developer can update status, false otherwise
      */
     public boolean canDeveloperUpdateStatus(String bugId, String developerId) {
-        Bug bug = getBugById(bugId);
+        Bug bug = repository.getBugById(bugId);
         return bug != null && 
                developerId.equals(bug.getAssigneeId()) &&
                (bug.getStatus() == Status.NEW || bug.getStatus() == Status.IN_PROGRESS);
@@ -153,7 +618,7 @@ public class BugService {
      * @return true if bug can be closed, false otherwise
      */
     public boolean canCloseBug(String bugId) {
-        Bug bug = getBugById(bugId);
+        Bug bug = repository.getBugById(bugId);
         return bug != null && bug.getStatus() == Status.RESOLVED;
     }
 
@@ -181,9 +646,7 @@ public class BugService {
      * @return List of bugs assigned to the developer
      */
     public List<Bug> getBugsAssignedTo(String developerId) {
-        return getAllBugs().stream()
-                .filter(bug -> developerId.equals(bug.getAssigneeId()))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        return repository.getBugsByAssignee(developerId);
     }
 
     /**
@@ -193,8 +656,16 @@ public class BugService {
      * @return List of bugs reported by the user
      */
     public List<Bug> getBugsReportedBy(String reporterId) {
-        return getAllBugs().stream()
-                .filter(bug -> reporterId.equals(bug.getReporterId()))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        return repository.getBugsByReporter(reporterId);
+    }
+
+    /**
+     * Gets bugs in a specific status
+     * 
+     * @param status The status to filter by
+     * @return List of bugs in the specified status
+     */
+    public List<Bug> getBugsByStatus(Status status) {
+        return repository.getBugsByStatus(status);
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.bugtracker.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a bulk operation is refused because the user may not perform it or some
+ * of the bugs do not allow it. Bulk operations are all or nothing, so when this is
+ * thrown none of the bugs has been changed.
+ */
+public class BulkOperationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<String> reasons;
+
+    public BulkOperationException(List<String> reasons) {
+        super(reasons.size() == 1 ? reasons.get(0)
+                : reasons.size() + " bugs cannot be changed, e.g. " + reasons.get(0));
+        this.reasons = new ArrayList<>(reasons);
+    }
+
+    /**
+     * Gets one reason for every bug that blocked the operation
+     */
+    public List<String> getReasons() {
+        return Collections.unmodifiableList(reasons);
+    }
+}
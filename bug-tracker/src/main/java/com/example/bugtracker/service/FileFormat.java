@@ -0,0 +1,47 @@
+package com.example.bugtracker.service;
+
+import java.util.Locale;
+
+/**
+ * File formats for moving bugs in and out of the tracker in bulk
+ */
+public enum FileFormat {
+    /**
+     * Comma-separated values with a header row naming the columns
+     */
+    CSV,
+
+    /**
+     * Newline-delimited JSON: one JSON object per line
+     */
+    NDJSON;
+
+    /**
+     * Determines the format from a file name's extension
+     *
+     * @param fileName The name of the file
+     * @return The format: CSV for .csv, NDJSON for .ndjson and .jsonl
+     * @throws IllegalArgumentException if the extension is not recognised
+     */
+    public static FileFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (isCompressed(name)) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unrecognised file type: " + fileName
+                + " (expected .csv, .ndjson or .jsonl)");
+    }
+
+    /**
+     * Checks whether a file name has the .gz extension of a gzip-compressed file
+     */
+    public static boolean isCompressed(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bugtracker.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many bugs were imported and how quickly, and why
+ * any records were skipped
+ */
+public class ImportReport {
+    // Only the first few problems are kept, since a bad file can have millions
+    static final int MAX_ERRORS = 20;
+
+    private long imported;
+    private long skipped;
+    private long elapsedNanos;
+    private final List<String> errors = new ArrayList<>();
+
+    void addImported(long count) {
+        imported += count;
+    }
+
+    void addSkipped(long count, List<String> messages) {
+        skipped += count;
+        for (String message : messages) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of bugs created
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Gets the number of records that were rejected
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Gets the reasons for the first rejected records, each with its line number
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Gets the time the import took, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Gets the import rate over the whole run, including parsing and persisting
+     */
+    public double getBugsPerSecond() {
+        return elapsedNanos > 0 ? imported * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d bugs in %.1f s (%.0f bugs/s), skipped %d",
+                imported, elapsedNanos / 1e9, getBugsPerSecond(), skipped);
+    }
+}
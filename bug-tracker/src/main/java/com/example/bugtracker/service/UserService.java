@@ -8,11 +8,11 @@ import java.util.List;
 
 /**
  * Service class for user-related business logic.
- * Handles user authentication and user management operations.
+ * Handles user lookups and user management operations; the logged-in user of
+ * each client is kept in its own {@link UserSession}.
  */
 public class UserService {
     private final DataRepository repository;
-    private User currentUser;
 
     /**
      * Creates a new UserService with the specified repository
@@ -21,56 +21,6 @@ public class UserService {
         this.repository = repository;
     }
 
-    /**
-     * Attempts to log in a user with the given username
-     * 
-     * @param username The username to authenticate
-     * @return true if login successful, false otherwise
-     */
-    public boolean login(String username) {
-        User user = repository.getUserByUsername(username);
-        if (user != null) {
-            this.currentUser = user;
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Logs out the current user
-     */
-    public void logout() {
-        this.currentUser = null;
-    }
-
-    /**
-     * Gets the currently logged-in user
-     * 
-     * @return Current user or null if not logged in
-     */
-    public User getCurrentUser() {
-        return currentUser;
-    }
-
-    /**
-     * Checks if a user is currently logged in
-     * 
-     * @return true if user is logged in, false otherwise
-     */
-    public boolean isLoggedIn() {
-        return currentUser != null;
-    }
-
-    /**
-     * Checks if the current user has the specified role
-     * 
-     * @param role The role to check for
-     * @return true if current user has the role, false otherwise
-     */
-    public boolean hasRole(Role role) {
-        return currentUser != null && currentUser.getRole() == role;
-    }
-
     /**
      * Gets all users in the system
      * 
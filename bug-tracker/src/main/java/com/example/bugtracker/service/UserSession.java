@@ -0,0 +1,71 @@
+package com.example.bugtracker.service;
+
+import com.example.bugtracker.model.User;
+import com.example.bugtracker.model.enums.Role;
+
+/**
+ * The logged-in user of one client of the application.
+ * Every console session keeps its own instance, so concurrent sessions served by
+ * the same services do not see each other's login.
+ */
+public class UserSession {
+    private final UserService userService;
+    private User currentUser;
+
+    /**
+     * Creates a session in which no user is logged in yet
+     */
+    public UserSession(UserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * Attempts to log in a user with the given username
+     * 
+     * @param username The username to authenticate
+     * @return true if login successful, false otherwise
+     */
+    public boolean login(String username) {
+        User user = userService.getUserByUsername(username);
+        if (user != null) {
+            this.currentUser = user;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Logs out the current user
+     */
+    public void logout() {
+        this.currentUser = null;
+    }
+
+    /**
+     * Gets the currently logged-in user
+     * 
+     * @return Current user or null if not logged in
+     */
+    public User getCurrentUser() {
+        return currentUser;
+    }
+
+    /**
+     * Checks if a user is currently logged in
+     * 
+     * @return true if user is logged in, false otherwise
+     */
+    public boolean isLoggedIn() {
+        return currentUser != null;
+    }
+
+    /**
+     * Checks if the current user has the specified role
+     * 
+     * @param role The role to check for
+     * @return true if current user has the role, false otherwise
+     */
+    public boolean hasRole(Role role) {
+        return currentUser != null && currentUser.getRole() == role;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.bugtracker.ui;
+
+import com.example.bugtracker.service.BugService;
+import com.example.bugtracker.service.ProjectService;
+import com.example.bugtracker.service.UserService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the menu-driven console to any number of simultaneous telnet-style connections.
+ * Every connection gets its own {@link ConsoleUI}, and with it its own logged-in user,
+ * running on a virtual thread. A session waiting for input therefore holds no platform
+ * thread, only its small stack and stream buffers, so thousands of idle sessions are cheap.
+ */
+public class ConsoleServer {
+    // Typed input arrives a line at a time, so a small buffer is enough
+    private static final int INPUT_BUFFER_SIZE = 256;
+
+    private final ServerSocket serverSocket;
+    private final UserService userService;
+    private final ProjectService projectService;
+    private final BugService bugService;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private Thread acceptor;
+
+    /**
+     * Creates a server bound to the given port; it does not accept connections until started
+     *
+     * @param port           The TCP port to listen on, or 0 for any free port
+     * @param userService    Service for user lookups
+     * @param projectService Service for project operations
+     * @param bugService     Service for bug operations
+     * @throws IOException if the port cannot be bound
+     */
+    public ConsoleServer(int port, UserService userService, ProjectService projectService,
+                         BugService bugService) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port));
+        this.userService = userService;
+        this.projectService = projectService;
+        this.bugService = bugService;
+    }
+
+    /**
+     * Starts accepting connections on a background thread, which keeps the
+     * application running until the server is stopped
+     */
+    public void start() {
+        acceptor = new Thread(this::acceptConnections, "bugtracker-console-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * Stops accepting connections and disconnects all sessions
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing console server: " + e.getMessage());
+        }
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+        if (acceptor != null) {
+            try {
+                acceptor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of sessions currently connected
+     */
+    public int getSessionCount() {
+        return connections.size();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread.ofVirtual().name("bugtracker-console-" + socket.getRemoteSocketAddress())
+                        .start(() -> serve(socket));
+            } catch (SocketException e) {
+                // The server socket was closed by stop()
+            } catch (IOException e) {
+                System.err.println("Error accepting console connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            PrintWriter out = new PrintWriter(new SessionWriter(socket.getOutputStream()));
+            Reader in = new SessionReader(socket.getInputStream());
+            new ConsoleUI(userService, projectService, bugService, in, out).start();
+        } catch (IOException e) {
+            System.err.println("Error serving console connection: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Console session ended unexpectedly: " + e);
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing more to do for a connection that is going away
+        }
+    }
+
+    /**
+     * Decodes a session's UTF-8 input through a small buffer. An InputStreamReader
+     * would allocate an 8 KB buffer per session instead.
+     */
+    private static class SessionReader extends Reader {
+        private final InputStream in;
+        private final ByteBuffer bytes = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        SessionReader(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            CharBuffer chars = CharBuffer.wrap(buffer, offset, length);
+            while (true) {
+                bytes.flip();
+                decoder.decode(bytes, chars, false);
+                bytes.compact();
+                if (chars.position() > offset) {
+                    return chars.position() - offset;
+                }
+                int count = in.read(bytes.array(), bytes.position(), bytes.remaining());
+                if (count < 0) {
+                    return -1;
+                }
+                bytes.position(bytes.position() + count);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Collects a session's output until it is flushed, which the console does before
+     * waiting for input, and only then encodes it. Unlike an OutputStreamWriter it holds
+     * no encoder buffer in between, which is most of the memory of an idle session.
+     */
+    private static class SessionWriter extends Writer {
+        private final OutputStream out;
+        private StringBuilder pending = new StringBuilder();
+
+        SessionWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            pending.append(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            pending.append(text, offset, offset + length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (pending.length() > 0) {
+                byte[] bytes = pending.toString().getBytes(StandardCharsets.UTF_8);
+                pending = new StringBuilder();
+                out.write(bytes);
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            out.close();
+        }
+    }
+}
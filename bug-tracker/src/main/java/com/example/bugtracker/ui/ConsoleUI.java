@@ -2,18 +2,40 @@ package com.example.bugtracker.ui;
 
 import com.example.bugtracker.model.*;
 import com.example.bugtracker.model.enums.*;
+import com.example.bugtracker.repository.AgingReport;
+import com.example.bugtracker.repository.BugCursor;
+import com.example.bugtracker.repository.BugQuery;
+import com.example.bugtracker.repository.FacetCounts;
+import com.example.bugtracker.repository.VersionConflictException;
 import com.example.bugtracker.service.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
  * Console user interface for the bug tracking application.
  * Provides menu-driven interaction with role-based access control.
+ * Each instance is one independent session with its own input, output and
+ * logged-in user, so several can share the same services.
  */
 public class ConsoleUI {
+    private static final int PAGE_SIZE = 20;
+
     private final Scanner scanner;
+    private final PrintWriter out;
+    private final UserSession session;
     private final UserService userService;
     private final ProjectService projectService;
     private final BugService bugService;
@@ -22,10 +44,21 @@ public class ConsoleUI {
     private Bug currentBug;
 
     /**
-     * Creates a new ConsoleUI with the specified services
+     * Creates a new ConsoleUI with the specified services, on the standard input and output
      */
     public ConsoleUI(UserService userService, ProjectService projectService, BugService bugService) {
-        this.scanner = new Scanner(System.in);
+        this(userService, projectService, bugService, new InputStreamReader(System.in), new PrintWriter(System.out));
+    }
+
+    /**
+     * Creates a new ConsoleUI with the specified services, reading from and writing to
+     * the given streams
+     */
+    public ConsoleUI(UserService userService, ProjectService projectService, BugService bugService,
+                     Reader in, PrintWriter out) {
+        this.scanner = new Scanner(in);
+        this.out = out;
+        this.session = new UserSession(userService);
         this.userService = userService;
         this.projectService = projectService;
         this.bugService = bugService;
@@ -35,39 +68,52 @@ public class ConsoleUI {
      * Starts the main application loop
      */
     public void start() {
-        System.out.println("=================================");
-        System.out.println("Welcome to the Bug Tracker!");
-        System.out.println("=================================");
+        out.println("=================================");
+        out.println("Welcome to the Bug Tracker!");
+        out.println("=================================");
         
-        if (login()) {
-            showMainMenu();
-        } else {
-            System.out.println("Login failed. Exiting...");
+        try {
+            if (login()) {
+                showMainMenu();
+            } else {
+                out.println("Login failed. Exiting...");
+            }
+        } catch (NoSuchElementException e) {
+            // The input was closed, e.g. a remote client disconnected
         }
         
+        out.flush();
         scanner.close();
     }
 
+    /**
+     * Reads the next line of input, first making sure any prompt has been shown
+     */
+    private String readLine() {
+        out.flush();
+        return scanner.nextLine();
+    }
+
     /**
      * Handles user login
      */
     private boolean login() {
-        System.out.println("\nAvailable users for demo:");
-        System.out.println("- manager1 (Project Manager)");
-        System.out.println("- dev1, dev2 (Developers)");
-        System.out.println("- tester1, tester2 (Testers)");
+        out.println("\nAvailable users for demo:");
+        out.println("- manager1 (Project Manager)");
+        out.println("- dev1, dev2 (Developers)");
+        out.println("- tester1, tester2 (Testers)");
         
         for (int attempts = 0; attempts < 3; attempts++) {
-            System.out.print("\nEnter username to log in: ");
-            String username = scanner.nextLine().trim();
+            out.print("\nEnter username to log in: ");
+            String username = readLine().trim();
             
-            if (userService.login(username)) {
-                User currentUser = userService.getCurrentUser();
-                System.out.println("Welcome, " + currentUser.getUsername() + 
+            if (session.login(username)) {
+                User currentUser = session.getCurrentUser();
+                out.println("Welcome, " + currentUser.getUsername() + 
                                  " (" + currentUser.getRole() + ")!");
                 return true;
             } else {
-                System.out.println("Invalid username. Please try again.");
+                out.println("Invalid username. Please try again.");
             }
         }
         return false;
@@ -78,36 +124,52 @@ public class ConsoleUI {
      */
     private void showMainMenu() {
         while (true) {
-            System.out.println("\n" + "=".repeat(40));
-            System.out.println("MAIN MENU");
-            System.out.println("=".repeat(40));
-            System.out.println("1. Select Project");
+            out.println("\n" + "=".repeat(40));
+            out.println("MAIN MENU");
+            out.println("=".repeat(40));
+            out.println("1. Select Project");
             
-            if (userService.hasRole(Role.PROJECT_MANAGER)) {
-                System.out.println("2. Create New Project (Managers Only)");
+            if (session.hasRole(Role.PROJECT_MANAGER)) {
+                out.println("2. Create New Project (Managers Only)");
+                out.println("3. Import Bugs from File (Managers Only)");
+                out.println("4. Export Bugs to File (Managers Only)");
             }
             
-            System.out.println("3. Exit");
-            System.out.print("Choose an option: ");
+            out.println("5. Exit");
+            out.print("Choose an option: ");
             
-            String choice = scanner.nextLine().trim();
+            String choice = readLine().trim();
             
             switch (choice) {
                 case "1":
                     selectProject();
                     break;
                 case "2":
-                    if (userService.hasRole(Role.PROJECT_MANAGER)) {
+                    if (session.hasRole(Role.PROJECT_MANAGER)) {
                         createProject();
                     } else {
-                        System.out.println("Access denied. Only Project Managers can create projects.");
+                        out.println("Access denied. Only Project Managers can create projects.");
                     }
                     break;
                 case "3":
-                    System.out.println("Thank you for using Bug Tracker. Goodbye!");
+                    if (session.hasRole(Role.PROJECT_MANAGER)) {
+                        importBugs();
+                    } else {
+                        out.println("Access denied. Only Project Managers can import bugs.");
+                    }
+                    break;
+                case "4":
+                    if (session.hasRole(Role.PROJECT_MANAGER)) {
+                        exportBugs();
+                    } else {
+                        out.println("Access denied. Only Project Managers can export bugs.");
+                    }
+                    break;
+                case "5":
+                    out.println("Thank you for using Bug Tracker. Goodbye!");
                     return;
                 default:
-                    System.out.println("Invalid option. Please try again.");
+                    out.println("Invalid option. Please try again.");
             }
         }
     }
@@ -119,22 +181,22 @@ public class ConsoleUI {
         List<Project> projects = projectService.getAllProjects();
         
         if (projects.isEmpty()) {
-            System.out.println("No projects available.");
+            out.println("No projects available.");
             return;
         }
         
-        System.out.println("\n" + "=".repeat(40));
-        System.out.println("AVAILABLE PROJECTS");
-        System.out.println("=".repeat(40));
+        out.println("\n" + "=".repeat(40));
+        out.println("AVAILABLE PROJECTS");
+        out.println("=".repeat(40));
         
         for (int i = 0; i < projects.size(); i++) {
             Project project = projects.get(i);
-            System.out.println((i + 1) + ". " + project.getName() + 
+            out.println((i + 1) + ". " + project.getName() + 
                              " - " + project.getDescription());
         }
         
-        System.out.print("\nSelect a project (number): ");
-        String choice = scanner.nextLine().trim();
+        out.print("\nSelect a project (number): ");
+        String choice = readLine().trim();
         
         try {
             int index = Integer.parseInt(choice) - 1;
@@ -142,10 +204,10 @@ public class ConsoleUI {
                 currentProject = projects.get(index);
                 showProjectMenu();
             } else {
-                System.out.println("Invalid project selection.");
+                out.println("Invalid project selection.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Please enter a valid number.");
+            out.println("Please enter a valid number.");
         }
     }
 
@@ -153,23 +215,131 @@ public class ConsoleUI {
      * Handles project creation (Project Manager only)
      */
     private void createProject() {
-        System.out.println("\n" + "=".repeat(40));
-        System.out.println("CREATE NEW PROJECT");
-        System.out.println("=".repeat(40));
+        out.println("\n" + "=".repeat(40));
+        out.println("CREATE NEW PROJECT");
+        out.println("=".repeat(40));
         
-        System.out.print("Enter project name: ");
-        String name = scanner.nextLine().trim();
+        out.print("Enter project name: ");
+        String name = readLine().trim();
         
         if (!projectService.isValidProjectName(name)) {
-            System.out.println("Invalid or duplicate project name.");
+            out.println("Invalid or duplicate project name.");
             return;
         }
         
-        System.out.print("Enter project description: ");
-        String description = scanner.nextLine().trim();
+        out.print("Enter project description: ");
+        String description = readLine().trim();
         
         Project project = projectService.createProject(name, description);
-        System.out.println("Project '" + project.getName() + "' created successfully!");
+        out.println("Project '" + project.getName() + "' created successfully!");
+    }
+
+    /**
+     * Handles importing bugs from a CSV or NDJSON file (Project Manager only)
+     */
+    private void importBugs() {
+        out.println("\n" + "=".repeat(40));
+        out.println("IMPORT BUGS");
+        out.println("=".repeat(40));
+        out.println("Accepts .csv files with a header row and .ndjson/.jsonl files, optionally gzipped (.gz).");
+        out.println("Fields: title, description, projectId, reporterId, assigneeId, status, priority,");
+        out.println("createdDate, updatedDate. Projects may be given by name and users by username.");
+        
+        out.print("Enter file path: ");
+        String path = readLine().trim();
+        File file = new File(path);
+        if (!file.isFile()) {
+            out.println("File not found: " + path);
+            return;
+        }
+        
+        out.println("Importing...");
+        out.flush();
+        try {
+            ImportReport report = bugService.importBugs(file);
+            out.println(report);
+            for (String error : report.getErrors()) {
+                out.println("  " + error);
+            }
+            if (report.getSkipped() > report.getErrors().size()) {
+                out.println("  ... and " + (report.getSkipped() - report.getErrors().size()) + " more");
+            }
+        } catch (IOException e) {
+            out.println("Error reading file: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            out.println("Cannot import: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles exporting bugs to a CSV or NDJSON file (Project Manager only)
+     */
+    private void exportBugs() {
+        out.println("\n" + "=".repeat(40));
+        out.println("EXPORT BUGS");
+        out.println("=".repeat(40));
+        out.println("Writes .csv or .ndjson/.jsonl files, gzipped if the name ends in .gz.");
+        
+        out.print("Enter file path: ");
+        String path = readLine().trim();
+        BugQuery query = new BugQuery();
+        try {
+            FileFormat.fromFileName(path);
+            
+            out.print("Project name or ID (leave empty for all projects): ");
+            String projectName = readLine().trim();
+            if (!projectName.isEmpty()) {
+                Project project = findProject(projectName);
+                if (project == null) {
+                    out.println("Project not found: " + projectName);
+                    return;
+                }
+                query.inProject(project.getId());
+            }
+            
+            out.print("Status (leave empty for any status): ");
+            String status = readLine().trim();
+            if (!status.isEmpty()) {
+                try {
+                    query.withStatus(Status.valueOf(status.toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    out.println("Unknown status " + status + ", expected one of " + Arrays.toString(Status.values()));
+                    return;
+                }
+            }
+            
+            out.print("Only bugs updated since (yyyy-MM-dd, leave empty for all): ");
+            String since = readLine().trim();
+            if (!since.isEmpty()) {
+                query.updatedSince(LocalDate.parse(since).atStartOfDay());
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            out.println("Invalid input: " + e.getMessage());
+            return;
+        }
+        
+        out.println("Exporting...");
+        out.flush();
+        try {
+            long start = System.nanoTime();
+            long count = bugService.exportBugs(query, new File(path));
+            out.printf("Exported %d bugs to %s in %.1f s%n", count, path, (System.nanoTime() - start) / 1e9);
+        } catch (IOException e) {
+            out.println("Error writing file: " + e.getMessage());
+        }
+    }
+
+    private Project findProject(String nameOrId) {
+        Project project = projectService.getProjectById(nameOrId);
+        if (project != null) {
+            return project;
+        }
+        for (Project candidate : projectService.getAllProjects()) {
+            if (candidate.getName().equalsIgnoreCase(nameOrId)) {
+                return candidate;
+            }
+        }
+        return null;
     }
 
     /**
@@ -177,41 +347,224 @@ public class ConsoleUI {
      */
     private void showProjectMenu() {
         while (true) {
-            System.out.println("\n" + "=".repeat(40));
-            System.out.println("PROJECT: " + currentProject.getName());
-            System.out.println("=".repeat(40));
-            System.out.println("1. View All Bugs");
+            out.println("\n" + "=".repeat(40));
+            out.println("PROJECT: " + currentProject.getName());
+            out.println("=".repeat(40));
+            printBugCounts();
+            out.println("-".repeat(40));
+            out.println("1. View All Bugs");
             
-            if (userService.hasRole(Role.TESTER)) {
-                System.out.println("2. Report a New Bug (Testers Only)");
+            if (session.hasRole(Role.TESTER)) {
+                out.println("2. Report a New Bug (Testers Only)");
             }
             
-            System.out.println("3. Select a Bug by ID");
-            System.out.println("4. Back to Main Menu");
-            System.out.print("Choose an option: ");
+            out.println("3. Select a Bug by ID");
+            out.println("4. Search Bugs");
+            out.println("5. Bulk Actions");
+            out.println("6. Reports");
+            out.println("7. Back to Main Menu");
+            out.print("Choose an option: ");
             
-            String choice = scanner.nextLine().trim();
+            String choice = readLine().trim();
             
             switch (choice) {
                 case "1":
                     viewAllBugs();
                     break;
                 case "2":
-                    if (userService.hasRole(Role.TESTER)) {
+                    if (session.hasRole(Role.TESTER)) {
                         reportBug();
                     } else {
-                        System.out.println("Access denied. Only Testers can report bugs.");
+                        out.println("Access denied. Only Testers can report bugs.");
                     }
                     break;
                 case "3":
                     selectBug();
                     break;
                 case "4":
+                    searchBugs();
+                    break;
+                case "5":
+                    showBulkMenu();
+                    break;
+                case "6":
+                    printReports();
+                    break;
+                case "7":
                     currentProject = null;
                     return;
                 default:
-                    System.out.println("Invalid option. Please try again.");
+                    out.println("Invalid option. Please try again.");
+            }
+        }
+    }
+
+    /**
+     * Shows the bulk actions, each of which changes many bugs at once or none at all
+     */
+    private void showBulkMenu() {
+        out.println("\n" + "=".repeat(40));
+        out.println("BULK ACTIONS");
+        out.println("=".repeat(40));
+        if (session.hasRole(Role.PROJECT_MANAGER)) {
+            out.println("1. Reassign a Developer's Open Bugs (Managers Only)");
+        }
+        if (session.hasRole(Role.TESTER)) {
+            out.println("2. Close All Resolved Bugs in This Project (Testers Only)");
+        }
+        out.println("3. Comment on Several Bugs");
+        out.println("4. Back to Project Menu");
+        out.print("Choose an option: ");
+        
+        String choice = readLine().trim();
+        try {
+            switch (choice) {
+                case "1":
+                    if (session.hasRole(Role.PROJECT_MANAGER)) {
+                        reassignOpenBugs();
+                    } else {
+                        out.println("Access denied. Only Project Managers can reassign bugs.");
+                    }
+                    break;
+                case "2":
+                    if (session.hasRole(Role.TESTER)) {
+                        int closed = bugService.closeResolvedBugs(session.getCurrentUser(), currentProject.getId());
+                        out.println(closed + " resolved bugs closed.");
+                    } else {
+                        out.println("Access denied. Only Testers can close bugs.");
+                    }
+                    break;
+                case "3":
+                    commentOnBugs();
+                    break;
+                case "4":
+                    return;
+                default:
+                    out.println("Invalid option.");
+            }
+        } catch (BulkOperationException e) {
+            out.println("Nothing was changed:");
+            for (String reason : e.getReasons()) {
+                out.println("  " + reason);
+            }
+        } catch (VersionConflictException e) {
+            out.println("The bugs kept being changed by someone else. Nothing was changed; please try again.");
+        }
+    }
+
+    private void reassignOpenBugs() {
+        User from = chooseDeveloper("Reassign the open bugs of (number): ");
+        if (from == null) {
+            return;
+        }
+        User to = chooseDeveloper("Assign them to (number): ");
+        if (to == null) {
+            return;
+        }
+        int count = bugService.reassignOpenBugs(session.getCurrentUser(), from.getId(), to.getId());
+        out.println(count + " open bugs reassigned from " + from.getUsername() + " to " + to.getUsername() + ".");
+    }
+
+    private void commentOnBugs() {
+        out.print("Enter bug IDs (separated by commas or spaces): ");
+        List<String> bugIds = new ArrayList<>();
+        for (String id : readLine().split("[,\\s]+")) {
+            if (!id.isEmpty()) {
+                bugIds.add(id);
+            }
+        }
+        if (bugIds.isEmpty()) {
+            out.println("No bug IDs entered.");
+            return;
+        }
+        out.print("Enter your comment: ");
+        String text = readLine().trim();
+        if (text.isEmpty()) {
+            out.println("Comment cannot be empty.");
+            return;
+        }
+        int count = bugService.addComments(session.getCurrentUser(), bugIds, text);
+        out.println("Comment added to " + count + " bugs.");
+    }
+
+    /**
+     * Lets the user pick a developer from a numbered list
+     *
+     * @return The chosen developer, or null if the choice was invalid
+     */
+    private User chooseDeveloper(String prompt) {
+        List<User> developers = userService.getUsersByRole(Role.DEVELOPER);
+        out.println("\nDevelopers:");
+        for (int i = 0; i < developers.size(); i++) {
+            out.println((i + 1) + ". " + developers.get(i).getUsername());
+        }
+        out.print(prompt);
+        try {
+            int index = Integer.parseInt(readLine().trim()) - 1;
+            if (index >= 0 && index < developers.size()) {
+                return developers.get(index);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below like any other invalid choice
+        }
+        out.println("Invalid developer selection.");
+        return null;
+    }
+
+    /**
+     * Prints the number of bugs in the current project by status and priority
+     */
+    private void printBugCounts() {
+        FacetCounts counts = bugService.getBugCounts(currentProject.getId());
+        out.printf("%-12s %6s %6s %6s %6s%n", "Status", "LOW", "MEDIUM", "HIGH", "Total");
+        for (Status status : Status.values()) {
+            out.printf("%-12s %6d %6d %6d %6d%n",
+                             status,
+                             counts.getCount(status, Priority.LOW),
+                             counts.getCount(status, Priority.MEDIUM),
+                             counts.getCount(status, Priority.HIGH),
+                             counts.getTotal(status));
+        }
+    }
+
+    /**
+     * Prints how long the bugs in the current project have been open, and how many
+     * bugs each developer has
+     */
+    private void printReports() {
+        AgingReport aging = bugService.getAgingReport(currentProject.getId());
+        out.println("\nBUG AGE (days since reported)");
+        out.printf("%-12s", "Status");
+        for (AgingReport.AgeBucket bucket : AgingReport.AgeBucket.values()) {
+            out.printf(" %10s", bucket.getLabel());
+        }
+        out.printf(" %9s %9s%n", "Avg age", "Avg idle");
+        for (Status status : Status.values()) {
+            out.printf("%-12s", status);
+            for (AgingReport.AgeBucket bucket : AgingReport.AgeBucket.values()) {
+                out.printf(" %10d", aging.getCount(status, bucket));
+            }
+            out.printf(" %9.1f %9.1f%n", aging.getAverageAgeDays(status), aging.getAverageIdleDays(status));
+        }
+
+        Map<String, FacetCounts> workload = bugService.getWorkload(currentProject.getId());
+        out.println("\nWORKLOAD (bugs assigned per developer)");
+        if (workload.isEmpty()) {
+            out.println("No bugs are assigned in this project.");
+            return;
+        }
+        out.printf("%-15s", "Developer");
+        for (Status status : Status.values()) {
+            out.printf(" %11s", status);
+        }
+        out.printf(" %6s%n", "Total");
+        for (Map.Entry<String, FacetCounts> entry : workload.entrySet()) {
+            User developer = userService.getUserById(entry.getKey());
+            out.printf("%-15s", developer != null ? developer.getUsername() : entry.getKey());
+            for (Status status : Status.values()) {
+                out.printf(" %11d", entry.getValue().getTotal(status));
             }
+            out.printf(" %6d%n", entry.getValue().getTotal());
         }
     }
 
@@ -219,20 +572,66 @@ public class ConsoleUI {
      * Displays all bugs in the current project
      */
     private void viewAllBugs() {
-        List<Bug> bugs = bugService.getBugsByProject(currentProject.getId());
+        BugCursor cursor = bugService.queryBugs(new BugQuery().inProject(currentProject.getId()));
+        List<Bug> page = cursor.nextPage(PAGE_SIZE);
         
-        if (bugs.isEmpty()) {
-            System.out.println("No bugs found in this project.");
+        if (page.isEmpty()) {
+            out.println("No bugs found in this project.");
             return;
         }
         
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("BUGS IN PROJECT: " + currentProject.getName());
-        System.out.println("=".repeat(60));
-        System.out.printf("%-4s %-20s %-12s %-8s %-15s%n", 
+        out.println("\n" + "=".repeat(60));
+        out.println("BUGS IN PROJECT: " + currentProject.getName());
+        printBugTable(page);
+
+        // Fetch further pages only when asked for
+        while (cursor.hasNext()) {
+            out.print("Press Enter for more bugs or 'q' to stop: ");
+            if (readLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            printBugRows(cursor.nextPage(PAGE_SIZE));
+        }
+    }
+
+    /**
+     * Searches bugs in the current project by text
+     */
+    private void searchBugs() {
+        out.print("\nEnter search terms: ");
+        String query = readLine().trim();
+
+        if (query.isEmpty()) {
+            out.println("Search terms cannot be empty.");
+            return;
+        }
+
+        List<Bug> bugs = bugService.searchBugs(query, currentProject.getId(), 20);
+        if (bugs.isEmpty()) {
+            out.println("No matching bugs found in this project.");
+            return;
+        }
+
+        out.println("\n" + "=".repeat(60));
+        out.println("SEARCH RESULTS FOR: " + query);
+        printBugTable(bugs);
+    }
+
+    /**
+     * Prints a table of bugs with their status, priority and assignee
+     */
+    private void printBugTable(List<Bug> bugs) {
+        out.println("=".repeat(60));
+        out.printf("%-4s %-20s %-12s %-8s %-15s%n", 
                          "ID", "Title", "Status", "Priority", "Assigned To");
-        System.out.println("-".repeat(60));
-        
+        out.println("-".repeat(60));
+        printBugRows(bugs);
+    }
+
+    /**
+     * Prints one table row per bug
+     */
+    private void printBugRows(List<Bug> bugs) {
         for (Bug bug : bugs) {
             String assignee = "Unassigned";
             if (bug.getAssigneeId() != null) {
@@ -242,7 +641,7 @@ public class ConsoleUI {
                 }
             }
             
-            System.out.printf("%-4s %-20s %-12s %-8s %-15s%n",
+            out.printf("%-4s %-20s %-12s %-8s %-15s%n",
                              bug.getId(),
                              truncate(bug.getTitle(), 20),
                              bug.getStatus(),
@@ -255,33 +654,48 @@ public class ConsoleUI {
      * Handles bug reporting (Tester only)
      */
     private void reportBug() {
-        System.out.println("\n" + "=".repeat(40));
-        System.out.println("REPORT NEW BUG");
-        System.out.println("=".repeat(40));
+        out.println("\n" + "=".repeat(40));
+        out.println("REPORT NEW BUG");
+        out.println("=".repeat(40));
         
-        System.out.print("Enter bug title: ");
-        String title = scanner.nextLine().trim();
+        out.print("Enter bug title: ");
+        String title = readLine().trim();
         
         if (title.isEmpty()) {
-            System.out.println("Bug title cannot be empty.");
+            out.println("Bug title cannot be empty.");
             return;
         }
         
-        System.out.print("Enter bug description: ");
-        String description = scanner.nextLine().trim();
+        out.print("Enter bug description: ");
+        String description = readLine().trim();
         
         if (description.isEmpty()) {
-            System.out.println("Bug description cannot be empty.");
+            out.println("Bug description cannot be empty.");
             return;
         }
+
+        List<Bug> duplicates = bugService.findPossibleDuplicates(title, description, currentProject.getId());
+        if (!duplicates.isEmpty()) {
+            out.println("\nThis report looks similar to existing bugs:");
+            for (Bug duplicate : duplicates) {
+                out.println("- #" + duplicate.getId() + " " + duplicate.getTitle() +
+                                 " (" + duplicate.getStatus() + ")");
+            }
+            out.print("Report it anyway? (y/n): ");
+            String confirmation = readLine().trim().toLowerCase();
+            if (!confirmation.equals("y") && !confirmation.equals("yes")) {
+                out.println("Bug report cancelled.");
+                return;
+            }
+        }
         
-        System.out.println("Select priority:");
-        System.out.println("1. LOW");
-        System.out.println("2. MEDIUM");
-        System.out.println("3. HIGH");
-        System.out.print("Choose priority (1-3): ");
+        out.println("Select priority:");
+        out.println("1. LOW");
+        out.println("2. MEDIUM");
+        out.println("3. HIGH");
+        out.print("Choose priority (1-3): ");
         
-        String priorityChoice = scanner.nextLine().trim();
+        String priorityChoice = readLine().trim();
         Priority priority;
         
         switch (priorityChoice) {
@@ -295,25 +709,25 @@ public class ConsoleUI {
                 priority = Priority.HIGH;
                 break;
             default:
-                System.out.println("Invalid priority. Defaulting to MEDIUM.");
+                out.println("Invalid priority. Defaulting to MEDIUM.");
                 priority = Priority.MEDIUM;
         }
         
         Bug bug = bugService.createBug(title, description, currentProject.getId(),
-                                      userService.getCurrentUser().getId(), priority);
-        System.out.println("Bug #" + bug.getId() + " reported successfully!");
+                                      session.getCurrentUser().getId(), priority);
+        out.println("Bug #" + bug.getId() + " reported successfully!");
     }
 
     /**
      * Handles bug selection by ID
      */
     private void selectBug() {
-        System.out.print("\nEnter bug ID: ");
-        String bugId = scanner.nextLine().trim();
+        out.print("\nEnter bug ID: ");
+        String bugId = readLine().trim();
         
         Bug bug = bugService.getBugById(bugId);
         if (bug == null || !bug.getProjectId().equals(currentProject.getId())) {
-            System.out.println("Bug not found in this project.");
+            out.println("Bug not found in this project.");
             return;
         }
         
@@ -326,28 +740,28 @@ public class ConsoleUI {
      */
     private void showBugMenu() {
         while (true) {
-            System.out.println("\n" + "=".repeat(50));
-            System.out.println("BUG: #" + currentBug.getId() + " - " + currentBug.getTitle());
-            System.out.println("=".repeat(50));
-            System.out.println("1. View Full Details");
-            System.out.println("2. Add a Comment");
+            out.println("\n" + "=".repeat(50));
+            out.println("BUG: #" + currentBug.getId() + " - " + currentBug.getTitle());
+            out.println("=".repeat(50));
+            out.println("1. View Full Details");
+            out.println("2. Add a Comment");
             
-            if (userService.hasRole(Role.PROJECT_MANAGER)) {
-                System.out.println("3. Assign Bug (Managers Only)");
+            if (session.hasRole(Role.PROJECT_MANAGER)) {
+                out.println("3. Assign Bug (Managers Only)");
             }
             
-            if (userService.hasRole(Role.DEVELOPER)) {
-                System.out.println("4. Update Status (Developers Only)");
+            if (session.hasRole(Role.DEVELOPER)) {
+                out.println("4. Update Status (Developers Only)");
             }
             
-            if (userService.hasRole(Role.TESTER)) {
-                System.out.println("5. Close Bug (Testers Only)");
+            if (session.hasRole(Role.TESTER)) {
+                out.println("5. Close Bug (Testers Only)");
             }
             
-            System.out.println("6. Back to Project Menu");
-            System.out.print("Choose an option: ");
+            out.println("6. Back to Project Menu");
+            out.print("Choose an option: ");
             
-            String choice = scanner.nextLine().trim();
+            String choice = readLine().trim();
             
             switch (choice) {
                 case "1":
@@ -357,31 +771,31 @@ public class ConsoleUI {
                     addComment();
                     break;
                 case "3":
-                    if (userService.hasRole(Role.PROJECT_MANAGER)) {
+                    if (session.hasRole(Role.PROJECT_MANAGER)) {
                         assignBug();
                     } else {
-                        System.out.println("Access denied. Only Project Managers can assign bugs.");
+                        out.println("Access denied. Only Project Managers can assign bugs.");
                     }
                     break;
                 case "4":
-                    if (userService.hasRole(Role.DEVELOPER)) {
+                    if (session.hasRole(Role.DEVELOPER)) {
                         updateBugStatus();
                     } else {
-                        System.out.println("Access denied. Only Developers can update bug status.");
+                        out.println("Access denied. Only Developers can update bug status.");
                     }
                     break;
                 case "5":
-                    if (userService.hasRole(Role.TESTER)) {
+                    if (session.hasRole(Role.TESTER)) {
                         closeBug();
                     } else {
-                        System.out.println("Access denied. Only Testers can close bugs.");
+                        out.println("Access denied. Only Testers can close bugs.");
                     }
                     break;
                 case "6":
                     currentBug = null;
                     return;
                 default:
-                    System.out.println("Invalid option. Please try again.");
+                    out.println("Invalid option. Please try again.");
             }
         }
     }
@@ -390,39 +804,39 @@ public class ConsoleUI {
      * Displays full details of the current bug
      */
     private void viewBugDetails() {
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("BUG DETAILS");
-        System.out.println("=".repeat(60));
+        out.println("\n" + "=".repeat(60));
+        out.println("BUG DETAILS");
+        out.println("=".repeat(60));
         
-        System.out.println("ID: " + currentBug.getId());
-        System.out.println("Title: " + currentBug.getTitle());
-        System.out.println("Description: " + currentBug.getDescription());
-        System.out.println("Status: " + currentBug.getStatus());
-        System.out.println("Priority: " + currentBug.getPriority());
+        out.println("ID: " + currentBug.getId());
+        out.println("Title: " + currentBug.getTitle());
+        out.println("Description: " + currentBug.getDescription());
+        out.println("Status: " + currentBug.getStatus());
+        out.println("Priority: " + currentBug.getPriority());
         
         User reporter = userService.getUserById(currentBug.getReporterId());
-        System.out.println("Reported by: " + (reporter != null ? reporter.getUsername() : "Unknown"));
+        out.println("Reported by: " + (reporter != null ? reporter.getUsername() : "Unknown"));
         
         if (currentBug.getAssigneeId() != null) {
             User assignee = userService.getUserById(currentBug.getAssigneeId());
-            System.out.println("Assigned to: " + (assignee != null ? assignee.getUsername() : "Unknown"));
+            out.println("Assigned to: " + (assignee != null ? assignee.getUsername() : "Unknown"));
         } else {
-            System.out.println("Assigned to: Unassigned");
+            out.println("Assigned to: Unassigned");
         }
         
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        System.out.println("Created: " + currentBug.getCreatedDate().format(formatter));
-        System.out.println("Updated: " + currentBug.getUpdatedDate().format(formatter));
+        out.println("Created: " + currentBug.getCreatedDate().format(formatter));
+        out.println("Updated: " + currentBug.getUpdatedDate().format(formatter));
         
         // Show comments
         List<Comment> comments = currentBug.getComments();
         if (!comments.isEmpty()) {
-            System.out.println("\nComments:");
-            System.out.println("-".repeat(60));
+            out.println("\nComments:");
+            out.println("-".repeat(60));
             for (Comment comment : comments) {
                 User author = userService.getUserById(comment.getAuthorId());
                 String authorName = author != null ? author.getUsername() : "Unknown";
-                System.out.println("[" + comment.getTimestamp().format(formatter) + "] " +
+                out.println("[" + comment.getTimestamp().format(formatter) + "] " +
                                  authorName + ": " + comment.getText());
             }
         }
@@ -432,20 +846,20 @@ public class ConsoleUI {
      * Handles adding a comment to the current bug
      */
     private void addComment() {
-        System.out.print("\nEnter your comment: ");
-        String commentText = scanner.nextLine().trim();
+        out.print("\nEnter your comment: ");
+        String commentText = readLine().trim();
         
         if (commentText.isEmpty()) {
-            System.out.println("Comment cannot be empty.");
+            out.println("Comment cannot be empty.");
             return;
         }
         
-        if (bugService.addComment(currentBug.getId(), userService.getCurrentUser().getId(), commentText)) {
+        if (bugService.addComment(currentBug.getId(), session.getCurrentUser().getId(), commentText)) {
             // Refresh the current bug to show the new comment
             currentBug = bugService.getBugById(currentBug.getId());
-            System.out.println("Comment added successfully!");
+            out.println("Comment added successfully!");
         } else {
-            System.out.println("Failed to add comment.");
+            out.println("Failed to add comment.");
         }
     }
 
@@ -454,39 +868,41 @@ public class ConsoleUI {
      */
     private void assignBug() {
         if (!bugService.canAssignBug(currentBug.getId())) {
-            System.out.println("This bug cannot be assigned (status: " + currentBug.getStatus() + ")");
+            out.println("This bug cannot be assigned (status: " + currentBug.getStatus() + ")");
             return;
         }
         
         List<User> developers = userService.getUsersByRole(Role.DEVELOPER);
         if (developers.isEmpty()) {
-            System.out.println("No developers available for assignment.");
+            out.println("No developers available for assignment.");
             return;
         }
         
-        System.out.println("\nAvailable Developers:");
+        out.println("\nAvailable Developers:");
         for (int i = 0; i < developers.size(); i++) {
-            System.out.println((i + 1) + ". " + developers.get(i).getUsername());
+            out.println((i + 1) + ". " + developers.get(i).getUsername());
         }
         
-        System.out.print("Select developer (number): ");
-        String choice = scanner.nextLine().trim();
+        out.print("Select developer (number): ");
+        String choice = readLine().trim();
         
         try {
             int index = Integer.parseInt(choice) - 1;
             if (index >= 0 && index < developers.size()) {
                 User developer = developers.get(index);
-                if (bugService.assignBug(currentBug.getId(), developer.getId())) {
+                if (bugService.assignBug(currentBug.getId(), developer.getId(), currentBug.getVersion())) {
                     currentBug = bugService.getBugById(currentBug.getId());
-                    System.out.println("Bug assigned to " + developer.getUsername() + " successfully!");
+                    out.println("Bug assigned to " + developer.getUsername() + " successfully!");
                 } else {
-                    System.out.println("Failed to assign bug.");
+                    out.println("Failed to assign bug.");
                 }
             } else {
-                System.out.println("Invalid developer selection.");
+                out.println("Invalid developer selection.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Please enter a valid number.");
+            out.println("Please enter a valid number.");
+        } catch (VersionConflictException e) {
+            reportConflict();
         }
     }
 
@@ -494,10 +910,10 @@ public class ConsoleUI {
      * Handles bug status update (Developer only)
      */
     private void updateBugStatus() {
-        String currentUserId = userService.getCurrentUser().getId();
+        String currentUserId = session.getCurrentUser().getId();
         
         if (!bugService.canDeveloperUpdateStatus(currentBug.getId(), currentUserId)) {
-            System.out.println("You cannot update this bug's status. " +
+            out.println("You cannot update this bug's status. " +
                              "Bug must be assigned to you and in NEW or IN_PROGRESS state.");
             return;
         }
@@ -505,33 +921,35 @@ public class ConsoleUI {
         Status[] validStatuses = bugService.getValidDeveloperStatusTransitions(currentBug.getStatus());
         
         if (validStatuses.length == 0) {
-            System.out.println("No valid status transitions available.");
+            out.println("No valid status transitions available.");
             return;
         }
         
-        System.out.println("\nAvailable status updates:");
+        out.println("\nAvailable status updates:");
         for (int i = 0; i < validStatuses.length; i++) {
-            System.out.println((i + 1) + ". " + validStatuses[i]);
+            out.println((i + 1) + ". " + validStatuses[i]);
         }
         
-        System.out.print("Select new status (number): ");
-        String choice = scanner.nextLine().trim();
+        out.print("Select new status (number): ");
+        String choice = readLine().trim();
         
         try {
             int index = Integer.parseInt(choice) - 1;
             if (index >= 0 && index < validStatuses.length) {
                 Status newStatus = validStatuses[index];
-                if (bugService.updateBugStatus(currentBug.getId(), newStatus)) {
+                if (bugService.updateBugStatus(currentBug.getId(), newStatus, currentBug.getVersion())) {
                     currentBug = bugService.getBugById(currentBug.getId());
-                    System.out.println("Bug status updated to " + newStatus + " successfully!");
+                    out.println("Bug status updated to " + newStatus + " successfully!");
                 } else {
-                    System.out.println("Failed to update bug status.");
+                    out.println("Failed to update bug status.");
                 }
             } else {
-                System.out.println("Invalid status selection.");
+                out.println("Invalid status selection.");
             }
         } catch (NumberFormatException e) {
-            System.out.println("Please enter a valid number.");
+            out.println("Please enter a valid number.");
+        } catch (VersionConflictException e) {
+            reportConflict();
         }
     }
 
@@ -540,25 +958,42 @@ public class ConsoleUI {
      */
     private void closeBug() {
         if (!bugService.canCloseBug(currentBug.getId())) {
-            System.out.println("This bug cannot be closed. It must be in RESOLVED status first.");
+            out.println("This bug cannot be closed. It must be in RESOLVED status first.");
             return;
         }
         
-        System.out.print("Are you sure you want to close this bug? (y/n): ");
-        String confirmation = scanner.nextLine().trim().toLowerCase();
+        out.print("Are you sure you want to close this bug? (y/n): ");
+        String confirmation = readLine().trim().toLowerCase();
         
         if (confirmation.equals("y") || confirmation.equals("yes")) {
-            if (bugService.updateBugStatus(currentBug.getId(), Status.CLOSED)) {
-                currentBug = bugService.getBugById(currentBug.getId());
-                System.out.println("Bug closed successfully!");
-            } else {
-                System.out.println("Failed to close bug.");
+            try {
+                if (bugService.updateBugStatus(currentBug.getId(), Status.CLOSED, currentBug.getVersion())) {
+                    currentBug = bugService.getBugById(currentBug.getId());
+                    out.println("Bug closed successfully!");
+                } else {
+                    out.println("Failed to close bug.");
+                }
+            } catch (VersionConflictException e) {
+                reportConflict();
             }
         } else {
-            System.out.println("Bug closure cancelled.");
+            out.println("Bug closure cancelled.");
         }
     }
 
+    /**
+     * Reloads the current bug after someone else changed it while the user was
+     * deciding what to do, so that they can review the change and try again
+     */
+    private void reportConflict() {
+        currentBug = bugService.getBugById(currentBug.getId());
+        out.println("This bug was changed by someone else in the meantime. " +
+                         "Your change was not applied; please review the bug and try again.");
+        User assignee = currentBug.getAssigneeId() != null ? userService.getUserById(currentBug.getAssigneeId()) : null;
+        out.println("Status: " + currentBug.getStatus() + ", assigned to: " +
+                         (assignee != null ? assignee.getUsername() : "Unassigned"));
+    }
+
     /**
      * Utility method to truncate strings for display
      */
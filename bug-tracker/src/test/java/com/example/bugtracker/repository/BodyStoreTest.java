@@ -0,0 +1,102 @@
+package com.example.bugtracker.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.enums.Priority;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BodyStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void compactsSupersededBodiesWhileReadersRead() throws Exception {
+        File file = dir.resolve("bugs.json.bodies").toFile();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (BodyStore store = new BodyStore(file, 10)) {
+            Bug other = bug("2", 3);
+            store.put(1, other);
+
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                boolean cached = i % 2 == 0;
+                Thread reader = new Thread(() -> {
+                    try {
+                        while (!done.get()) {
+                            BodyStore.Body body = cached ? store.get(0) : store.read(0);
+                            if (body != null && !body.description.startsWith("Description of 1")) {
+                                throw new AssertionError("Read " + body.description);
+                            }
+                            assertEquals(3, store.read(1).comments.size());
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+
+            // A thread of comments that grows with every change, as bugs being discussed do
+            Bug discussed = null;
+            for (int comments = 1; comments <= 400; comments++) {
+                discussed = bug("1", comments);
+                store.put(0, discussed);
+            }
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            if (failure.get() != null) {
+                throw new AssertionError(failure.get());
+            }
+
+            BodyStore.Body latest = store.read(0);
+            assertEquals(400, latest.comments.size());
+            assertEquals(discussed.getComments().get(399).getText(), latest.comments.get(399).getText());
+            assertEquals(3, store.get(1).comments.size());
+            assertNull(store.read(2));
+            // Without compaction the file would hold every version of the thread, several MB
+            long liveBytes = store.read(0).comments.size() * 60L;
+            assertTrue(file.length() < Math.max(4 * liveBytes, 2 * BodyStore.MIN_COMPACTION_BYTES),
+                    file.length() + " bytes");
+            assertEquals(file.length(), store.getFileBytes());
+        }
+    }
+
+    @Test
+    void startsCountingAgainAfterClear() throws IOException {
+        File file = dir.resolve("bugs.json.bodies").toFile();
+        try (BodyStore store = new BodyStore(file, 10)) {
+            store.put(0, bug("1", 2));
+            store.clear();
+            assertNull(store.read(0));
+            assertEquals(0, store.getFileBytes());
+            store.put(0, bug("1", 1));
+            assertEquals(1, store.get(0).comments.size());
+        }
+    }
+
+    private static Bug bug(String id, int comments) {
+        Bug bug = new Bug(id, "Bug " + id, "Description of " + id, "1", "4", Priority.LOW);
+        for (int i = 0; i < comments; i++) {
+            bug.addComment(new Comment("2", "Comment " + i + " on bug " + id,
+                    LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i)));
+        }
+        return bug;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bugtracker.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.ModelTypeAdapters;
+import com.example.bugtracker.model.Timestamps;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+class BugCodecTest {
+    private static final Gson GSON = ModelTypeAdapters.builder().create();
+
+    @Test
+    void roundTripsBugWithComments() {
+        Bug bug = new Bug("42", "Crash on säve ✓", "Line one\nline two", "3", "4", Priority.HIGH);
+        bug.assignTo("2");
+        bug.updateStatus(Status.IN_PROGRESS);
+        bug.addComment(new Comment("2", "Looking into it", LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_000_000)));
+        bug.addComment(new Comment("4", "", LocalDateTime.of(1999, 12, 31, 0, 0)));
+        bug.setVersion(7);
+
+        Bug decoded = roundTrip(bug);
+
+        assertEquals(GSON.toJson(bug), GSON.toJson(decoded));
+        assertEquals(2, decoded.getComments().size());
+        assertEquals(bug.getComments().get(0).getTime(), decoded.getComments().get(0).getTime());
+    }
+
+    @Test
+    void roundTripsNullFields() {
+        Bug bug = new Bug();
+        bug.setId("1");
+
+        Bug decoded = roundTrip(bug);
+
+        assertEquals(GSON.toJson(bug), GSON.toJson(decoded));
+        assertNull(decoded.getTitle());
+        assertNull(decoded.getDescription());
+        assertNull(decoded.getProjectId());
+        assertNull(decoded.getAssigneeId());
+        assertNull(decoded.getStatus());
+        assertNull(decoded.getPriority());
+        assertEquals(Timestamps.NONE, decoded.getCreatedTime());
+        assertEquals(Timestamps.NONE, decoded.getUpdatedTime());
+        assertTrue(decoded.getComments().isEmpty());
+    }
+
+    @Test
+    void roundTripsCommentWithNullFields() {
+        Bug bug = new Bug("5", "Title", "", "1", "4", Priority.LOW);
+        bug.addComment(new Comment());
+
+        Bug decoded = roundTrip(bug);
+
+        Comment comment = decoded.getComments().get(0);
+        assertNull(comment.getAuthorId());
+        assertNull(comment.getText());
+        assertEquals(Timestamps.NONE, comment.getTime());
+        assertEquals("", decoded.getDescription());
+    }
+
+    @Test
+    void decodesRecordInsideLargerBuffer() {
+        Bug bug = new Bug("9", "Title", "Description", "1", "4", Priority.MEDIUM);
+        byte[] record = BugCodec.encode(bug);
+        ByteBuffer buffer = ByteBuffer.allocate(record.length + 10);
+        buffer.put(3, record);
+
+        Bug decoded = BugCodec.decode(buffer.slice(3, record.length));
+
+        assertEquals(GSON.toJson(bug), GSON.toJson(decoded));
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        byte[] record = BugCodec.encode(new Bug("1", "Title", "", "1", "4", Priority.LOW));
+        record[0] = 99;
+
+        assertThrows(IllegalStateException.class, () -> BugCodec.decode(ByteBuffer.wrap(record)));
+    }
+
+    private static Bug roundTrip(Bug bug) {
+        return BugCodec.decode(ByteBuffer.wrap(BugCodec.encode(bug)));
+    }
+}
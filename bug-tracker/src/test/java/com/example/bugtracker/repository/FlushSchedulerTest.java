@@ -0,0 +1,54 @@
+package com.example.bugtracker.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class FlushSchedulerTest {
+    @Test
+    void flushReportsFailedCommitAndSucceedsOnceCommitsDo() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        AtomicInteger commits = new AtomicInteger();
+        FlushScheduler scheduler = new FlushScheduler(() -> {
+            if (failing.get()) {
+                throw new UncheckedIOException(new IOException("Disk full"));
+            }
+            commits.incrementAndGet();
+        }, 10, 1_000);
+        try {
+            scheduler.markDirty();
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, scheduler::flush);
+            assertEquals("Disk full", e.getCause().getMessage());
+
+            failing.set(false);
+            scheduler.flush();
+            assertEquals(1, commits.get());
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void backsOffWhileCommitsFail() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        FlushScheduler scheduler = new FlushScheduler(() -> {
+            attempts.incrementAndGet();
+            throw new UncheckedIOException(new IOException("Disk full"));
+        }, 10, 1);
+        try {
+            // A full batch would otherwise retry at once, again and again
+            scheduler.markDirty();
+            Thread.sleep(500);
+            assertTrue(attempts.get() <= 7, attempts.get() + " attempts");
+            assertThrows(UncheckedIOException.class, scheduler::flush);
+        } finally {
+            scheduler.close();
+        }
+    }
+}
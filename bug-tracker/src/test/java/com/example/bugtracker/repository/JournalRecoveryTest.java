@@ -0,0 +1,51 @@
+package com.example.bugtracker.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.enums.Priority;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalRecoveryTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsChangesMadeAfterRecoveringFromTornRecord() throws IOException {
+        RepositoryConfig config = config();
+        // Repositories that are not closed stand for crashed processes
+        DataRepository crashed = new DataRepository(config);
+        Bug first = new Bug(crashed.getNextBugId(), "Before the crash", "", "1", "4", Priority.LOW);
+        crashed.addBug(first);
+        Files.writeString(Path.of(config.getJournalFile()), "{\"op\":\"bug\",\"bug\":{\"id\":\"9",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        DataRepository recovered = new DataRepository(config);
+        assertNotNull(recovered.getBugById(first.getId()));
+        Bug second = new Bug(recovered.getNextBugId(), "After the crash", "", "1", "4", Priority.LOW);
+        recovered.addBug(second);
+
+        DataRepository reopened = new DataRepository(config);
+        try {
+            assertNotNull(reopened.getBugById(first.getId()));
+            assertNotNull(reopened.getBugById(second.getId()));
+            assertEquals("After the crash", reopened.getBugById(second.getId()).getTitle());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private RepositoryConfig config() {
+        RepositoryConfig config = new RepositoryConfig();
+        config.setDataFile(dir.resolve("bugs.json").toString());
+        config.setPersistenceMode(PersistenceMode.JOURNAL);
+        return config;
+    }
+}
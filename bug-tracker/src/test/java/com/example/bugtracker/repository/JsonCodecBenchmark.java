@@ -0,0 +1,160 @@
+package com.example.bugtracker.repository;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.ModelTypeAdapters;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares Gson's reflective adapters with the streaming adapters of
+ * {@link ModelTypeAdapters} on a generated data set: encoding and decoding every bug
+ * in memory, and {@link DataRepository#saveData()} writing the data file. Both share
+ * the fast timestamp formatting of {@code Timestamps}, so the difference is that of
+ * the adapters alone. It is a plain program rather than a test, run with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.bugtracker.repository.JsonCodecBenchmark \
+ *     -Dexec.args="[bugs] [rounds]"
+ * </pre>
+ * which defaults to 200,000 bugs and 5 rounds, and needs a heap of about 2 GB
+ * (MAVEN_OPTS=-Xmx2g). Later rounds show the times once the JIT has warmed up.
+ */
+public class JsonCodecBenchmark {
+    public static void main(String[] args) throws IOException {
+        int bugCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<Bug> bugs = generate(bugCount);
+        System.out.println("Generated " + bugCount + " bugs");
+
+        String[] names = {"reflective", "streaming"};
+        GsonBuilder[] builders = {new GsonBuilder(), ModelTypeAdapters.builder()};
+        String[] encoded = new String[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            encoded[i] = encode(builders[i].setPrettyPrinting().create(), bugs);
+        }
+        System.out.println("Identical output: " + encoded[0].equals(encoded[1])
+                + " (" + encoded[1].length() / (1 << 20) + " MB)");
+
+        File directory = Files.createTempDirectory("json-codec-benchmark").toFile();
+        DataRepository[] repositories = new DataRepository[builders.length];
+        try {
+            for (int i = 0; i < builders.length; i++) {
+                repositories[i] = openRepository(new File(directory, names[i] + ".json"), builders[i], bugs);
+            }
+            for (int round = 1; round <= rounds; round++) {
+                for (int i = 0; i < builders.length; i++) {
+                    Gson gson = builders[i].create();
+                    long start = System.nanoTime();
+                    encode(gson, bugs);
+                    long encodedAt = System.nanoTime();
+                    int decoded = decode(gson, encoded[i]);
+                    long decodedAt = System.nanoTime();
+                    repositories[i].saveData();
+                    long savedAt = System.nanoTime();
+                    System.out.printf("Round %d %-10s  encode %5d ms  decode %5d ms (%d bugs)  saveData %5d ms%n",
+                            round, names[i], (encodedAt - start) / 1_000_000, (decodedAt - encodedAt) / 1_000_000,
+                            decoded, (savedAt - decodedAt) / 1_000_000);
+                }
+            }
+        } finally {
+            for (DataRepository repository : repositories) {
+                if (repository != null) {
+                    repository.close();
+                }
+            }
+            File[] files = directory.listFiles();
+            for (File file : files != null ? files : new File[0]) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * Generates bugs that look like those of a busy tracker, the same on every run
+     */
+    private static List<Bug> generate(int count) {
+        Random random = new Random(1);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Status[] statuses = Status.values();
+        Priority[] priorities = Priority.values();
+        List<Bug> bugs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Bug bug = new Bug(String.valueOf(100 + i), "Crash on login after update " + i,
+                    "Steps to reproduce: open the app, sign in, wait " + random.nextInt(60) + " seconds",
+                    String.valueOf(1 + random.nextInt(3)), random.nextBoolean() ? "4" : "5",
+                    priorities[random.nextInt(priorities.length)]);
+            if (i % 3 == 0) {
+                bug.assignTo(random.nextBoolean() ? "2" : "3");
+                bug.addComment(new Comment("2", "Looking into it, see build " + random.nextInt(10_000),
+                        base.plusSeconds(random.nextInt(10_000_000)).plusNanos(random.nextInt(1000) * 1_000_000L)));
+            }
+            bug.setStatus(statuses[random.nextInt(statuses.length)]);
+            bug.setCreatedDate(base.plusSeconds(random.nextInt(10_000_000)));
+            bug.setUpdatedDate(bug.getCreatedDate().plusSeconds(random.nextInt(1_000_000))
+                    .plusNanos(random.nextInt(1000) * 1_000_000L));
+            bugs.add(bug);
+        }
+        return bugs;
+    }
+
+    private static String encode(Gson gson, List<Bug> bugs) throws IOException {
+        TypeAdapter<Bug> adapter = gson.getAdapter(Bug.class);
+        StringWriter output = new StringWriter(bugs.size() * 512);
+        try (JsonWriter writer = gson.newJsonWriter(output)) {
+            writer.beginArray();
+            for (Bug bug : bugs) {
+                adapter.write(writer, bug);
+            }
+            writer.endArray();
+        }
+        return output.toString();
+    }
+
+    private static int decode(Gson gson, String json) throws IOException {
+        TypeAdapter<Bug> adapter = gson.getAdapter(Bug.class);
+        int count = 0;
+        try (JsonReader reader = gson.newJsonReader(new StringReader(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                adapter.read(reader);
+                count++;
+            }
+            reader.endArray();
+        }
+        return count;
+    }
+
+    /**
+     * Opens a repository holding the bugs whose data file is written with the given adapters
+     */
+    private static DataRepository openRepository(File dataFile, GsonBuilder builder, List<Bug> bugs) {
+        RepositoryConfig config = new RepositoryConfig();
+        config.setDataFile(dataFile.getPath());
+        config.setLazyBodies(false);
+        config.setColumnarEnabled(false);
+        config.setStorageEngine(new JsonStorageEngine(config, builder));
+        DataRepository repository = new DataRepository(config);
+        List<Bug> batch = new ArrayList<>(bugs.size());
+        for (Bug bug : bugs) {
+            batch.add(new Bug(bug));
+        }
+        repository.addBugs(batch);
+        return repository;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.bugtracker.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.ModelTypeAdapters;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentTableTest {
+    private static final Gson GSON = ModelTypeAdapters.builder().create();
+    // Large enough that a few dozen versions of one bug fill more than a 64 MB segment
+    private static final String LARGE_DESCRIPTION = "x".repeat(2 << 20);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopensWhatWasCheckpointed() throws IOException {
+        File directory = dir.resolve("segments").toFile();
+        List<Bug> expected = new ArrayList<>();
+        try (SegmentTable table = new SegmentTable(directory)) {
+            for (int i = 1; i <= 1000; i++) {
+                Bug bug = bug(i);
+                assertFalse(table.put(bug));
+                expected.add(bug);
+            }
+            Bug changed = new Bug(expected.get(10));
+            changed.updateStatus(Status.RESOLVED);
+            changed.addComment(new Comment("3", "Fixed", LocalDateTime.of(2024, 5, 1, 12, 0)));
+            assertTrue(table.replace(changed));
+            expected.set(10, changed);
+            assertFalse(table.replace(bug(5000)));
+            table.checkpoint();
+        }
+        assertTrue(SegmentTable.exists(directory));
+
+        try (SegmentTable table = new SegmentTable(directory)) {
+            assertEquals(expected.size(), table.size());
+            for (int ordinal = 0; ordinal < expected.size(); ordinal++) {
+                Bug bug = expected.get(ordinal);
+                assertEquals(ordinal, table.ordinalOf(bug.getId()));
+                assertEquals(GSON.toJson(bug), GSON.toJson(table.get(ordinal)));
+            }
+            List<Bug> snapshot = table.snapshot();
+            assertEquals(expected.size(), snapshot.size());
+            for (int ordinal = 0; ordinal < expected.size(); ordinal++) {
+                assertEquals(GSON.toJson(expected.get(ordinal)), GSON.toJson(snapshot.get(ordinal)));
+            }
+            assertNull(table.get("5000"));
+        }
+    }
+
+    @Test
+    void discardsChangesAfterLastCheckpoint() throws IOException {
+        File directory = dir.resolve("segments").toFile();
+        Bug first = bug(1);
+        try (SegmentTable table = new SegmentTable(directory)) {
+            table.put(first);
+            table.checkpoint();
+
+            table.put(bug(2));
+            Bug changed = new Bug(first);
+            changed.assignTo("2");
+            table.replace(changed);
+            // Starts segments that the checkpoint knows nothing of
+            for (int i = 0; i < 40; i++) {
+                Bug large = new Bug(first);
+                large.setDescription(LARGE_DESCRIPTION + i);
+                table.replace(large);
+            }
+            assertTrue(segmentFiles(directory) > 1);
+        }
+
+        try (SegmentTable table = new SegmentTable(directory)) {
+            assertEquals(1, table.size());
+            assertEquals(GSON.toJson(first), GSON.toJson(table.get("1")));
+            assertEquals(-1, table.ordinalOf("2"));
+            assertEquals(1, segmentFiles(directory));
+        }
+    }
+
+    @Test
+    void compactsSupersededRecordsAndReopens() throws IOException {
+        File directory = dir.resolve("segments").toFile();
+        Bug latest = null;
+        try (SegmentTable table = new SegmentTable(directory)) {
+            for (int i = 1; i <= 100; i++) {
+                table.put(bug(i));
+            }
+            for (int i = 0; i < 40; i++) {
+                latest = new Bug(bug(50));
+                latest.setDescription(LARGE_DESCRIPTION + i);
+                latest.setVersion(i + 1);
+                table.replace(latest);
+            }
+            assertTrue(segmentFiles(directory) > 1);
+
+            table.checkpoint();
+
+            assertEquals(1, segmentFiles(directory));
+            assertEquals(GSON.toJson(latest), GSON.toJson(table.get("50")));
+            // The table carries on appending after compaction
+            table.put(bug(101));
+            table.checkpoint();
+        }
+
+        try (SegmentTable table = new SegmentTable(directory)) {
+            assertEquals(101, table.size());
+            assertEquals(GSON.toJson(latest), GSON.toJson(table.get("50")));
+            for (int i = 1; i <= 101; i++) {
+                Bug expected = i == 50 ? latest : bug(i);
+                assertEquals(GSON.toJson(expected), GSON.toJson(table.get(String.valueOf(i))));
+            }
+        }
+    }
+
+    @Test
+    void clearKeepsLastCheckpointUntilTheNext() throws IOException {
+        File directory = dir.resolve("segments").toFile();
+        try (SegmentTable table = new SegmentTable(directory)) {
+            table.put(bug(1));
+            table.checkpoint();
+            table.clear();
+            assertEquals(0, table.size());
+        }
+        try (SegmentTable table = new SegmentTable(directory)) {
+            assertEquals(1, table.size());
+        }
+    }
+
+    @Test
+    void rejectsIndexInUnknownFormat() throws IOException {
+        File directory = dir.resolve("segments").toFile();
+        try (SegmentTable table = new SegmentTable(directory)) {
+            table.put(bug(1));
+            table.checkpoint();
+        }
+        Files.write(new File(directory, "index").toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> new SegmentTable(directory));
+    }
+
+    private static Bug bug(int id) {
+        Bug bug = new Bug(String.valueOf(id), "Bug " + id, id % 3 == 0 ? null : "Description " + id,
+                String.valueOf(id % 3 + 1), "4", Priority.values()[id % Priority.values().length]);
+        if (id % 2 == 0) {
+            bug.addComment(new Comment("2", "Comment on " + id, LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id)));
+        }
+        bug.setCreatedDate(LocalDateTime.of(2023, 6, 1, 9, 30).plusHours(id));
+        bug.setUpdatedDate(bug.getCreatedDate().plusDays(id % 7));
+        return bug;
+    }
+
+    private static int segmentFiles(File directory) {
+        File[] files = directory.listFiles((d, name) -> name.endsWith(".seg"));
+        return files != null ? files.length : 0;
+    }
+}
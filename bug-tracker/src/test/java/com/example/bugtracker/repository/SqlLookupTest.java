@@ -0,0 +1,165 @@
+package com.example.bugtracker.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SqlLookupTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int BUGS_PER_WRITER = 25;
+    private static final int ROUNDS = 40;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void lookupsSeeChangesAsTheyAreMade() throws Exception {
+        DataRepository repository = open();
+        List<List<String>> owned = new ArrayList<>();
+        try {
+            for (int writer = 0; writer < WRITERS; writer++) {
+                List<String> ids = new ArrayList<>();
+                for (int i = 0; i < BUGS_PER_WRITER; i++) {
+                    Bug bug = new Bug(repository.getNextBugId(), "Bug " + writer + "/" + i, "",
+                            String.valueOf(1 + i % 3), "4", Priority.values()[i % Priority.values().length]);
+                    bug.assignTo("2");
+                    repository.addBug(bug);
+                    ids.add(bug.getId());
+                }
+                owned.add(ids);
+            }
+
+            AtomicBoolean writing = new AtomicBoolean(true);
+            ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (List<String> ids : owned) {
+                    writers.add(pool.submit(() -> reassign(repository, ids)));
+                }
+                List<Future<?>> readers = new ArrayList<>();
+                for (int reader = 0; reader < READERS; reader++) {
+                    readers.add(pool.submit(() -> read(repository, writing)));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+                writing.set(false);
+                for (Future<?> reader : readers) {
+                    reader.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            repository.flush();
+            assertLookupsMatchScan(repository);
+        } finally {
+            repository.close();
+        }
+
+        DataRepository reopened = open();
+        try {
+            assertLookupsMatchScan(reopened);
+            for (List<String> ids : owned) {
+                for (String id : ids) {
+                    assertEquals(ROUNDS % 2 == 0 ? "2" : "3", reopened.getBugById(id).getAssigneeId());
+                }
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    /**
+     * Moves the bugs back and forth between two developers, checking after every change
+     * that the lookups already list the bug under its new assignee and status
+     */
+    private static void reassign(DataRepository repository, List<String> ids) {
+        for (int round = 1; round <= ROUNDS; round++) {
+            String assignee = round % 2 == 0 ? "2" : "3";
+            Status status = round % 2 == 0 ? Status.IN_PROGRESS : Status.NEW;
+            for (String id : ids) {
+                Bug changed = new Bug(repository.getBugById(id));
+                changed.assignTo(assignee);
+                changed.setStatus(status);
+                assertTrue(repository.compareAndSetBug(changed));
+
+                assertTrue(ids(repository.getBugsByAssignee(assignee)).contains(id));
+                assertTrue(ids(repository.getBugsByStatus(status)).contains(id));
+                BugCursor cursor = repository.query(new BugQuery().assignedTo(assignee).withStatus(status));
+                assertTrue(ids(cursor.nextPage(Integer.MAX_VALUE)).contains(id));
+            }
+        }
+    }
+
+    private static void read(DataRepository repository, AtomicBoolean writing) {
+        while (writing.get()) {
+            for (String assignee : List.of("2", "3")) {
+                List<String> ids = ids(repository.getBugsByAssignee(assignee));
+                assertEquals(ids.size(), new HashSet<>(ids).size(), "Duplicate bugs for " + assignee);
+                BugCursor cursor = repository.query(new BugQuery().inProject("1").assignedTo(assignee));
+                assertTrue(cursor.getPlan().startsWith("index on"), cursor.getPlan());
+                for (Bug bug : cursor.nextPage(Integer.MAX_VALUE)) {
+                    assertEquals(assignee, bug.getAssigneeId());
+                }
+            }
+        }
+    }
+
+    private static void assertLookupsMatchScan(DataRepository repository) {
+        for (String id : List.of("1", "2", "3")) {
+            assertEquals(scan(repository, bug -> id.equals(bug.getProjectId())),
+                    new HashSet<>(ids(repository.getBugsByProject(id))));
+            assertEquals(scan(repository, bug -> id.equals(bug.getAssigneeId())),
+                    new HashSet<>(ids(repository.getBugsByAssignee(id))));
+        }
+        assertEquals(scan(repository, bug -> "4".equals(bug.getReporterId())),
+                new HashSet<>(ids(repository.getBugsByReporter("4"))));
+        for (Status status : Status.values()) {
+            assertEquals(scan(repository, bug -> bug.getStatus() == status),
+                    new HashSet<>(ids(repository.getBugsByStatus(status))));
+        }
+    }
+
+    private DataRepository open() {
+        RepositoryConfig config = new RepositoryConfig();
+        config.setDataFile(dir.resolve("bugs.json").toString());
+        config.setBackend(StorageBackend.SQL);
+        config.setDurabilityMode(DurabilityMode.GROUP_COMMIT);
+        return new DataRepository(config);
+    }
+
+    private static Set<String> scan(DataRepository repository, Predicate<Bug> filter) {
+        Set<String> ids = new HashSet<>();
+        for (Bug bug : repository.getAllBugs()) {
+            if (filter.test(bug)) {
+                ids.add(bug.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static List<String> ids(List<Bug> bugs) {
+        List<String> ids = new ArrayList<>();
+        for (Bug bug : bugs) {
+            ids.add(bug.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bugtracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.model.enums.Status;
+import com.example.bugtracker.repository.BugQuery;
+import com.example.bugtracker.repository.DataRepository;
+import com.example.bugtracker.repository.RepositoryConfig;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.ZipException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BugImporterTest {
+    @TempDir
+    Path dir;
+
+    private DataRepository repository;
+    private BugService service;
+
+    @BeforeEach
+    void openRepository() {
+        RepositoryConfig config = new RepositoryConfig();
+        config.setDataFile(dir.resolve("bugs.json").toString());
+        repository = new DataRepository(config);
+        service = new BugService(repository);
+    }
+
+    @AfterEach
+    void closeRepository() {
+        repository.close();
+    }
+
+    @Test
+    void splitsPlainAndQuotedCells() {
+        assertEquals(List.of("a", "b", "c"), BugImporter.splitCsv("a,b,c"));
+        assertEquals(List.of("", "b", ""), BugImporter.splitCsv(",b,"));
+        assertEquals(List.of("a, b", "c"), BugImporter.splitCsv("\"a, b\",c"));
+        assertEquals(List.of("say \"hi\"", ""), BugImporter.splitCsv("\"say \"\"hi\"\"\","));
+        assertEquals(List.of("\""), BugImporter.splitCsv("\"\"\"\""));
+        assertEquals(List.of("line one\nline two", "x"), BugImporter.splitCsv("\"line one\nline two\",x"));
+    }
+
+    @Test
+    void importsCsvWithQuotedCellsSpanningLines() throws IOException {
+        String csv = "title,description,projectId,reporterId,priority\n"
+                + "Crash on save,\"First line\nsecond, with comma\n\"\"quoted\"\" third\",1,tester1,high\n"
+                + "\"Says \"\"hello\"\"\",,Mobile App,4,\n";
+
+        ImportReport report = service.importBugs(new StringReader(csv), FileFormat.CSV);
+
+        assertEquals(2, report.getImported());
+        assertEquals(0, report.getSkipped());
+        Bug crash = repository.getBugWithBody(findByTitle("Crash on save").getId());
+        assertEquals("First line\nsecond, with comma\n\"quoted\" third", crash.getDescription());
+        assertEquals("1", crash.getProjectId());
+        assertEquals("4", crash.getReporterId());
+        assertEquals(Priority.HIGH, crash.getPriority());
+        assertEquals(Status.NEW, crash.getStatus());
+
+        Bug hello = findByTitle("Says \"hello\"");
+        assertEquals("2", hello.getProjectId());
+        assertEquals(Priority.MEDIUM, hello.getPriority());
+    }
+
+    @Test
+    void reportsLineNumbersAfterMultiLineRecords() throws IOException {
+        String csv = "title,description,projectId,reporterId\n"
+                + "Spans,\"one\ntwo\nthree\",1,4\n"
+                + "\n"
+                + "Bad project,,99,4\n"
+                + ",No title,1,4\n"
+                + "Good,,1,4\n";
+
+        ImportReport report = service.importBugs(new StringReader(csv), FileFormat.CSV);
+
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getSkipped());
+        assertEquals(List.of("Line 6: Unknown project 99", "Line 7: Missing title"), report.getErrors());
+    }
+
+    @Test
+    void ignoresByteOrderMarkInHeader() throws IOException {
+        String csv = "\uFEFFtitle,projectId,reporterId\nWith BOM,1,4\n";
+
+        ImportReport report = service.importBugs(new StringReader(csv), FileFormat.CSV);
+
+        assertEquals(1, report.getImported());
+        assertNotNull(findByTitle("With BOM"));
+    }
+
+    @Test
+    void rejectsCsvWithoutRequiredColumn() {
+        String csv = "title,description,reporterId\nNo project,,4\n";
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.importBugs(new StringReader(csv), FileFormat.CSV));
+        assertEquals("Missing column 'projectId' in header", e.getMessage());
+    }
+
+    @Test
+    void skipsBadAndIncompleteJsonRecords() throws IOException {
+        String ndjson = "{\"title\":\"Valid\",\"projectId\":\"API Service\",\"reporterId\":\"tester2\","
+                + "\"assigneeId\":\"dev1\",\"status\":\"in_progress\"}\n"
+                + "{\"title\":\"Broken\",\n"
+                + "[1, 2]\n"
+                + "{\"projectId\":\"1\",\"reporterId\":\"4\"}\n"
+                + "{\"title\":\"No project\",\"reporterId\":\"4\"}\n"
+                + "{\"title\":\"No reporter\",\"projectId\":\"1\"}\n"
+                + "{\"title\":\"Bad assignee\",\"projectId\":\"1\",\"reporterId\":\"4\",\"assigneeId\":\"tester1\"}\n"
+                + "{\"title\":\"Bad priority\",\"projectId\":\"1\",\"reporterId\":\"4\",\"priority\":\"urgent\"}\n"
+                + "{\"title\":\"Bad date\",\"projectId\":\"1\",\"reporterId\":\"4\",\"createdDate\":\"yesterday\"}\n";
+
+        ImportReport report = service.importBugs(new StringReader(ndjson), FileFormat.NDJSON);
+
+        assertEquals(1, report.getImported());
+        assertEquals(8, report.getSkipped());
+        List<String> errors = report.getErrors();
+        assertTrue(errors.get(0).startsWith("Line 2: "), errors.get(0));
+        assertTrue(errors.get(1).startsWith("Line 3: "), errors.get(1));
+        assertEquals("Line 4: Missing title", errors.get(2));
+        assertEquals("Line 5: Missing projectId", errors.get(3));
+        assertEquals("Line 6: Missing reporterId", errors.get(4));
+        assertEquals("Line 7: Assignee tester1 is not a developer", errors.get(5));
+        assertEquals("Line 8: Unknown priority urgent", errors.get(6));
+        assertTrue(errors.get(7).startsWith("Line 9: "), errors.get(7));
+
+        Bug valid = findByTitle("Valid");
+        assertEquals("3", valid.getProjectId());
+        assertEquals("5", valid.getReporterId());
+        assertEquals("2", valid.getAssigneeId());
+        assertEquals(Status.IN_PROGRESS, valid.getStatus());
+        assertNull(findByTitle("No project"));
+    }
+
+    @Test
+    void rejectsCompressedFileThatIsNotGzip() throws IOException {
+        File file = dir.resolve("bugs.csv.gz").toFile();
+        Files.writeString(file.toPath(), "title,projectId,reporterId\nPlain,1,4\n");
+
+        assertThrows(ZipException.class, () -> service.importBugs(file));
+        assertNull(findByTitle("Plain"));
+    }
+
+    @Test
+    void importsNdjsonExportWithCommentsAndIds() throws IOException {
+        Bug exported = new Bug(repository.getNextBugId(), "Exported", "With comments", "1", "4", Priority.HIGH);
+        exported.addComment(new Comment("2", "Looking into it", LocalDateTime.of(2024, 3, 1, 10, 15, 30)));
+        exported.addComment(new Comment("4", "Still happens", LocalDateTime.of(2024, 3, 2, 9, 0)));
+        repository.addBug(exported);
+        StringWriter export = new StringWriter();
+        service.exportBugs(new BugQuery(), export, FileFormat.NDJSON);
+
+        RepositoryConfig config = new RepositoryConfig();
+        config.setDataFile(dir.resolve("copy.json").toString());
+        DataRepository copy = new DataRepository(config);
+        try {
+            ImportReport report = new BugService(copy).importBugs(new StringReader(export.toString()),
+                    FileFormat.NDJSON);
+
+            assertEquals(4, report.getImported());
+            // The default bugs 1 to 3 exist in the copy as well, so only the new bug keeps its ID
+            Bug imported = copy.getBugWithBody(exported.getId());
+            assertEquals("Exported", imported.getTitle());
+            assertEquals(2, imported.getComments().size());
+            Comment comment = imported.getComments().get(0);
+            assertEquals("2", comment.getAuthorId());
+            assertEquals("Looking into it", comment.getText());
+            assertEquals(LocalDateTime.of(2024, 3, 1, 10, 15, 30), comment.getTimestamp());
+            assertEquals(7, copy.getAllBugs().size());
+            assertEquals(String.valueOf(Long.parseLong(exported.getId()) + 4), copy.getNextBugId());
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    void skipsCommentsByUnknownAuthors() throws IOException {
+        String ndjson = "{\"title\":\"Commented\",\"projectId\":\"1\",\"reporterId\":\"4\","
+                + "\"comments\":[{\"authorId\":\"nobody\",\"text\":\"Hi\"}]}\n";
+
+        ImportReport report = service.importBugs(new StringReader(ndjson), FileFormat.NDJSON);
+
+        assertEquals(List.of("Line 1: Unknown comment author nobody"), report.getErrors());
+    }
+
+    private Bug findByTitle(String title) {
+        for (Bug bug : repository.getAllBugs()) {
+            if (bug.getTitle().equals(title)) {
+                return bug;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.bugtracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bugtracker.model.Bug;
+import com.example.bugtracker.model.Comment;
+import com.example.bugtracker.model.ModelTypeAdapters;
+import com.example.bugtracker.model.Project;
+import com.example.bugtracker.model.User;
+import com.example.bugtracker.model.enums.Priority;
+import com.example.bugtracker.repository.DataRepository;
+import com.example.bugtracker.repository.DurabilityMode;
+import com.example.bugtracker.repository.PersistenceMode;
+import com.example.bugtracker.repository.RepositoryConfig;
+import com.google.gson.Gson;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Stress test of concurrent bug creation, assignment and commenting against a single
+ * repository: no update may be lost, and what was stored must survive a reload.
+ */
+class ConcurrentBugServiceTest {
+    private static final int THREADS = 16;
+    private static final int BUGS_PER_THREAD = 10;
+    private static final int COMMENTS_PER_THREAD = 20;
+    private static final int SHARED_BUGS = 4;
+
+    private static final Gson GSON = ModelTypeAdapters.builder().create();
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @CsvSource({"SNAPSHOT, IMMEDIATE", "JOURNAL, IMMEDIATE", "JOURNAL, GROUP_COMMIT"})
+    void concurrentChangesAreNotLost(PersistenceMode persistence, DurabilityMode durability) throws Exception {
+        RepositoryConfig config = new RepositoryConfig();
+        config.setDataFile(dir.resolve("bugs.json").toString());
+        config.setPersistenceMode(persistence);
+        config.setDurabilityMode(durability);
+
+        DataRepository repository = new DataRepository(config);
+        BugService service = new BugService(repository);
+        int initialBugs = repository.getAllBugs().size();
+
+        // Bugs every thread comments on and reassigns, so that their updates collide
+        List<String> shared = new ArrayList<>();
+        for (int i = 0; i < SHARED_BUGS; i++) {
+            shared.add(service.createBug("Shared " + i, "Contended bug", "1", "4", Priority.HIGH).getId());
+        }
+
+        Set<String> createdIds = ConcurrentHashMap.newKeySet();
+        Map<String, Set<String>> acknowledgedComments = new ConcurrentHashMap<>();
+        Map<String, String> ownAssignees = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    String developer = thread % 2 == 0 ? "2" : "3";
+                    for (int i = 0; i < BUGS_PER_THREAD; i++) {
+                        Bug bug = service.createBug("Bug " + thread + "-" + i, "Description", "2", "5",
+                                Priority.MEDIUM);
+                        assertTrue(createdIds.add(bug.getId()), "Duplicate bug ID " + bug.getId());
+                        assertTrue(service.assignBug(bug.getId(), developer));
+                        ownAssignees.put(bug.getId(), developer);
+                    }
+                    for (int i = 0; i < COMMENTS_PER_THREAD; i++) {
+                        String bugId = shared.get(i % SHARED_BUGS);
+                        String text = "Comment " + thread + "-" + i;
+                        // The service gives up after repeated conflicts; only acknowledged comments must be kept
+                        if (service.addComment(bugId, "2", text)) {
+                            acknowledgedComments.computeIfAbsent(bugId, id -> ConcurrentHashMap.newKeySet())
+                                    .add(text);
+                        }
+                        service.assignBug(bugId, developer);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        assertEquals(THREADS * BUGS_PER_THREAD, createdIds.size());
+        assertEquals(initialBugs + SHARED_BUGS + THREADS * BUGS_PER_THREAD, repository.getAllBugs().size());
+        assertEquals(repository.getAllBugs().size(), distinctIds(repository));
+        assertTrue(acknowledgedComments.values().stream().mapToInt(Set::size).sum() > 0);
+        assertState(repository, ownAssignees, acknowledgedComments);
+
+        String before = dump(repository);
+        repository.close();
+
+        DataRepository reloaded = new DataRepository(config);
+        try {
+            assertEquals(before, dump(reloaded));
+            assertState(reloaded, ownAssignees, acknowledgedComments);
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    private static int distinctIds(DataRepository repository) {
+        Set<String> ids = new HashSet<>();
+        for (Bug bug : repository.getAllBugs()) {
+            ids.add(bug.getId());
+        }
+        return ids.size();
+    }
+
+    private static void assertState(DataRepository repository, Map<String, String> ownAssignees,
+                                    Map<String, Set<String>> acknowledgedComments) {
+        for (Map.Entry<String, String> entry : ownAssignees.entrySet()) {
+            Bug bug = repository.getBugById(entry.getKey());
+            assertNotNull(bug, "Missing bug " + entry.getKey());
+            assertEquals(entry.getValue(), bug.getAssigneeId());
+            assertEquals(1, bug.getVersion(), "Bug " + entry.getKey() + " was changed once");
+        }
+        for (Map.Entry<String, Set<String>> entry : acknowledgedComments.entrySet()) {
+            Bug bug = repository.getBugWithBody(entry.getKey());
+            List<String> texts = new ArrayList<>();
+            for (Comment comment : bug.getComments()) {
+                texts.add(comment.getText());
+            }
+            assertEquals(entry.getValue().size(), texts.size(), "Comments on bug " + entry.getKey());
+            assertEquals(entry.getValue(), new HashSet<>(texts));
+        }
+    }
+
+    private static String dump(DataRepository repository) {
+        StringBuilder dump = new StringBuilder();
+        for (User user : repository.getAllUsers()) {
+            dump.append(GSON.toJson(user)).append('\n');
+        }
+        for (Project project : repository.getAllProjects()) {
+            dump.append(GSON.toJson(project)).append('\n');
+        }
+        for (Bug bug : repository.getAllBugs()) {
+            dump.append(GSON.toJson(repository.withBody(bug))).append('\n');
+        }
+        return dump.toString();
+    }
+}